@@ -0,0 +1,102 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH json 结果 (<code>-rf json</code>), 用于发布前卡口.
+ * <p>
+ * 按 benchmark + mode + 线程数 + 参数 匹配. 吞吐 (thrpt) 低于基线超过 tolerance, 或 SampleTime 的 p99 / 平均时间 (avgt, ss)
+ * 高于基线超过 tolerance, 记为退化. 基线中没有的结果只列出, 不参与判定.
+ * <p>
+ * 用法: <code>BaselineComparator baseline.json current.json [tolerance]</code>, tolerance 缺省 0.1; 有退化时退出码为 1.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 22:40
+ */
+public class BaselineComparator {
+
+    public static final double DEFAULT_TOLERANCE = 0.1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator baseline.json current.json [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        int regressions = compare(new File(args[0]), new File(args[1]), tolerance, System.out);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * @return 退化的条数
+     */
+    public static int compare(File baseline, File current, double tolerance, PrintStream out) throws IOException {
+        Map<String, JsonNode> baselines = index(MAPPER.readTree(baseline));
+        Map<String, JsonNode> currents = index(MAPPER.readTree(current));
+        int regressions = 0;
+        out.printf("%-70s %-6s %14s %14s %9s%n", "Benchmark", "Metric", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : currents.entrySet()) {
+            JsonNode cur = entry.getValue();
+            JsonNode base = baselines.get(entry.getKey());
+            String mode = cur.path("mode").asText();
+            String unit = cur.path("primaryMetric").path("scoreUnit").asText();
+            boolean higherIsBetter = "thrpt".equals(mode);
+            String metric = "sample".equals(mode) ? "p99" : mode;
+            double curValue = value(cur, mode);
+            if (base == null) {
+                out.printf("%-70s %-6s %14s %14.3f %9s  %s%n", entry.getKey(), metric, "-", curValue, "new", unit);
+                continue;
+            }
+            double baseValue = value(base, mode);
+            double change = baseValue == 0 ? 0 : curValue / baseValue - 1;
+            boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            out.printf("%-70s %-6s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), metric, baseValue, curValue, change * 100, unit,
+                    regressed ? "  REGRESSION" : "");
+        }
+        out.printf("%d regression(s), tolerance %.0f%%%n", regressions, tolerance * 100);
+        return regressions;
+    }
+
+    /**
+     * sample 取 p99, 其余取 score
+     */
+    private static double value(JsonNode result, String mode) {
+        JsonNode metric = result.path("primaryMetric");
+        if ("sample".equals(mode)) {
+            return metric.path("scorePercentiles").path("99.0").asDouble();
+        }
+        return metric.path("score").asDouble();
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> index = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            // 去掉包名: Class.method
+            String benchmark = result.path("benchmark").asText();
+            int method = benchmark.lastIndexOf('.');
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1))
+                    .append(' ').append(result.path("mode").asText())
+                    .append(" t=").append(result.path("threads").asInt());
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            index.put(key.toString(), result);
+        }
+        return index;
+    }
+
+}
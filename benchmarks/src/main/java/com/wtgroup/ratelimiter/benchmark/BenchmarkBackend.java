@@ -0,0 +1,74 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.LettuceRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * 基准测试的 redis 后端.
+ * <p>
+ * memory: {@link InMemoryRedisExecutor}, 不需要 redis;
+ * jedis: 连接池, 最多 poolSize 个连接; lettuce: 单连接多路复用, 忽略 poolSize.
+ * <p>
+ * redis 地址: -Dredis.host=ws-docker -Dredis.port=6379
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 22:20
+ */
+public class BenchmarkBackend implements AutoCloseable {
+
+    private final RedisExecutor executor;
+    private JedisPool jedisPool;
+    private RedisClient redisClient;
+    private StatefulRedisConnection<String, String> connection;
+
+    /**
+     * @param name            memory / jedis / lettuce
+     * @param poolSize        连接数
+     * @param roundTripMicros memory 模拟的往返耗时
+     */
+    public BenchmarkBackend(String name, int poolSize, long roundTripMicros) {
+        String host = System.getProperty("redis.host", "ws-docker");
+        int port = Integer.getInteger("redis.port", 6379);
+        switch (name) {
+            case "memory":
+                executor = new InMemoryRedisExecutor(poolSize, roundTripMicros);
+                break;
+            case "jedis":
+                GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+                config.setMaxTotal(poolSize);
+                config.setMaxIdle(poolSize);
+                jedisPool = new JedisPool(config, host, port);
+                executor = new JedisRedisExecutor(jedisPool);
+                break;
+            case "lettuce":
+                redisClient = RedisClient.create("redis://" + host + ":" + port);
+                connection = redisClient.connect();
+                executor = new LettuceRedisExecutor(connection);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + name);
+        }
+    }
+
+    public RedisExecutor executor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        if (jedisPool != null) {
+            jedisPool.close();
+        }
+        if (connection != null) {
+            connection.close();
+            redisClient.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * benchmarks.jar 入口, 参数同 JMH ({@link org.openjdk.jmh.Main}), 结果缺省以 json 写入 jmh-result.json.
+ * <p>
+ * 另支持 <code>--baseline baseline.json [--tolerance 0.1]</code>: 运行后与基线对比 ({@link BaselineComparator}), 有退化时退出码为 1.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar LimiterBenchmark -rff baseline.json
+ * java -jar benchmarks/target/benchmarks.jar LimiterBenchmark --baseline baseline.json
+ * </pre>
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 22:50
+ */
+public class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        String baseline = null;
+        double tolerance = BaselineComparator.DEFAULT_TOLERANCE;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baseline = args[++i];
+            } else if ("--tolerance".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+        int rf = jmhArgs.indexOf("-rf");
+        if (rf < 0) {
+            jmhArgs.addAll(Arrays.asList("-rf", "json"));
+        } else if (baseline != null && (rf + 1 >= jmhArgs.size() || !"json".equalsIgnoreCase(jmhArgs.get(rf + 1)))) {
+            System.err.println("--baseline requires -rf json");
+            System.exit(2);
+        }
+        int rff = jmhArgs.indexOf("-rff");
+        String result = rff >= 0 && rff + 1 < jmhArgs.size() ? jmhArgs.get(rff + 1) : DEFAULT_RESULT;
+        if (rff < 0) {
+            jmhArgs.addAll(Arrays.asList("-rff", result));
+        }
+
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+
+        if (baseline != null) {
+            int regressions = BaselineComparator.compare(new File(baseline), new File(result), tolerance, System.out);
+            System.exit(regressions > 0 ? 1 : 0);
+        }
+    }
+
+}
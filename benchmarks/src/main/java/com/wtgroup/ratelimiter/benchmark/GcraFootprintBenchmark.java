@@ -0,0 +1,99 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.script.GcraScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstyReserveScript;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GCRA (单个整数) 与 SmoothBursty (hash) 两种存储的对比: 每百万 key 的 redis 内存, 以及脚本在服务端的执行耗时.
+ * <p>
+ * 对每种布局: 以 pipeline 对 N 个 key 各执行一次预留脚本, 并 PERSIST (两者都会在令牌攒满后过期, 不 PERSIST 的话写完前就过期了),
+ * 取 INFO memory 的 used_memory 增量和 INFO commandstats 中 evalsha 的 usec 增量, 之后删除这些 key.
+ * <p>
+ * 用法: <code>GcraFootprintBenchmark [host] [keys]</code>, 默认 ws-docker 1000000. 结果受同实例上其他客户端影响, 请用空闲实例.
+ */
+public class GcraFootprintBenchmark {
+
+    private static final int BATCH = 1000;
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "ws-docker";
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        try (Jedis jedis = new Jedis(host)) {
+            run(jedis, "hash (SmoothBursty)", "FOOTPRINT_SB:", n, new SmoothBurstyReserveScript(), Arrays.asList("1", "100"));
+            run(jedis, "integer (GCRA)", "FOOTPRINT_GCRA:", n, new GcraScript(), Arrays.asList("1", "10000", "1000000"));
+        }
+    }
+
+    private static void run(Jedis jedis, String name, String prefix, int n, RedisScript script, List<String> argv) {
+        jedis.scriptLoad(script.getScriptAsString());
+        long mem0 = usedMemory(jedis);
+        long[] stat0 = evalshaStat(jedis);
+
+        for (int from = 0; from < n; from += BATCH) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = from; i < Math.min(from + BATCH, n); i++) {
+                String key = prefix + i;
+                pipeline.evalsha(script.getSha1(), Collections.singletonList(key), argv);
+                pipeline.persist(key);
+            }
+            pipeline.sync();
+        }
+
+        long[] stat1 = evalshaStat(jedis);
+        long mem1 = usedMemory(jedis);
+        long calls = stat1[0] - stat0[0];
+        long usec = stat1[1] - stat0[1];
+        System.out.printf("%-20s keys=%d  memory=%.1f MB/1M keys  (%.1f B/key)  evalsha=%.2f us/call%n",
+                name, n,
+                (mem1 - mem0) * 1_000_000.0 / n / 1024 / 1024, 1.0 * (mem1 - mem0) / n,
+                1.0 * usec / Math.max(calls, 1));
+
+        for (int from = 0; from < n; from += BATCH) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = from; i < Math.min(from + BATCH, n); i++) {
+                pipeline.del(prefix + i);
+            }
+            pipeline.sync();
+        }
+    }
+
+    private static long usedMemory(Jedis jedis) {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()));
+            }
+        }
+        throw new IllegalStateException("used_memory not found");
+    }
+
+    /**
+     * @return {calls, usec}
+     */
+    private static long[] evalshaStat(Jedis jedis) {
+        for (String line : jedis.info("commandstats").split("\r\n")) {
+            if (line.startsWith("cmdstat_evalsha:")) {
+                long calls = 0;
+                long usec = 0;
+                for (String kv : line.substring("cmdstat_evalsha:".length()).split(",")) {
+                    String[] p = kv.split("=");
+                    if ("calls".equals(p[0])) {
+                        calls = Long.parseLong(p[1]);
+                    } else if ("usec".equals(p[0])) {
+                        usec = Long.parseLong(p[1]);
+                    }
+                }
+                return new long[]{calls, usec};
+            }
+        }
+        return new long[]{0, 0};
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.FixWindowScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流热路径每次调用的分配, 看 <code>-prof gc</code> 的 gc.alloc.rate.norm (B/op).
+ * <p>
+ * constant: 不访问 redis, 返回固定值, 只剩限流器自身的分配, 应接近 0;
+ * jedis: 加上 jedis 收发的分配 (命令参数拼装, 读缓冲, 连接池借还), 这部分不受本项目控制.
+ * <p>
+ * redis 地址: -Dredis.host=ws-docker -Dredis.port=6379
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class HotPathAllocationBenchmark {
+
+    @Param({"constant", "jedis"})
+    public String backend;
+
+    private JedisPool jedisPool;
+    private FixWindowRateLimiter fixWindow;
+    private SmoothBurstyRateLimiter smoothBursty;
+
+    @Setup
+    public void setup() {
+        RedisExecutor executor;
+        boolean redis = "jedis".equals(backend);
+        if (redis) {
+            String host = System.getProperty("redis.host", "ws-docker");
+            int port = Integer.getInteger("redis.port", 6379);
+            jedisPool = new JedisPool(new GenericObjectPoolConfig(), host, port);
+            executor = new JedisRedisExecutor(jedisPool);
+        } else {
+            executor = new ConstantExecutor();
+        }
+        // 上限/速率足够大, 总是放行, 不睡眠
+        fixWindow = new FixWindowRateLimiter(executor, "BENCH_ALLOC_FIX_WINDOW", Integer.MAX_VALUE, Duration.ofSeconds(1));
+        smoothBursty = new SmoothBurstyRateLimiter(executor, "BENCH_ALLOC_SMOOTH_BURSTY", 1e9, !redis);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jedisPool != null) {
+            smoothBursty.destroy();
+            jedisPool.close();
+        }
+    }
+
+    @Benchmark
+    public boolean fixWindowTryAcquire() {
+        return fixWindow.tryAcquire();
+    }
+
+    @Benchmark
+    public double smoothBurstyAcquire() {
+        return smoothBursty.acquire();
+    }
+
+    /**
+     * 固定窗口脚本返回 1 (放行), 其余返回 0 (平滑突发不等待)
+     */
+    private static class ConstantExecutor implements RedisExecutor {
+
+        @Override
+        public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+            return script instanceof FixWindowScript ? 1 : 0;
+        }
+
+        @Override
+        public Object eval(RedisScript script, List<String> keys, List<String> args) {
+            return script instanceof FixWindowScript ? 1L : 0L;
+        }
+
+        @Override
+        public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+            return CompletableFuture.completedFuture(eval(script, keys, args));
+        }
+
+        @Override
+        public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String hget(String key, String field) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<String> hgetAsync(String key, String field) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public Map<String, String> hgetAll(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String get(String key) {
+            return null;
+        }
+
+        @Override
+        public void expire(String key, int seconds) {
+        }
+
+        @Override
+        public void del(String key) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotPathAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
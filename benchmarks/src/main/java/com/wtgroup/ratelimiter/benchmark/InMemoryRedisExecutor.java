@@ -0,0 +1,306 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.FixWindowScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstyInitScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstyReserveScript;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内模拟的 redis, 基准测试不依赖 redis 时代替 {@link com.wtgroup.ratelimiter.executor.JedisRedisExecutor}.
+ * <p>
+ * 以 java 实现 {@link FixWindowScript}, {@link SmoothBurstyInitScript}, {@link SmoothBurstyReserveScript} 的语义,
+ * 同一 key 上的脚本互斥执行 (相当于 redis 单线程), 不支持其他脚本.
+ * <p>
+ * 可模拟连接池 (每次调用占用 poolSize 个连接中的一个) 和往返耗时, 用于观察连接池争用.
+ * 往返耗时以 parkNanos 等待, 精度受系统定时器限制 (linux 上一般为几十微秒).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 22:10
+ */
+public class InMemoryRedisExecutor implements RedisExecutor {
+
+    /**
+     * 每写入这么多次清理一次过期 key
+     */
+    private static final int SWEEP_INTERVAL = 1 << 16;
+
+    private final Semaphore pool;
+    private final long roundTripNanos;
+    /**
+     * redis TIME: 墙上时间, 但用 nanoTime 推进, 不回拨
+     */
+    private final long epochOffsetMicros = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+
+    public InMemoryRedisExecutor() {
+        this(0, 0);
+    }
+
+    /**
+     * @param poolSize        连接数, 0 表示不限
+     * @param roundTripMicros 每次调用模拟的往返耗时, 0 表示不等待
+     */
+    public InMemoryRedisExecutor(int poolSize, long roundTripMicros) {
+        this.pool = poolSize > 0 ? new Semaphore(poolSize) : null;
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+    }
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        borrow();
+        try {
+            return execute(script, keys, args);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(eval(script, keys, args));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        borrow();
+        try {
+            Object[] results = new Object[params.length];
+            for (int i = 0; i < params.length; i++) {
+                String[] param = params[i];
+                List<String> all = Arrays.asList(param);
+                results[i] = execute(script, all.subList(0, keyCount), all.subList(keyCount, param.length));
+            }
+            return results;
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        Entry entry = live(key);
+        Double value = entry == null ? null : entry.hash.get(field);
+        return value == null ? null : format(value);
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        return CompletableFuture.completedFuture(hget(key, field));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        Map<String, String> res = new HashMap<>();
+        Entry entry = live(key);
+        if (entry != null) {
+            entry.hash.forEach((field, value) -> res.put(field, format(value)));
+        }
+        return res;
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = live(key);
+        return entry == null ? null : Long.toString(entry.count);
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        data.computeIfPresent(key, (k, entry) -> {
+            entry.expireAtMillis = System.currentTimeMillis() + seconds * 1000L;
+            return entry;
+        });
+    }
+
+    @Override
+    public void del(String key) {
+        data.remove(key);
+    }
+
+    /**
+     * 当前 key 数 (含未清理的过期 key)
+     */
+    public int size() {
+        return data.size();
+    }
+
+    private Object execute(RedisScript script, List<String> keys, List<String> args) {
+        if (writes.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            long now = System.currentTimeMillis();
+            data.values().removeIf(entry -> entry.expireAtMillis <= now);
+        }
+        if (script instanceof FixWindowScript) {
+            return fixWindow(keys, args);
+        }
+        if (script instanceof SmoothBurstyReserveScript) {
+            return smoothBurstyReserve(keys.get(0), args);
+        }
+        if (script instanceof SmoothBurstyInitScript) {
+            return smoothBurstyInit(keys.get(0), Double.parseDouble(args.get(0)));
+        }
+        throw new UnsupportedOperationException("InMemoryRedisExecutor does not support " + script.getClass().getSimpleName());
+    }
+
+    private Long fixWindow(List<String> keys, List<String> args) {
+        long limit = Long.parseLong(args.get(0));
+        if (keys.size() > 1) {
+            Entry config = live(keys.get(1));
+            Double override = config == null ? null : config.hash.get("limit");
+            if (override != null) {
+                limit = override.longValue();
+            }
+        }
+        long finalLimit = limit;
+        long ttlMillis = Long.parseLong(args.get(1)) * 1000;
+        long permits = args.size() > 2 ? Long.parseLong(args.get(2)) : 1;
+        if (permits > finalLimit) {
+            return -1L;
+        }
+        long[] res = new long[1];
+        data.compute(keys.get(0), (key, entry) -> {
+            long now = System.currentTimeMillis();
+            if (entry == null || entry.expireAtMillis <= now) {
+                entry = new Entry();
+            }
+            if (entry.count + permits > finalLimit) {
+                return entry.count == 0 ? null : entry;
+            }
+            entry.count += permits;
+            entry.expireAtMillis = now + ttlMillis;
+            res[0] = 1;
+            return entry;
+        });
+        return res[0];
+    }
+
+    private Long smoothBurstyInit(String id, double permitsPerSecond) {
+        data.compute(id, (key, entry) -> {
+            if (entry == null || entry.expireAtMillis <= System.currentTimeMillis()) {
+                entry = new Entry();
+            }
+            double pps = entry.hash.getOrDefault("permitsPerSecond", permitsPerSecond);
+            entry.hash.put("stableIntervalMicros", 1000000 / pps);
+            entry.hash.put("storedPermits", pps);
+            entry.hash.put("maxPermits", pps);
+            entry.hash.put("nextFreeTicketMicros", 0.0);
+            return entry;
+        });
+        return 1L;
+    }
+
+    /**
+     * 同 {@link SmoothBurstyReserveScript}
+     */
+    private Long smoothBurstyReserve(String id, List<String> args) {
+        double requiredPermits = args.isEmpty() ? 1 : Double.parseDouble(args.get(0));
+        double timeoutMicros = args.size() > 2 ? Double.parseDouble(args.get(2)) : Double.NaN;
+        long[] res = new long[1];
+        data.compute(id, (key, entry) -> {
+            long nowMicros = epochOffsetMicros + System.nanoTime() / 1000;
+            if (entry == null || entry.expireAtMillis <= nowMicros / 1000) {
+                entry = new Entry();
+            }
+            Map<String, Double> hash = entry.hash;
+            double nextFreeTicketMicros;
+            double stableIntervalMicros;
+            double maxPermits;
+            double storedPermits;
+            if (hash.containsKey("nextFreeTicketMicros")) {
+                nextFreeTicketMicros = hash.get("nextFreeTicketMicros");
+                stableIntervalMicros = hash.get("stableIntervalMicros");
+                maxPermits = hash.get("maxPermits");
+                storedPermits = hash.get("storedPermits");
+            } else {
+                double permitsPerSecond = Double.parseDouble(args.get(1));
+                stableIntervalMicros = 1000000 / permitsPerSecond;
+                maxPermits = permitsPerSecond;
+                storedPermits = permitsPerSecond;
+                nextFreeTicketMicros = 0;
+            }
+            if (nowMicros > nextFreeTicketMicros) {
+                storedPermits = Math.min(maxPermits, storedPermits + (nowMicros - nextFreeTicketMicros) / stableIntervalMicros);
+                nextFreeTicketMicros = nowMicros;
+            }
+            if (!Double.isNaN(timeoutMicros) && nextFreeTicketMicros - timeoutMicros > nowMicros) {
+                res[0] = -1 - (long) Math.floor(nextFreeTicketMicros - nowMicros);
+                return hash.isEmpty() ? null : entry;
+            }
+            double storedPermitsToSpend = Math.min(requiredPermits, storedPermits);
+            double freshPermits = requiredPermits - storedPermitsToSpend;
+            res[0] = (long) Math.max(nextFreeTicketMicros - nowMicros, 0);
+            nextFreeTicketMicros += freshPermits * stableIntervalMicros;
+            storedPermits -= storedPermitsToSpend;
+            hash.put("stableIntervalMicros", stableIntervalMicros);
+            hash.put("maxPermits", maxPermits);
+            hash.put("storedPermits", storedPermits);
+            hash.put("nextFreeTicketMicros", nextFreeTicketMicros);
+            if (!hash.containsKey("permitsPerSecond")) {
+                entry.expireAtMillis = nowMicros / 1000
+                        + (long) Math.ceil((Math.max(nextFreeTicketMicros - nowMicros, 0) + maxPermits * stableIntervalMicros) / 1000) + 1000;
+            }
+            return entry;
+        });
+        return res[0];
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAtMillis <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private void borrow() {
+        if (pool != null) {
+            pool.acquireUninterruptibly();
+        }
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+
+    private void release() {
+        if (pool != null) {
+            pool.release();
+        }
+    }
+
+    /**
+     * 同 lua 数字转字符串: 整数不带小数点
+     */
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e18 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /**
+     * 一个 key: 字符串值 (计数) 或 hash
+     */
+    private static final class Entry {
+        long expireAtMillis = Long.MAX_VALUE;
+        long count;
+        final Map<String, Double> hash = new HashMap<>(8);
+    }
+
+}
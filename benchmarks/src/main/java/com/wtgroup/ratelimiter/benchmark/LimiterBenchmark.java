@@ -0,0 +1,85 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个限流器的调用吞吐和延迟分布: FixWindowRateLimiter.tryAcquire (acquire0), SmoothBurstyRateLimiter 的 tryAcquire / acquire (reserve).
+ * <p>
+ * 上限/速率足够大, 总是放行, 不睡眠. 缺省 memory 后端, 测限流器自身加模拟脚本的开销;
+ * 加 <code>-p backend=memory,jedis,lettuce</code> 连接 redis 对比 (见 {@link BenchmarkBackend}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LimiterBenchmark {
+
+    @Param({"memory"})
+    public String backend;
+
+    @Param({"fixWindow", "smoothBursty"})
+    public String limiter;
+
+    private BenchmarkBackend redis;
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setup() {
+        redis = new BenchmarkBackend(backend, 8, 0);
+        // 每次运行用新 key, 不受上次残留数据影响
+        String id = "BENCH_LIMITER:" + UUID.randomUUID();
+        if ("fixWindow".equals(limiter)) {
+            rateLimiter = new FixWindowRateLimiter(redis.executor(), id, Integer.MAX_VALUE, Duration.ofSeconds(1));
+        } else {
+            rateLimiter = new SmoothBurstyRateLimiter(redis.executor(), id, 1e9, true);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (rateLimiter instanceof SmoothBurstyRateLimiter) {
+            ((SmoothBurstyRateLimiter) rateLimiter).destroy();
+        }
+        redis.close();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    public double acquire() {
+        return rateLimiter.acquire();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
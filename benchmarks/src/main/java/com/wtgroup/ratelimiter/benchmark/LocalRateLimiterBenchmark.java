@@ -0,0 +1,81 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.LocalFixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.LocalSmoothBurstyRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内限流器 tryAcquire 耗时, 所有线程争用同一个限流器.
+ * <p>
+ * 速率足够大, 测的是 CAS 本身而不是被拒的快速路径.
+ * 加 -prof gc 可确认每次调用不分配对象.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LocalRateLimiterBenchmark {
+
+    private final LocalSmoothBurstyRateLimiter smoothBursty = new LocalSmoothBurstyRateLimiter(1e12);
+    private final LocalFixWindowRateLimiter fixWindow = new LocalFixWindowRateLimiter(Integer.MAX_VALUE, Duration.ofSeconds(1));
+
+    @Benchmark
+    @Threads(1)
+    public boolean smoothBursty1() {
+        return smoothBursty.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean smoothBursty8() {
+        return smoothBursty.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean smoothBursty64() {
+        return smoothBursty.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean fixWindow1() {
+        return fixWindow.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean fixWindow8() {
+        return fixWindow.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean fixWindow64() {
+        return fixWindow.tryAcquire();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocalRateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
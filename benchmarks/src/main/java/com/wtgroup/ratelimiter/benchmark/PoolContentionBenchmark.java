@@ -0,0 +1,101 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池争用: 线程数 (1/8/64) 与维度 key 数 (keys) 变化时, 按维度固定窗口限流 ({@link RateLimiterRegistry#fixWindow}) 的吞吐和延迟分布.
+ * <p>
+ * 每次调用随机取一个维度 key; 连接池 poolSize 个连接, 线程数超过连接数后排队借连接.
+ * memory 后端每次调用占用连接 roundTripMicros 模拟往返; jedis 为真实往返, 忽略 roundTripMicros (见 {@link BenchmarkBackend}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PoolContentionBenchmark {
+
+    @Param({"memory"})
+    public String backend;
+
+    @Param({"8"})
+    public int poolSize;
+
+    @Param({"100"})
+    public long roundTripMicros;
+
+    @Param({"1", "1000", "100000"})
+    public int keys;
+
+    private BenchmarkBackend redis;
+    private RateLimiterRegistry<FixWindowRateLimiter> registry;
+    private String[] dimensionKeys;
+
+    @Setup
+    public void setup() {
+        redis = new BenchmarkBackend(backend, poolSize, roundTripMicros);
+        registry = RateLimiterRegistry.fixWindow(redis.executor(), "BENCH_POOL:" + UUID.randomUUID(),
+                Integer.MAX_VALUE, Duration.ofSeconds(1), keys, Duration.ofMinutes(10));
+        dimensionKeys = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            dimensionKeys[i] = "u" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redis.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads1() {
+        return tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean threads8() {
+        return tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean threads64() {
+        return tryAcquire();
+    }
+
+    private boolean tryAcquire() {
+        return registry.tryAcquire(dimensionKeys[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PoolContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
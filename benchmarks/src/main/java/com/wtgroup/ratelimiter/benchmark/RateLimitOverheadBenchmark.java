@@ -0,0 +1,102 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.annotation.RateLimit;
+import com.wtgroup.ratelimiter.aop.RateLimitAdvisor;
+import com.wtgroup.ratelimiter.aop.RateLimitHandlerInterceptor;
+import com.wtgroup.ratelimiter.aop.RateLimitOperationSource;
+import com.wtgroup.ratelimiter.core.LocalSmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * &#64;RateLimit 的额外开销: 手工调用限流器 vs 切面代理 vs mvc 拦截器.
+ * <p>
+ * 都用进程内限流器 (速率足够大, 总是放行), 按维度 key 取限流器, 差值即注解处理本身 (key 表达式求值 + 缓存查找 + 代理).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class RateLimitOverheadBenchmark {
+
+    private final RateLimiterRegistry<LocalSmoothBurstyRateLimiter> registry =
+            new RateLimiterRegistry<>(key -> new LocalSmoothBurstyRateLimiter(1e12), 100, Duration.ofMinutes(10));
+    private final Service service = new Service();
+    private Service proxy;
+    private RateLimitHandlerInterceptor interceptor;
+    private HandlerMethod handler;
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        RateLimitOperationSource operationSource = new RateLimitOperationSource(null, 100, Duration.ofMinutes(10));
+        ProxyFactory proxyFactory = new ProxyFactory(service);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new RateLimitAdvisor(operationSource));
+        proxy = (Service) proxyFactory.getProxy();
+
+        interceptor = new RateLimitHandlerInterceptor(operationSource);
+        handler = new HandlerMethod(service, Service.class.getMethod("byIp"));
+        request.setRemoteAddr("10.0.0.1");
+    }
+
+    @Benchmark
+    public String manual() {
+        if (!registry.get("u1").tryAcquire()) {
+            throw new IllegalStateException();
+        }
+        return service.byUser("u1");
+    }
+
+    @Benchmark
+    public String aop() {
+        return proxy.byUser("u1");
+    }
+
+    @Benchmark
+    public boolean interceptor() {
+        return interceptor.preHandle(request, response, handler);
+    }
+
+    public static class Service {
+
+        @RateLimit(algorithm = RateLimit.Algorithm.LOCAL_SMOOTH_BURSTY, rate = 1e12, key = "#p0")
+        public String byUser(String userId) {
+            return userId;
+        }
+
+        @RateLimit(algorithm = RateLimit.Algorithm.LOCAL_SMOOTH_BURSTY, rate = 1e12, key = "#request.remoteAddr")
+        public String byIp() {
+            return "ip";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitOverheadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
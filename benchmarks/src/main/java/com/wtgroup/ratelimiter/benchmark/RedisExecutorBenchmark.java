@@ -0,0 +1,104 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.LettuceRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jedis 连接池 vs lettuce 单连接多路复用, FixWindowRateLimiter.tryAcquire 吞吐.
+ * <p>
+ * redis 地址: -Dredis.host=ws-docker -Dredis.port=6379
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class RedisExecutorBenchmark {
+
+    @Param({"jedis", "lettuce"})
+    public String backend;
+
+    private JedisPool jedisPool;
+    private RedisClient redisClient;
+    private StatefulRedisConnection<String, String> connection;
+    private FixWindowRateLimiter rateLimiter;
+
+    @Setup
+    public void setup() {
+        String host = System.getProperty("redis.host", "ws-docker");
+        int port = Integer.getInteger("redis.port", 6379);
+        RedisExecutor executor;
+        if ("jedis".equals(backend)) {
+            jedisPool = new JedisPool(new GenericObjectPoolConfig(), host, port);
+            executor = new JedisRedisExecutor(jedisPool);
+        } else {
+            redisClient = RedisClient.create("redis://" + host + ":" + port);
+            connection = redisClient.connect();
+            executor = new LettuceRedisExecutor(connection);
+        }
+        // 上限足够大, 只测通信开销
+        rateLimiter = new FixWindowRateLimiter(executor, "BENCH_EXECUTOR", Integer.MAX_VALUE, Duration.ofSeconds(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jedisPool != null) {
+            jedisPool.close();
+        }
+        if (connection != null) {
+            connection.close();
+            redisClient.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads1() {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean threads16() {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(256)
+    public boolean threads256() {
+        return rateLimiter.tryAcquire();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedisExecutorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
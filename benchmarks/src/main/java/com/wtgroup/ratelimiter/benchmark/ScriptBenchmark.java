@@ -0,0 +1,148 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.GcraRateLimiter;
+import com.wtgroup.ratelimiter.core.HierarchicalRateLimiter;
+import com.wtgroup.ratelimiter.core.SlidingWindowCounterRateLimiter;
+import com.wtgroup.ratelimiter.core.SlidingWindowLogRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothWarmingUpRateLimiter;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 各限流脚本的执行开销: 单线程单连接, 每次调用一个 evalsha 往返, 往返中网络部分相同, 差值即脚本本身.
+ * <p>
+ * 上限/速率足够大, 总是放行 (滑动窗口日志的集合保持约 1 秒的调用数). 每个参数组合结束时打印
+ * INFO commandstats 中 evalsha 的服务端平均耗时 (us/call), 不含网络; 结果受同实例上其他客户端影响, 请用空闲实例.
+ * <p>
+ * redis 地址: -Dredis.host=ws-docker -Dredis.port=6379
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(1)
+@Fork(1)
+public class ScriptBenchmark {
+
+    @Param({"fixWindow", "slidingCounter", "slidingLog", "smoothBursty", "smoothWarmingUp", "gcra", "hierarchical"})
+    public String limiter;
+
+    private BenchmarkBackend redis;
+    private Jedis stats;
+    private BooleanSupplier tryAcquire;
+    private Runnable destroy = () -> {
+    };
+    private long[] evalsha0;
+
+    @Setup
+    public void setup() {
+        redis = new BenchmarkBackend("jedis", 1, 0);
+        stats = new Jedis(System.getProperty("redis.host", "ws-docker"), Integer.getInteger("redis.port", 6379));
+        RedisExecutor executor = redis.executor();
+        String id = "BENCH_SCRIPT:" + UUID.randomUUID();
+        Duration window = Duration.ofSeconds(1);
+        switch (limiter) {
+            case "fixWindow":
+                tryAcquire = new FixWindowRateLimiter(executor, id, Integer.MAX_VALUE, window)::tryAcquire;
+                break;
+            case "slidingCounter":
+                tryAcquire = new SlidingWindowCounterRateLimiter(executor, id, Integer.MAX_VALUE, window)::tryAcquire;
+                break;
+            case "slidingLog":
+                tryAcquire = new SlidingWindowLogRateLimiter(executor, id, Integer.MAX_VALUE, window)::tryAcquire;
+                break;
+            case "smoothBursty":
+                SmoothBurstyRateLimiter smoothBursty = new SmoothBurstyRateLimiter(executor, id, 1e9, true);
+                tryAcquire = smoothBursty::tryAcquire;
+                destroy = smoothBursty::destroy;
+                break;
+            case "smoothWarmingUp":
+                SmoothWarmingUpRateLimiter warmingUp = new SmoothWarmingUpRateLimiter(executor, id, 1e9, Duration.ofSeconds(1));
+                tryAcquire = warmingUp::tryAcquire;
+                destroy = warmingUp::destroy;
+                break;
+            case "gcra":
+                GcraRateLimiter gcra = new GcraRateLimiter(executor, id, 1e9);
+                tryAcquire = gcra::tryAcquire;
+                destroy = gcra::destroy;
+                break;
+            case "hierarchical":
+                // 用户 + 全局两级, 同一 hash tag
+                HierarchicalRateLimiter hierarchical = new HierarchicalRateLimiter(executor)
+                        .addSmoothBursty("user", "{" + id + "}:user", 1e9)
+                        .addFixWindow("global", "{" + id + "}:global", Integer.MAX_VALUE, window);
+                tryAcquire = () -> hierarchical.tryAcquire(1, "u1", null) == HierarchicalRateLimiter.PERMITTED;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown limiter: " + limiter);
+        }
+        evalsha0 = evalshaStat();
+    }
+
+    @TearDown
+    public void tearDown() {
+        long[] evalsha1 = evalshaStat();
+        System.out.printf("%n%s: evalsha %.2f us/call on server%n", limiter,
+                1.0 * (evalsha1[1] - evalsha0[1]) / Math.max(evalsha1[0] - evalsha0[0], 1));
+        destroy.run();
+        stats.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return tryAcquire.getAsBoolean();
+    }
+
+    /**
+     * @return {calls, usec}
+     */
+    private long[] evalshaStat() {
+        for (String line : stats.info("commandstats").split("\r\n")) {
+            if (line.startsWith("cmdstat_evalsha:")) {
+                long calls = 0;
+                long usec = 0;
+                for (String kv : line.substring("cmdstat_evalsha:".length()).split(",")) {
+                    if (kv.startsWith("calls=")) {
+                        calls = Long.parseLong(kv.substring("calls=".length()));
+                    } else if (kv.startsWith("usec=")) {
+                        usec = Long.parseLong(kv.substring("usec=".length()));
+                    }
+                }
+                return new long[]{calls, usec};
+            }
+        }
+        return new long[]{0, 0};
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScriptBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.StripedRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.ShardedRedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点全局限流器拆成子桶后, 吞吐随分片数的变化.
+ * <p>
+ * 依次以前 1, 3, 6 个节点组成 {@link ShardedRedisExecutor}, 全局限流器拆成与分片数相同的子桶 ({@link StripedRateLimiter#gcra}),
+ * 多线程持续 tryAcquire (速率足够大, 总是放行), 统计每秒调用数, 以及各节点 evalsha 调用数 (INFO commandstats) 的分布.
+ * <p>
+ * 用法: <code>ShardScalingBenchmark host:port,host:port,... [threads] [seconds]</code>.
+ * 各节点应在不同机器/CPU 上, 同一台机器上的多个 redis 争用 CPU, 体现不出扩展.
+ */
+public class ShardScalingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] nodes = (args.length > 0 ? args[0] : "ws-docker:7001,ws-docker:7002,ws-docker:7003,ws-docker:7004,ws-docker:7005,ws-docker:7006").split(",");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 48;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<JedisPool> pools = new ArrayList<>();
+        for (String node : nodes) {
+            HostAndPort hostAndPort = HostAndPort.parseString(node);
+            GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+            config.setMaxTotal(threads);
+            config.setMaxIdle(threads);
+            pools.add(new JedisPool(config, hostAndPort.getHost(), hostAndPort.getPort()));
+        }
+        try {
+            for (int n : new int[]{1, 3, 6}) {
+                if (n > pools.size()) {
+                    break;
+                }
+                List<RedisExecutor> shards = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    shards.add(new JedisRedisExecutor(pools.get(i)));
+                }
+                StripedRateLimiter rateLimiter = StripedRateLimiter.gcra(ShardedRedisExecutor.of(shards), "SHARD_SCALING", 1e9, n);
+                // 预热
+                run(rateLimiter, threads, 2);
+                long[] calls0 = evalshaCalls(pools, n);
+                double opsPerSecond = run(rateLimiter, threads, seconds);
+                long[] calls1 = evalshaCalls(pools, n);
+                StringBuilder perNode = new StringBuilder();
+                for (int i = 0; i < n; i++) {
+                    perNode.append(String.format(" %.0f", 1.0 * (calls1[i] - calls0[i]) / seconds));
+                }
+                System.out.printf("shards=%d threads=%d  %.0f ops/s  per node:%s%n", n, threads, opsPerSecond, perNode);
+            }
+        } finally {
+            pools.forEach(JedisPool::close);
+        }
+    }
+
+    private static long[] evalshaCalls(List<JedisPool> pools, int n) {
+        long[] calls = new long[n];
+        for (int i = 0; i < n; i++) {
+            try (Jedis jedis = pools.get(i).getResource()) {
+                for (String line : jedis.info("commandstats").split("\r\n")) {
+                    if (line.startsWith("cmdstat_evalsha:calls=")) {
+                        calls[i] = Long.parseLong(line.substring("cmdstat_evalsha:calls=".length(), line.indexOf(',')));
+                    }
+                }
+            }
+        }
+        return calls;
+    }
+
+    private static double run(StripedRateLimiter rateLimiter, int threads, int seconds) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    rateLimiter.tryAcquire();
+                    ops.increment();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return 1.0 * ops.sum() / seconds;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.SlidingWindowCounterRateLimiter;
+import com.wtgroup.ratelimiter.core.SlidingWindowLogRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 固定窗口 / 滑动窗口计数 / 滑动窗口日志, 同一个 key 上 16 线程争用时 tryAcquire 的延迟分布.
+ * <p>
+ * 上限设为窗口内恰好被打满, 日志集合保持在 limit 条. redis 地址: -Dredis.host=ws-docker
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class SlidingWindowBenchmark {
+
+    @Param({"fixWindow", "slidingCounter", "slidingLog"})
+    public String algorithm;
+
+    @Param({"1000"})
+    public int limit;
+
+    private JedisPool jedisPool;
+    private BooleanSupplier tryAcquire;
+
+    @Setup
+    public void setup() {
+        String host = System.getProperty("redis.host", "ws-docker");
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(16);
+        jedisPool = new JedisPool(poolConfig, host);
+        RedisExecutor executor = new JedisRedisExecutor(jedisPool);
+        Duration window = Duration.ofSeconds(1);
+        switch (algorithm) {
+            case "fixWindow":
+                FixWindowRateLimiter fixWindow = new FixWindowRateLimiter(executor, "BENCH_FW", limit, window);
+                tryAcquire = fixWindow::tryAcquire;
+                break;
+            case "slidingCounter":
+                SlidingWindowCounterRateLimiter counter = new SlidingWindowCounterRateLimiter(executor, "BENCH_SWC", limit, window);
+                tryAcquire = counter::tryAcquire;
+                break;
+            default:
+                SlidingWindowLogRateLimiter log = new SlidingWindowLogRateLimiter(executor, "BENCH_SWL", limit, window);
+                tryAcquire = log::tryAcquire;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jedisPool.close();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return tryAcquire.getAsBoolean();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SlidingWindowBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.wtgroup.ratelimiter.benchmark;
+
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.util.VirtualThreads;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.JedisPool;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 平台线程与虚拟线程各 N 个 (默认 10000) 并发阻塞式 {@link SmoothBurstyRateLimiter#acquire()}, 经 jedis 连接池 (poolSize 个连接) 访问真实 redis.
+ * <p>
+ * 依次运行: platform; virtual (连接池直接借); virtual + borrowGate ({@link JedisRedisExecutor#setBorrowGate}).
+ * 速率设得足够大, 不被限流, 测的是借连接 + 往返的吞吐和延迟分布. 虚拟线程需在 JDK 21+ 上以 multi-release jar 运行 (java21 profile 构建), 否则跳过.
+ * <p>
+ * 用法: <code>java -Djdk.tracePinnedThreads=short -cp benchmarks.jar com.wtgroup.ratelimiter.benchmark.VirtualThreadBenchmark [threads] [seconds] [poolSize]</code>,
+ * 默认 10000 10 8; redis 地址同 {@link BenchmarkBackend}.
+ */
+public class VirtualThreadBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        System.out.printf("java %s, %d cpus, %d acquirers, %ds, pool %d%n",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), threads, seconds, poolSize);
+        run("platform", false, false, threads, seconds, poolSize);
+        if (!VirtualThreads.isSupported()) {
+            System.out.println("virtual threads not supported, skipped");
+            return;
+        }
+        run("virtual", true, false, threads, seconds, poolSize);
+        run("virtual+gate", true, true, threads, seconds, poolSize);
+    }
+
+    private static void run(String name, boolean virtual, boolean gate, int threads, int seconds, int poolSize) throws InterruptedException {
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(poolSize);
+        config.setMaxIdle(poolSize);
+        JedisPool jedisPool = new JedisPool(config, System.getProperty("redis.host", "ws-docker"), Integer.getInteger("redis.port", 6379));
+        JedisRedisExecutor executor = new JedisRedisExecutor(jedisPool);
+        if (gate) {
+            executor.setBorrowGate(poolSize);
+        }
+        SmoothBurstyRateLimiter limiter = new SmoothBurstyRateLimiter(executor, "BENCH_VT:" + UUID.randomUUID(), 10_000_000);
+
+        Histogram histogram = new Histogram();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] end = new long[1];
+        Runnable acquirer = () -> {
+            try {
+                start.await();
+                while (System.nanoTime() < end[0]) {
+                    long t0 = System.nanoTime();
+                    limiter.acquire();
+                    histogram.record(System.nanoTime() - t0);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        };
+
+        long spawn0 = System.nanoTime();
+        ExecutorService virtualExecutor = null;
+        if (virtual) {
+            virtualExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < threads; i++) {
+                virtualExecutor.execute(acquirer);
+            }
+        } else {
+            for (int i = 0; i < threads; i++) {
+                Thread thread = new Thread(acquirer);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        long spawnMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - spawn0);
+
+        long begin = System.nanoTime();
+        end[0] = begin + TimeUnit.SECONDS.toNanos(seconds);
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+
+        System.out.printf("%-13s spawn=%dms  ops=%d  throughput=%.0f ops/s  p50=%.2fms  p99=%.2fms  max=%.2fms  overrun=%dms%n",
+                name, spawnMs, histogram.count(), histogram.count() * 1e9 / elapsed,
+                histogram.percentile(0.50) / 1e6, histogram.percentile(0.99) / 1e6, histogram.max() / 1e6,
+                TimeUnit.NANOSECONDS.toMillis(elapsed) - TimeUnit.SECONDS.toMillis(seconds));
+        limiter.destroy();
+        jedisPool.close();
+    }
+
+    /**
+     * 无锁的对数直方图, 每个 2 的幂区间分 8 档, 误差约 12%
+     */
+    private static final class Histogram {
+        private static final int SUB = 8;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long v = Math.max(nanos, 1);
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = exp < 3 ? 0 : (int) ((v >>> (exp - 3)) & (SUB - 1));
+            buckets.incrementAndGet(exp * SUB + sub);
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        long count() {
+            long n = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                n += buckets.get(i);
+            }
+            return n;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * 所在档的上界
+         */
+        double percentile(double p) {
+            long target = (long) Math.ceil(count() * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    int exp = i / SUB;
+                    int sub = i % SUB;
+                    return exp < 3 ? (1L << (exp + 1)) : (1L << exp) + ((sub + 1L) << (exp - 3));
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.wtgroup.ratelimiter.actuator;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 查看/调整容器中的限流器
+ * <p>
+ * GET /actuator/ratelimiters 列出所有限流器及其 redis 实时状态;<br/>
+ * GET /actuator/ratelimiters/{name} 查看单个;<br/>
+ * POST /actuator/ratelimiters/{name} {"rate": 100} 调整速率, 平滑突发为每秒令牌数, 固定窗口为窗口上限 (整数).
+ * 调整写入 redis, 所有节点下次调用即生效.
+ * <p>
+ * name 为 bean 名称.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:10
+ */
+@Endpoint(id = "ratelimiters")
+public class RateLimiterEndpoint {
+
+    private final ListableBeanFactory beanFactory;
+
+    public RateLimiterEndpoint(ListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> rateLimiters() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        beanFactory.getBeansOfType(FixWindowRateLimiter.class).forEach((name, rl) -> res.put(name, describe(rl)));
+        beanFactory.getBeansOfType(SmoothBurstyRateLimiter.class).forEach((name, rl) -> res.put(name, describe(rl)));
+        return res;
+    }
+
+    @ReadOperation
+    public Map<String, Object> rateLimiter(@Selector String name) {
+        Object rl = find(name);
+        if (rl instanceof FixWindowRateLimiter) {
+            return describe((FixWindowRateLimiter) rl);
+        }
+        if (rl instanceof SmoothBurstyRateLimiter) {
+            return describe((SmoothBurstyRateLimiter) rl);
+        }
+        return null;
+    }
+
+    /**
+     * rate 须为正数, 固定窗口的上限还须为整数, 否则响应 400
+     */
+    @WriteOperation
+    public Map<String, Object> setRate(@Selector String name, double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new InvalidEndpointRequestException("rate must greater then 0: " + rate, "Invalid rate");
+        }
+        Object rl = find(name);
+        if (rl instanceof FixWindowRateLimiter) {
+            if (rate != Math.rint(rate) || rate > Integer.MAX_VALUE) {
+                throw new InvalidEndpointRequestException("limit of fix window must be an integer: " + rate, "Invalid limit");
+            }
+            FixWindowRateLimiter fixWindow = (FixWindowRateLimiter) rl;
+            fixWindow.setLimit((int) rate);
+            return describe(fixWindow);
+        }
+        if (rl instanceof SmoothBurstyRateLimiter) {
+            SmoothBurstyRateLimiter smoothBursty = (SmoothBurstyRateLimiter) rl;
+            smoothBursty.setRate(rate);
+            return describe(smoothBursty);
+        }
+        return null;
+    }
+
+    /**
+     * @return 不存在或不是限流器时返回 null, 端点响应 404
+     */
+    private Object find(String name) {
+        return beanFactory.containsBean(name) ? beanFactory.getBean(name) : null;
+    }
+
+    private Map<String, Object> describe(FixWindowRateLimiter rl) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("type", "fix_window");
+        res.put("keyPrefix", rl.getKeyPrefix());
+        res.put("state", rl.queryState());
+        return res;
+    }
+
+    private Map<String, Object> describe(SmoothBurstyRateLimiter rl) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("type", "smooth_bursty");
+        res.put("id", rl.getId());
+        res.put("permitsPerSecond", rl.getPermitsPerSecond());
+        res.put("state", rl.queryState());
+        return res;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.wtgroup.ratelimiter.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明式限流
+ * <p>
+ * 标注在 spring bean 的方法上, 由自动配置的切面 (默认) 或 mvc 拦截器 (<code>spring.ratelimiter.annotation.mode=interceptor</code>,
+ * 只对 controller 方法生效) 在调用前获取令牌. 获取失败时调用 {@link #fallback()}, 没有则抛 {@link RateLimitedException} (http 429).
+ * <p>
+ * 例:
+ * <pre>
+ * &#64;RateLimit(rate = 10, key = "#userId")
+ * public Order query(String userId) { ... }
+ * </pre>
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:00
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 限流器 id (redis key) 前缀, 默认 <code>ratelimit:类名.方法名</code>
+     */
+    String name() default "";
+
+    Algorithm algorithm() default Algorithm.SMOOTH_BURSTY;
+
+    /**
+     * 平滑类: 每秒令牌数; 固定窗口: 每个窗口的上限
+     */
+    double rate();
+
+    /**
+     * 固定窗口长度, 毫秒
+     */
+    long windowMillis() default 1000;
+
+    /**
+     * 维度 key 的 SpEL, 每个取值一个限流器. 为空时整个方法共用一个.
+     * <p>
+     * 切面模式可引用参数: <code>#参数名</code> (需 -parameters 编译或带调试信息), <code>#p0</code> / <code>#a0</code>;
+     * 拦截器模式可引用 <code>#request</code> (HttpServletRequest).
+     */
+    String key() default "";
+
+    /**
+     * 等待令牌的最长时间, 毫秒. 0 不等待, 负数一直等到拿到为止
+     */
+    long timeoutMillis() default 0;
+
+    /**
+     * 被限流时调用的同类方法名, 参数列表与被标注方法相同. 只在切面模式下生效
+     */
+    String fallback() default "";
+
+    enum Algorithm {
+        /**
+         * {@link com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter}
+         */
+        SMOOTH_BURSTY,
+        /**
+         * {@link com.wtgroup.ratelimiter.core.GcraRateLimiter}
+         */
+        GCRA,
+        /**
+         * {@link com.wtgroup.ratelimiter.core.FixWindowRateLimiter}
+         */
+        FIX_WINDOW,
+        /**
+         * {@link com.wtgroup.ratelimiter.core.LocalSmoothBurstyRateLimiter}, 只限制本实例
+         */
+        LOCAL_SMOOTH_BURSTY,
+        /**
+         * {@link com.wtgroup.ratelimiter.core.LocalFixWindowRateLimiter}, 只限制本实例
+         */
+        LOCAL_FIX_WINDOW
+    }
+
+}
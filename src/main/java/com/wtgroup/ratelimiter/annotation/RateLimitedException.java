@@ -0,0 +1,32 @@
+package com.wtgroup.ratelimiter.annotation;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * {@link RateLimit} 标注的方法被限流, 且没有 fallback.
+ * <p>
+ * 在 spring mvc 中默认响应 429, 可用 <code>@ExceptionHandler</code> 自定义.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:00
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class RateLimitedException extends RuntimeException {
+
+    private final String limiter;
+
+    public RateLimitedException(String limiter) {
+        super("Rate limited: " + limiter);
+        this.limiter = limiter;
+    }
+
+    /**
+     * 被限流的限流器 id
+     */
+    public String getLimiter() {
+        return limiter;
+    }
+
+}
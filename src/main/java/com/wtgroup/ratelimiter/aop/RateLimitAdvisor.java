@@ -0,0 +1,44 @@
+package com.wtgroup.ratelimiter.aop;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AbstractPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配 {@link com.wtgroup.ratelimiter.annotation.RateLimit} 方法的 advisor, 同 spring 的 <code>@Cacheable</code> 实现方式,
+ * 由容器中的 auto proxy creator (spring boot 的 AopAutoConfiguration) 织入, 不依赖 aspectj.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:20
+ */
+public class RateLimitAdvisor extends AbstractPointcutAdvisor {
+
+    private final RateLimitOperationSource operationSource;
+    private final RateLimitMethodInterceptor interceptor;
+    private final Pointcut pointcut = new StaticMethodMatcherPointcut() {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return operationSource.hasRateLimit(method, targetClass);
+        }
+    };
+
+    public RateLimitAdvisor(RateLimitOperationSource operationSource) {
+        this.operationSource = operationSource;
+        this.interceptor = new RateLimitMethodInterceptor(operationSource);
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+
+}
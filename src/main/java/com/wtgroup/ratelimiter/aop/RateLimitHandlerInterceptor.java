@@ -0,0 +1,45 @@
+package com.wtgroup.ratelimiter.aop;
+
+import com.wtgroup.ratelimiter.annotation.RateLimitedException;
+import org.springframework.util.Assert;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * mvc 拦截器方式处理 controller 方法上的 {@link com.wtgroup.ratelimiter.annotation.RateLimit}, 不创建代理.
+ * <p>
+ * 在参数解析之前执行, key 表达式只能引用 <code>#request</code>; 被限流时抛 {@link RateLimitedException} (默认 429), 不支持 fallback.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:25
+ */
+public class RateLimitHandlerInterceptor implements HandlerInterceptor {
+
+    private final RateLimitOperationSource operationSource;
+
+    public RateLimitHandlerInterceptor(RateLimitOperationSource operationSource) {
+        Assert.notNull(operationSource, "`operationSource` is null");
+        this.operationSource = operationSource;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        RateLimitOperation operation = operationSource.getOperation(handlerMethod.getMethod(), handlerMethod.getBeanType());
+        if (operation == null) {
+            return true;
+        }
+        if (operation.acquire(operation.limiter("request", request))) {
+            return true;
+        }
+        throw new RateLimitedException(operation.getName());
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.wtgroup.ratelimiter.aop;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.Assert;
+
+/**
+ * {@link com.wtgroup.ratelimiter.annotation.RateLimit} 切面: 调用前获取令牌, 被限流时走 fallback 或抛
+ * {@link com.wtgroup.ratelimiter.annotation.RateLimitedException}.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:20
+ */
+public class RateLimitMethodInterceptor implements MethodInterceptor {
+
+    private final RateLimitOperationSource operationSource;
+
+    public RateLimitMethodInterceptor(RateLimitOperationSource operationSource) {
+        Assert.notNull(operationSource, "`operationSource` is null");
+        this.operationSource = operationSource;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target == null ? null : AopUtils.getTargetClass(target);
+        RateLimitOperation operation = operationSource.getOperation(invocation.getMethod(), targetClass);
+        if (operation == null) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArguments();
+        if (operation.acquire(operation.limiter(args))) {
+            return invocation.proceed();
+        }
+        return operation.fallback(target, args);
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.wtgroup.ratelimiter.aop;
+
+import com.wtgroup.ratelimiter.annotation.RateLimitedException;
+import com.wtgroup.ratelimiter.core.RateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiterRegistry;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+/**
+ * 一个 {@link com.wtgroup.ratelimiter.annotation.RateLimit} 方法解析后的结果, 由 {@link RateLimitOperationSource} 每个方法构建一次.
+ * <p>
+ * 调用时: 求值已编译的 key 表达式 (变量按下标取, 不反射) -> 本地缓存中取限流器 -> 获取令牌.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:10
+ */
+public final class RateLimitOperation {
+
+    private final String name;
+    /**
+     * 为空时整个方法共用 {@link #limiter}
+     */
+    private final Expression keyExpression;
+    private final RateLimiter limiter;
+    private final RateLimiterRegistry<RateLimiter> registry;
+    private final EvaluationContext sharedContext;
+    /**
+     * 参数变量名 (参数名, p0, a0 ...) 及其对应的参数下标
+     */
+    private final String[] argNames;
+    private final int[] argIndexes;
+    private final long timeoutMillis;
+    private final Duration timeout;
+    private final Method fallback;
+
+    RateLimitOperation(String name, Expression keyExpression, RateLimiter limiter, RateLimiterRegistry<RateLimiter> registry,
+                       EvaluationContext sharedContext, String[] argNames, int[] argIndexes, long timeoutMillis, Method fallback) {
+        this.name = name;
+        this.keyExpression = keyExpression;
+        this.limiter = limiter;
+        this.registry = registry;
+        this.sharedContext = sharedContext;
+        this.argNames = argNames;
+        this.argIndexes = argIndexes;
+        this.timeoutMillis = timeoutMillis;
+        this.timeout = Duration.ofMillis(Math.max(timeoutMillis, 0));
+        this.fallback = fallback;
+    }
+
+    /**
+     * 切面: key 表达式可引用方法参数
+     */
+    public RateLimiter limiter(Object[] args) {
+        if (keyExpression == null) {
+            return limiter;
+        }
+        return registry.get(evaluateKey(new VariablesEvaluationContext(sharedContext, argNames, argIndexes, args)));
+    }
+
+    /**
+     * 拦截器等: key 表达式只引用一个变量, 如 <code>#request</code>
+     */
+    public RateLimiter limiter(String variable, Object value) {
+        if (keyExpression == null) {
+            return limiter;
+        }
+        return registry.get(evaluateKey(new VariablesEvaluationContext(sharedContext, new String[]{variable}, new int[]{0}, new Object[]{value})));
+    }
+
+    private String evaluateKey(EvaluationContext context) {
+        Object key = keyExpression.getValue(context);
+        return key == null ? "null" : key.toString();
+    }
+
+    /**
+     * 按注解的 timeoutMillis 获取令牌
+     */
+    public boolean acquire(RateLimiter rateLimiter) {
+        if (timeoutMillis == 0) {
+            return rateLimiter.tryAcquire();
+        }
+        if (timeoutMillis < 0) {
+            rateLimiter.acquire();
+            return true;
+        }
+        return rateLimiter.tryAcquire(timeout);
+    }
+
+    /**
+     * 被限流: 有 fallback 时调用, 否则抛 {@link RateLimitedException}
+     */
+    public Object fallback(Object target, Object[] args) throws Throwable {
+        if (fallback == null) {
+            throw new RateLimitedException(name);
+        }
+        try {
+            return fallback.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
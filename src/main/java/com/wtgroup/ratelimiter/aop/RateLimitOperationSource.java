@@ -0,0 +1,201 @@
+package com.wtgroup.ratelimiter.aop;
+
+import com.wtgroup.ratelimiter.annotation.RateLimit;
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.GcraRateLimiter;
+import com.wtgroup.ratelimiter.core.LocalFixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.LocalSmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiterRegistry;
+import com.wtgroup.ratelimiter.core.ResilientRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 解析 {@link RateLimit} 并按 方法+目标类 缓存 {@link RateLimitOperation}.
+ * <p>
+ * 注解查找, 参数名发现, SpEL 解析 (MIXED 模式, 多次执行后编译为字节码), fallback 查找都只在首次调用时做一次,
+ * 之后每次调用只是一次 map 查找.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:15
+ */
+public class RateLimitOperationSource {
+
+    private static final RateLimitOperation NONE = new RateLimitOperation(null, null, null, null, null, null, null, 0, null);
+
+    private final RedisExecutor redisExecutor;
+    private final int maxKeys;
+    private final Duration expireAfterAccess;
+    private final SpelExpressionParser parser;
+    private final StandardEvaluationContext sharedContext = new StandardEvaluationContext();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<MethodClassKey, RateLimitOperation> cache = new ConcurrentHashMap<>(256);
+    /**
+     * 非空时, 依赖 redis 的限流器以 {@link ResilientRateLimiter} 包装
+     */
+    private ResilientRateLimiter.FailMode failMode;
+    private double localFraction = 1.0;
+
+    /**
+     * @param redisExecutor     可为 null, 此时只能使用 LOCAL_ 开头的算法
+     * @param maxKeys           每个方法本地最多缓存的维度 key (限流器) 个数
+     * @param expireAfterAccess 限流器多久未访问后从本地淘汰
+     */
+    public RateLimitOperationSource(RedisExecutor redisExecutor, int maxKeys, Duration expireAfterAccess) {
+        Assert.isTrue(maxKeys > 0, "`maxKeys` must greater then 0");
+        Assert.notNull(expireAfterAccess, "`expireAfterAccess` is null");
+        this.redisExecutor = redisExecutor;
+        this.maxKeys = maxKeys;
+        this.expireAfterAccess = expireAfterAccess;
+        this.parser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+    }
+
+    /**
+     * @return 方法没有 {@link RateLimit} 时 null
+     */
+    public RateLimitOperation getOperation(Method method, Class<?> targetClass) {
+        MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+        RateLimitOperation operation = cache.get(cacheKey);
+        if (operation == null) {
+            operation = cache.computeIfAbsent(cacheKey, k -> {
+                RateLimitOperation op = buildOperation(method, targetClass);
+                return op == null ? NONE : op;
+            });
+        }
+        return operation == NONE ? null : operation;
+    }
+
+    public boolean hasRateLimit(Method method, Class<?> targetClass) {
+        return findAnnotation(method, targetClass) != null;
+    }
+
+    private RateLimit findAnnotation(Method method, Class<?> targetClass) {
+        Method specificMethod = targetClass == null ? method : AopUtils.getMostSpecificMethod(method, targetClass);
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RateLimit.class);
+        if (rateLimit == null && specificMethod != method) {
+            rateLimit = AnnotatedElementUtils.findMergedAnnotation(method, RateLimit.class);
+        }
+        return rateLimit;
+    }
+
+    private RateLimitOperation buildOperation(Method method, Class<?> targetClass) {
+        RateLimit rateLimit = findAnnotation(method, targetClass);
+        if (rateLimit == null) {
+            return null;
+        }
+        Assert.isTrue(rateLimit.rate() > 0, "`rate` must greater then 0: " + method);
+        Class<?> declaringClass = targetClass == null ? method.getDeclaringClass() : targetClass;
+        String name = StringUtils.hasText(rateLimit.name()) ? rateLimit.name()
+                : "ratelimit:" + declaringClass.getSimpleName() + "." + method.getName();
+        Function<String, RateLimiter> factory = limiterFactory(rateLimit, method);
+
+        Expression keyExpression = null;
+        RateLimiter limiter = null;
+        RateLimiterRegistry<RateLimiter> registry = null;
+        if (StringUtils.hasText(rateLimit.key())) {
+            keyExpression = parser.parseExpression(rateLimit.key());
+            registry = new RateLimiterRegistry<>(key -> factory.apply(name + ":" + key), maxKeys, expireAfterAccess);
+        } else {
+            limiter = factory.apply(name);
+        }
+
+        // 参数变量: 参数名, p0, a0
+        int count = method.getParameterCount();
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        int named = parameterNames == null ? 0 : parameterNames.length;
+        String[] argNames = new String[named + count * 2];
+        int[] argIndexes = new int[argNames.length];
+        for (int i = 0; i < named; i++) {
+            argNames[i] = parameterNames[i];
+            argIndexes[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            argNames[named + i * 2] = "p" + i;
+            argNames[named + i * 2 + 1] = "a" + i;
+            argIndexes[named + i * 2] = i;
+            argIndexes[named + i * 2 + 1] = i;
+        }
+
+        Method fallback = null;
+        if (StringUtils.hasText(rateLimit.fallback())) {
+            fallback = ReflectionUtils.findMethod(declaringClass, rateLimit.fallback(), method.getParameterTypes());
+            if (fallback == null) {
+                throw new IllegalStateException("Fallback method `" + rateLimit.fallback() + "` with same parameters not found for " + method);
+            }
+            ReflectionUtils.makeAccessible(fallback);
+        }
+
+        return new RateLimitOperation(name, keyExpression, limiter, registry, sharedContext, argNames, argIndexes,
+                rateLimit.timeoutMillis(), fallback);
+    }
+
+    /**
+     * 限流器 id -> 限流器, 创建时不访问 redis
+     */
+    private Function<String, RateLimiter> limiterFactory(RateLimit rateLimit, Method method) {
+        double rate = rateLimit.rate();
+        Duration window = Duration.ofMillis(rateLimit.windowMillis());
+        switch (rateLimit.algorithm()) {
+            case LOCAL_SMOOTH_BURSTY:
+                return id -> new LocalSmoothBurstyRateLimiter(rate);
+            case LOCAL_FIX_WINDOW:
+                return id -> new LocalFixWindowRateLimiter((int) rate, window);
+            default:
+        }
+        if (redisExecutor == null) {
+            throw new IllegalStateException("No RedisExecutor for " + rateLimit.algorithm() + " rate limit on " + method);
+        }
+        Function<String, RateLimiter> factory;
+        switch (rateLimit.algorithm()) {
+            case GCRA:
+                factory = id -> new GcraRateLimiter(redisExecutor, id, rate);
+                break;
+            case FIX_WINDOW:
+                factory = id -> new FixWindowRateLimiter(redisExecutor, id, (int) rate, window);
+                break;
+            case SMOOTH_BURSTY:
+            default:
+                factory = id -> new SmoothBurstyRateLimiter(redisExecutor, id, rate, true);
+        }
+        if (failMode == null) {
+            return factory;
+        }
+        ResilientRateLimiter.FailMode mode = this.failMode;
+        double fraction = this.localFraction;
+        return factory.andThen(limiter -> ResilientRateLimiter.of(limiter, mode, fraction));
+    }
+
+    /**
+     * redis 异常 (含熔断断开) 时的降级方式, 在首次解析方法前设置
+     *
+     * @param failMode      null 时不降级, 异常抛给调用方
+     * @param localFraction {@link ResilientRateLimiter.FailMode#LOCAL} 时本实例分到的速率比例
+     */
+    public void setResilience(ResilientRateLimiter.FailMode failMode, double localFraction) {
+        Assert.isTrue(localFraction > 0 && localFraction <= 1, "`localFraction` must in (0, 1]");
+        this.failMode = failMode;
+        this.localFraction = localFraction;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.wtgroup.ratelimiter.aop;
+
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+
+import java.util.List;
+
+/**
+ * 每次求值一个, 只持有变量; 属性访问器等委托给共享的上下文, 其反射缓存跨调用复用.
+ * <p>
+ * 变量按预先算好的名字 -> 下标查找, 不用 map, 不反射取参数名.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:10
+ */
+class VariablesEvaluationContext implements EvaluationContext {
+
+    private final EvaluationContext shared;
+    private final String[] names;
+    private final int[] indexes;
+    private final Object[] values;
+
+    VariablesEvaluationContext(EvaluationContext shared, String[] names, int[] indexes, Object[] values) {
+        this.shared = shared;
+        this.names = names;
+        this.indexes = indexes;
+        this.values = values;
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                int index = indexes[i];
+                return index < values.length ? values[index] : null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+        throw new UnsupportedOperationException("Read-only rate limit key context");
+    }
+
+    @Override
+    public TypedValue getRootObject() {
+        return shared.getRootObject();
+    }
+
+    @Override
+    public List<PropertyAccessor> getPropertyAccessors() {
+        return shared.getPropertyAccessors();
+    }
+
+    @Override
+    public List<ConstructorResolver> getConstructorResolvers() {
+        return shared.getConstructorResolvers();
+    }
+
+    @Override
+    public List<MethodResolver> getMethodResolvers() {
+        return shared.getMethodResolvers();
+    }
+
+    @Override
+    public BeanResolver getBeanResolver() {
+        return shared.getBeanResolver();
+    }
+
+    @Override
+    public TypeLocator getTypeLocator() {
+        return shared.getTypeLocator();
+    }
+
+    @Override
+    public TypeConverter getTypeConverter() {
+        return shared.getTypeConverter();
+    }
+
+    @Override
+    public TypeComparator getTypeComparator() {
+        return shared.getTypeComparator();
+    }
+
+    @Override
+    public OperatorOverloader getOperatorOverloader() {
+        return shared.getOperatorOverloader();
+    }
+
+}
@@ -1,16 +1,67 @@
 package com.wtgroup.ratelimiter.config;
 
+import com.wtgroup.ratelimiter.actuator.RateLimiterEndpoint;
+import com.wtgroup.ratelimiter.aop.RateLimitAdvisor;
+import com.wtgroup.ratelimiter.aop.RateLimitHandlerInterceptor;
+import com.wtgroup.ratelimiter.aop.RateLimitOperationSource;
 import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.LocalFixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.LocalSmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.core.RateLimiter;
+import com.wtgroup.ratelimiter.core.ResilientRateLimiter;
 import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.executor.CircuitBreakerRedisExecutor;
+import com.wtgroup.ratelimiter.executor.JedisClusterRedisExecutor;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.LettuceRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.ShardedRedisExecutor;
+import com.wtgroup.ratelimiter.metrics.MicrometerRateLimiterMetrics;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Nisus Liu
@@ -20,46 +71,411 @@ import javax.annotation.Resource;
  */
 @Configuration
 @EnableConfigurationProperties({RedisProperties.class, RateLimiterProperties.class})
-// @Import(OnOffEndpoint.class)
+@Import({RateLimiterAutoConfiguration.JedisClusterExecutorConfiguration.class, RateLimiterAutoConfiguration.ShardedExecutorConfiguration.class,
+        RateLimiterAutoConfiguration.JedisExecutorConfiguration.class, RateLimiterAutoConfiguration.LettuceExecutorConfiguration.class,
+        RateLimiterAutoConfiguration.MetricsConfiguration.class, RateLimiterAutoConfiguration.EndpointConfiguration.class,
+        RateLimiterAutoConfiguration.AnnotationConfiguration.class, RateLimiterAutoConfiguration.ResilienceConfiguration.class})
 public class RateLimiterAutoConfiguration {
 
-    @Resource
-    private RedisProperties redisProperties;
-
     @Bean
-    @ConditionalOnMissingBean(JedisPool.class)
-    public JedisPool jedisPool() {
-        // 配置默认的 jedisPool
-        //this(new GenericObjectPoolConfig(), host, port, 2000, (String)null, 0, (String)null);
-        //JedisPool(GenericObjectPoolConfig poolConfig, String host, int port, int timeout, String password)
-        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.fix-window", name = "engine", havingValue = "redis", matchIfMissing = true)
+    public FixWindowRateLimiter fixWindowRateLimiter(RedisExecutor redisExecutor, ObjectProvider<RateLimiterMetrics> metrics,
+                                                     RateLimiterProperties properties) {
 
-        JedisPool jedisPool = new JedisPool(genericObjectPoolConfig,
-                redisProperties.getHost(),
-                redisProperties.getPort(),
-                Math.toIntExact(redisProperties.getTimeout().getSeconds()),
-                redisProperties.getPassword());
-        return jedisPool;
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(redisExecutor);
+        rateLimiter.setFair(properties.getFixWindow().isFair());
+        rateLimiter.setMaxQueueWindows(properties.getFixWindow().getMaxQueueWindows());
+        metrics.ifAvailable(rateLimiter::setMetrics);
+
+        return rateLimiter;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public FixWindowRateLimiter fixWindowRateLimiter(JedisPool jedisPool) {
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.smooth-bursty", name = "engine", havingValue = "redis", matchIfMissing = true)
+    public SmoothBurstyRateLimiter smoothBurstyRateLimiter(RedisExecutor redisExecutor, ObjectProvider<RateLimiterMetrics> metrics,
+                                                           RateLimiterProperties properties) {
 
-        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool);
+        // 开启降级时不在启动时访问 redis, redis 不可用不影响启动
+        SmoothBurstyRateLimiter rateLimiter = new SmoothBurstyRateLimiter(redisExecutor, null, 1000, properties.getResilience().isEnabled());
+        metrics.ifAvailable(rateLimiter::setMetrics);
 
         return rateLimiter;
     }
 
+
+    /**
+     * spring.ratelimiter.fix-window.engine=local 时: 进程内计数, 默认上限同 {@link FixWindowRateLimiter}
+     */
     @Bean
     @ConditionalOnMissingBean
-    public SmoothBurstyRateLimiter smoothBurstyRateLimiter(JedisPool jedisPool) {
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.fix-window", name = "engine", havingValue = "local")
+    public LocalFixWindowRateLimiter localFixWindowRateLimiter() {
+        return new LocalFixWindowRateLimiter(1000, Duration.ofSeconds(1));
+    }
 
-        SmoothBurstyRateLimiter rateLimiter = new SmoothBurstyRateLimiter(jedisPool, null, 1000);
+    /**
+     * spring.ratelimiter.smooth-bursty.engine=local 时: 进程内计数
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.smooth-bursty", name = "engine", havingValue = "local")
+    public LocalSmoothBurstyRateLimiter localSmoothBurstyRateLimiter() {
+        return new LocalSmoothBurstyRateLimiter(1000);
+    }
 
-        return rateLimiter;
+    /**
+     * 配置了 spring.redis.cluster.nodes 时: jedis cluster
+     */
+    @Configuration
+    @ConditionalOnClass(JedisCluster.class)
+    @Conditional(OnRedisClusterCondition.class)
+    @ConditionalOnProperty(prefix = "spring.ratelimiter", name = "client", havingValue = "jedis", matchIfMissing = true)
+    static class JedisClusterExecutorConfiguration {
+
+        @Resource
+        private RedisProperties redisProperties;
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean(JedisCluster.class)
+        public JedisCluster rateLimiterJedisCluster() {
+            Set<HostAndPort> nodes = new HashSet<>();
+            for (String node : redisProperties.getCluster().getNodes()) {
+                nodes.add(HostAndPort.parseString(node));
+            }
+            int timeout = timeoutMillis(redisProperties);
+            Integer maxRedirects = redisProperties.getCluster().getMaxRedirects();
+            return new JedisCluster(nodes, timeout, timeout, maxRedirects == null ? 5 : maxRedirects,
+                    redisProperties.getPassword(), new GenericObjectPoolConfig());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(RedisExecutor.class)
+        public RedisExecutor redisExecutor(JedisCluster rateLimiterJedisCluster) {
+            return new JedisClusterRedisExecutor(rateLimiterJedisCluster);
+        }
+    }
+
+    /**
+     * 配置了 spring.ratelimiter.shards 时: 客户端一致性哈希分片, 每个节点一个 jedis 连接池
+     */
+    @Configuration
+    @ConditionalOnClass(JedisPool.class)
+    @Conditional(OnShardsCondition.class)
+    @ConditionalOnProperty(prefix = "spring.ratelimiter", name = "client", havingValue = "jedis", matchIfMissing = true)
+    static class ShardedExecutorConfiguration {
+
+        @Resource
+        private RedisProperties redisProperties;
+        @Resource
+        private RateLimiterProperties rateLimiterProperties;
+
+        private final List<JedisPool> pools = new ArrayList<>();
+
+        @Bean
+        @ConditionalOnMissingBean(RedisExecutor.class)
+        public RedisExecutor redisExecutor(ObjectProvider<RateLimiterMetrics> metrics) {
+            Map<String, RedisExecutor> shards = new LinkedHashMap<>();
+            for (String shard : rateLimiterProperties.getShards()) {
+                HostAndPort hostAndPort = HostAndPort.parseString(shard);
+                JedisPool jedisPool = new JedisPool(new GenericObjectPoolConfig(), hostAndPort.getHost(), hostAndPort.getPort(),
+                        timeoutMillis(redisProperties), redisProperties.getPassword());
+                pools.add(jedisPool);
+                JedisRedisExecutor executor = new JedisRedisExecutor(jedisPool);
+                metrics.ifAvailable(executor::setMetrics);
+                borrowGate(executor, rateLimiterProperties);
+                // 以地址命名, 与配置顺序无关
+                shards.put(shard, executor);
+            }
+            return new ShardedRedisExecutor(shards);
+        }
+
+        @PreDestroy
+        public void close() {
+            pools.forEach(JedisPool::close);
+        }
+    }
+
+    private static void borrowGate(JedisRedisExecutor executor, RateLimiterProperties properties) {
+        RateLimiterProperties.VirtualThreads virtualThreads = properties.getVirtualThreads();
+        if (!virtualThreads.isEnabled()) {
+            return;
+        }
+        Integer permits = virtualThreads.getBorrowPermits();
+        if (permits == null) {
+            permits = executor.getPoolMaxTotal();
+        }
+        if (permits > 0) {
+            executor.setBorrowGate(permits);
+        }
+    }
+
+    private static int timeoutMillis(RedisProperties redisProperties) {
+        return redisProperties.getTimeout() == null ? 2000 : Math.toIntExact(redisProperties.getTimeout().toMillis());
+    }
+
+    static class OnRedisClusterCondition extends SpringBootCondition {
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            boolean match = Binder.get(context.getEnvironment())
+                    .bind("spring.redis.cluster.nodes", Bindable.listOf(String.class))
+                    .map(nodes -> !nodes.isEmpty()).orElse(false);
+            return match ? ConditionOutcome.match("spring.redis.cluster.nodes configured")
+                    : ConditionOutcome.noMatch("spring.redis.cluster.nodes not configured");
+        }
+    }
+
+    static class OnShardsCondition extends SpringBootCondition {
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Binder binder = Binder.get(context.getEnvironment());
+            boolean cluster = binder.bind("spring.redis.cluster.nodes", Bindable.listOf(String.class))
+                    .map(nodes -> !nodes.isEmpty()).orElse(false);
+            boolean shards = binder.bind("spring.ratelimiter.shards", Bindable.listOf(String.class))
+                    .map(nodes -> !nodes.isEmpty()).orElse(false);
+            return shards && !cluster ? ConditionOutcome.match("spring.ratelimiter.shards configured")
+                    : ConditionOutcome.noMatch("spring.ratelimiter.shards not configured or redis cluster preferred");
+        }
+    }
+
+    static class OnStandaloneCondition extends SpringBootCondition {
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Binder binder = Binder.get(context.getEnvironment());
+            boolean cluster = binder.bind("spring.redis.cluster.nodes", Bindable.listOf(String.class))
+                    .map(nodes -> !nodes.isEmpty()).orElse(false);
+            boolean shards = binder.bind("spring.ratelimiter.shards", Bindable.listOf(String.class))
+                    .map(nodes -> !nodes.isEmpty()).orElse(false);
+            return !cluster && !shards ? ConditionOutcome.match("neither spring.redis.cluster.nodes nor spring.ratelimiter.shards configured")
+                    : ConditionOutcome.noMatch("redis cluster or shards configured");
+        }
+    }
+
+    /**
+     * 缺省: jedis 连接池; 配置了集群或分片时不创建单机连接池
+     */
+    @Configuration
+    @ConditionalOnClass(JedisPool.class)
+    @Conditional(OnStandaloneCondition.class)
+    @ConditionalOnProperty(prefix = "spring.ratelimiter", name = "client", havingValue = "jedis", matchIfMissing = true)
+    static class JedisExecutorConfiguration {
+
+        @Resource
+        private RedisProperties redisProperties;
+        @Resource
+        private RateLimiterProperties rateLimiterProperties;
+
+        @Bean
+        @ConditionalOnMissingBean(JedisPool.class)
+        public JedisPool jedisPool() {
+            // 配置默认的 jedisPool
+            //this(new GenericObjectPoolConfig(), host, port, 2000, (String)null, 0, (String)null);
+            //JedisPool(GenericObjectPoolConfig poolConfig, String host, int port, int timeout, String password)
+            GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+            JedisPool jedisPool = new JedisPool(genericObjectPoolConfig,
+                    redisProperties.getHost(),
+                    redisProperties.getPort(),
+                    timeoutMillis(redisProperties),
+                    redisProperties.getPassword());
+            return jedisPool;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(RedisExecutor.class)
+        public RedisExecutor redisExecutor(JedisPool jedisPool, ObjectProvider<RateLimiterMetrics> metrics) {
+            JedisRedisExecutor redisExecutor = new JedisRedisExecutor(jedisPool);
+            metrics.ifAvailable(redisExecutor::setMetrics);
+            borrowGate(redisExecutor, rateLimiterProperties);
+            redisExecutor.setHashTagKeys(rateLimiterProperties.isHashTagKeys());
+            return redisExecutor;
+        }
+    }
+
+    /**
+     * spring.ratelimiter.client=lettuce 时: lettuce 单连接多路复用
+     */
+    @Configuration
+    @ConditionalOnClass(RedisClient.class)
+    @ConditionalOnProperty(prefix = "spring.ratelimiter", name = "client", havingValue = "lettuce")
+    static class LettuceExecutorConfiguration {
+
+        @Resource
+        private RedisProperties redisProperties;
+        @Resource
+        private RateLimiterProperties rateLimiterProperties;
+
+        @Bean(destroyMethod = "shutdown")
+        @ConditionalOnMissingBean(RedisClient.class)
+        public RedisClient rateLimiterRedisClient() {
+            RedisURI.Builder builder = RedisURI.builder()
+                    .withHost(redisProperties.getHost())
+                    .withPort(redisProperties.getPort())
+                    .withDatabase(redisProperties.getDatabase());
+            if (StringUtils.hasText(redisProperties.getPassword())) {
+                builder.withPassword(redisProperties.getPassword());
+            }
+            if (redisProperties.getTimeout() != null) {
+                builder.withTimeout(redisProperties.getTimeout());
+            }
+            return RedisClient.create(builder.build());
+        }
+
+        @Bean(destroyMethod = "close")
+        public StatefulRedisConnection<String, String> rateLimiterRedisConnection(RedisClient rateLimiterRedisClient) {
+            return rateLimiterRedisClient.connect();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(RedisExecutor.class)
+        public RedisExecutor redisExecutor(StatefulRedisConnection<String, String> rateLimiterRedisConnection) {
+            LettuceRedisExecutor redisExecutor = new LettuceRedisExecutor(rateLimiterRedisConnection);
+            redisExecutor.setHashTagKeys(rateLimiterProperties.isHashTagKeys());
+            return redisExecutor;
+        }
+    }
+
+    /**
+     * 有 micrometer 且容器中有 MeterRegistry 时记录限流指标
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(RateLimiterMetrics.class)
+        public RateLimiterMetrics rateLimiterMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry == null ? RateLimiterMetrics.NOOP : new MicrometerRateLimiterMetrics(registry);
+        }
+    }
+
+    /**
+     * 有 actuator 时注册 ratelimiters 端点, 暴露与否照常由 management.endpoints 配置决定
+     */
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    static class EndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RateLimiterEndpoint rateLimiterEndpoint(ListableBeanFactory beanFactory) {
+            return new RateLimiterEndpoint(beanFactory);
+        }
     }
 
+    /**
+     * {@link com.wtgroup.ratelimiter.annotation.RateLimit} 解析与缓存
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.annotation", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class AnnotationConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RateLimitOperationSource rateLimitOperationSource(ObjectProvider<RedisExecutor> redisExecutor, RateLimiterProperties properties) {
+            RateLimiterProperties.Annotation annotation = properties.getAnnotation();
+            RateLimitOperationSource operationSource = new RateLimitOperationSource(redisExecutor.getIfAvailable(), annotation.getMaxKeys(), annotation.getExpireAfterAccess());
+            RateLimiterProperties.Resilience resilience = properties.getResilience();
+            if (resilience.isEnabled()) {
+                operationSource.setResilience(resilience.getFailMode(), resilience.getLocalFraction());
+            }
+            return operationSource;
+        }
+
+        /**
+         * 缺省: 以 advisor 代理 @RateLimit 方法, 由 spring boot 的 AopAutoConfiguration 织入 (同 @Cacheable)
+         */
+        @Configuration
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        @ConditionalOnProperty(prefix = "spring.ratelimiter.annotation", name = "mode", havingValue = "aop", matchIfMissing = true)
+        static class AdvisorConfiguration {
 
+            @Bean
+            @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+            @ConditionalOnMissingBean
+            public RateLimitAdvisor rateLimitAdvisor(RateLimitOperationSource rateLimitOperationSource) {
+                return new RateLimitAdvisor(rateLimitOperationSource);
+            }
+        }
+
+        /**
+         * spring.ratelimiter.annotation.mode=interceptor 时: 以 mvc 拦截器处理 controller 上的 @RateLimit
+         */
+        @Configuration
+        @ConditionalOnClass(WebMvcConfigurer.class)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnProperty(prefix = "spring.ratelimiter.annotation", name = "mode", havingValue = "interceptor")
+        static class InterceptorConfiguration implements WebMvcConfigurer {
+
+            @Resource
+            private RateLimitOperationSource rateLimitOperationSource;
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RateLimitHandlerInterceptor(rateLimitOperationSource));
+            }
+        }
+    }
+
+    /**
+     * spring.ratelimiter.resilience.enabled=true 时: 以熔断器包装容器中的 RedisExecutor, &#64;RateLimit 限流器按 fail-mode 降级.
+     * 缺省的固定窗口 / 平滑突发限流器另以 resilientFixWindowRateLimiter / resilientSmoothBurstyRateLimiter 暴露按 fail-mode 降级的包装,
+     * 原 bean 类型不变. 手工创建的限流器用 {@link ResilientRateLimiter#of} 包装.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "spring.ratelimiter.resilience", name = "enabled", havingValue = "true")
+    static class ResilienceConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CircuitBreaker rateLimiterCircuitBreaker(RateLimiterProperties properties, ObjectProvider<RateLimiterMetrics> metrics) {
+            RateLimiterProperties.Resilience resilience = properties.getResilience();
+            CircuitBreaker breaker = new CircuitBreaker("redis", resilience.getFailureThreshold(),
+                    resilience.getLatencyBudget(), resilience.getOpenDuration());
+            metrics.ifAvailable(m -> m.circuitBreaker(breaker));
+            return breaker;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "resilientFixWindowRateLimiter")
+        @ConditionalOnProperty(prefix = "spring.ratelimiter.fix-window", name = "engine", havingValue = "redis", matchIfMissing = true)
+        public ResilientRateLimiter resilientFixWindowRateLimiter(FixWindowRateLimiter fixWindowRateLimiter, RateLimiterProperties properties,
+                                                                  ObjectProvider<RateLimiterMetrics> metrics) {
+            return resilient(fixWindowRateLimiter, properties, metrics);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "resilientSmoothBurstyRateLimiter")
+        @ConditionalOnProperty(prefix = "spring.ratelimiter.smooth-bursty", name = "engine", havingValue = "redis", matchIfMissing = true)
+        public ResilientRateLimiter resilientSmoothBurstyRateLimiter(SmoothBurstyRateLimiter smoothBurstyRateLimiter, RateLimiterProperties properties,
+                                                                     ObjectProvider<RateLimiterMetrics> metrics) {
+            return resilient(smoothBurstyRateLimiter, properties, metrics);
+        }
+
+        private static ResilientRateLimiter resilient(RateLimiter delegate, RateLimiterProperties properties, ObjectProvider<RateLimiterMetrics> metrics) {
+            RateLimiterProperties.Resilience resilience = properties.getResilience();
+            ResilientRateLimiter rateLimiter = ResilientRateLimiter.of(delegate, resilience.getFailMode(), resilience.getLocalFraction());
+            metrics.ifAvailable(rateLimiter::setMetrics);
+            return rateLimiter;
+        }
+
+        /**
+         * 各客户端配置创建的 RedisExecutor 都在此包装, 声明类型不变
+         */
+        @Bean
+        public static BeanPostProcessor rateLimiterCircuitBreakerPostProcessor(ObjectProvider<CircuitBreaker> breaker) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof RedisExecutor && !(bean instanceof CircuitBreakerRedisExecutor)) {
+                        return new CircuitBreakerRedisExecutor((RedisExecutor) bean, breaker.getObject());
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
 
 }
@@ -1,8 +1,14 @@
 package com.wtgroup.ratelimiter.config;
 
+import com.wtgroup.ratelimiter.core.ResilientRateLimiter;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author dafei
  * @version 0.1
@@ -12,8 +18,152 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "spring.ratelimiter")
 public class RateLimiterProperties {
 
+    /**
+     * 访问 redis 的客户端
+     */
+    private Client client = Client.JEDIS;
+    /**
+     * 客户端一致性哈希分片的各 redis 节点 (host:port), 密码与超时取 spring.redis. 为空时不分片.
+     * 配置了 spring.redis.cluster.nodes 时优先使用 redis cluster
+     */
+    private List<String> shards = new ArrayList<>();
+    /**
+     * 单机 (非 cluster / 分片) 时也使用带 hash tag 的 key, 便于日后迁移. 默认 false, 沿用此前的 key; cluster / 分片时总是带 hash tag
+     */
+    private boolean hashTagKeys = false;
+    /**
+     * 自动配置的固定窗口限流器
+     */
+    private FixWindow fixWindow = new FixWindow();
+    /**
+     * 自动配置的平滑突发限流器
+     */
+    private Limiter smoothBursty = new Limiter();
+    /**
+     * {@link com.wtgroup.ratelimiter.annotation.RateLimit} 声明式限流
+     */
+    private Annotation annotation = new Annotation();
+    /**
+     * redis 慢或不可用时的熔断与降级
+     */
+    private Resilience resilience = new Resilience();
+    /**
+     * 在虚拟线程上阻塞式调用限流器
+     */
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    @Data
+    public static class Limiter {
+        /**
+         * 限流引擎
+         */
+        private Engine engine = Engine.REDIS;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class FixWindow extends Limiter {
+        /**
+         * 公平排队: 拿不到的按到达顺序领取准入时点, 不在窗口边界集中重试, 见 FixWindowRateLimiter#setFair
+         */
+        private boolean fair = false;
+        /**
+         * 公平排队最多排到当前窗口之后第几个窗口, 见 FixWindowRateLimiter#setMaxQueueWindows
+         */
+        private int maxQueueWindows = 64;
+    }
+
+    @Data
+    public static class Annotation {
+        /**
+         * 是否处理 @RateLimit
+         */
+        private boolean enabled = true;
+        /**
+         * 处理方式
+         */
+        private Mode mode = Mode.AOP;
+        /**
+         * 每个方法本地最多缓存的维度 key (限流器) 个数
+         */
+        private int maxKeys = 10000;
+        /**
+         * 限流器多久未访问后从本地淘汰
+         */
+        private Duration expireAfterAccess = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Resilience {
+        /**
+         * 是否以熔断器包装 RedisExecutor
+         */
+        private boolean enabled = false;
+        /**
+         * 单次 redis 调用的延迟预算, 超过记为失败; 只用于判定断开, 单次调用的等待上限是 spring.redis.timeout
+         */
+        private Duration latencyBudget = Duration.ofMillis(200);
+        /**
+         * 连续失败多少次后断开
+         */
+        private int failureThreshold = 5;
+        /**
+         * 断开多久后探测恢复
+         */
+        private Duration openDuration = Duration.ofSeconds(5);
+        /**
+         * &#64;RateLimit 限流器在 redis 异常时的处理
+         */
+        private ResilientRateLimiter.FailMode failMode = ResilientRateLimiter.FailMode.LOCAL;
+        /**
+         * fail-mode=local 时本实例分到全局速率的比例, 一般取 1/实例数
+         */
+        private double localFraction = 1.0;
+    }
+
+    @Data
+    public static class VirtualThreads {
+        /**
+         * jedis 客户端借连接前先在信号量上排队, 避免大量虚拟线程在连接池内钉住载体线程, 见 JedisRedisExecutor#setBorrowGate
+         */
+        private boolean enabled = false;
+        /**
+         * 同时借出的连接数上限, 缺省取连接池 (包括自定义的 JedisPool) 的 maxTotal; 连接池不限数量时不排队
+         */
+        private Integer borrowPermits;
+    }
 
+    public enum Mode {
+        /**
+         * 代理任意 bean 的方法, key 可引用方法参数
+         */
+        AOP,
+        /**
+         * 只处理 controller 方法, 不创建代理, key 只能引用 #request
+         */
+        INTERCEPTOR
+    }
 
+    public enum Client {
+        /**
+         * jedis 连接池
+         */
+        JEDIS,
+        /**
+         * lettuce 单连接多路复用
+         */
+        LETTUCE
+    }
 
+    public enum Engine {
+        /**
+         * redis 中计数, 集群全局限流
+         */
+        REDIS,
+        /**
+         * 进程内计数, 只限制本实例
+         */
+        LOCAL
+    }
 
 }
@@ -11,5 +11,9 @@ public interface Consts {
     String storedPermits = "storedPermits";
     String maxPermits = "maxPermits";
     String nextFreeTicketMicros = "nextFreeTicketMicros";
+    /**
+     * setRate 改过的速率
+     */
+    String permitsPerSecond = "permitsPerSecond";
 
 }
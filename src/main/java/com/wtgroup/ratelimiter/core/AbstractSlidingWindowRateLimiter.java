@@ -0,0 +1,278 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 滑动窗口限流器公共部分
+ * <p>
+ * 脚本通过返回 0, 拒绝时返回建议等待的毫秒数, 阻塞获取时按此睡眠后重试, 不必等到下个窗口; 申请数超过上限返回 -1.<br/>
+ * 支持按权重一次计入 permits, 实际用量低于预估时 {@link #refund(int, long) 退还} 差额.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:10
+ */
+public abstract class AbstractSlidingWindowRateLimiter implements RateLimiter {
+
+    protected final RedisExecutor redisExecutor;
+
+    /**
+     * 全局限制数, 在 acquire 没有指定 limit 时生效.
+     * 默认 1000/S
+     */
+    private int globalLimit = 1000;
+    /**
+     * 类似 globalLimit , 默认 1S
+     */
+    private Duration globalWindow = Duration.ofSeconds(1);
+    /**
+     * 计数依据的 redis key 前缀 (不用含分隔符)
+     */
+    protected final String keyPrefix;
+
+    protected AbstractSlidingWindowRateLimiter(RedisExecutor redisExecutor, String keyPrefix, String defaultKeyPrefix) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        this.redisExecutor = redisExecutor;
+        this.keyPrefix = keyPrefix != null ? keyPrefix : defaultKeyPrefix;
+    }
+
+    protected AbstractSlidingWindowRateLimiter(RedisExecutor redisExecutor, String keyPrefix, String defaultKeyPrefix, int globalLimit, Duration globalWindow) {
+        this(redisExecutor, keyPrefix, defaultKeyPrefix);
+        this.globalLimit = globalLimit;
+        this.globalWindow = globalWindow;
+    }
+
+    @Override
+    public double acquire() {
+        return this.acquire(1, this.globalLimit, this.globalWindow);
+    }
+
+    /**
+     * 按权重获取, 一次脚本调用计入 permits
+     *
+     * @see #acquire(int, long, Duration)
+     */
+    public double acquire(int permits) {
+        return this.acquire(permits, this.globalLimit, this.globalWindow);
+    }
+
+    public double acquire(long limit, Duration window) {
+        return this.acquire(1, limit, window);
+    }
+
+    /**
+     * 获取失败时, 按脚本建议的时长休眠后重试, 如此往复...
+     *
+     * @param permits 申请数
+     * @param limit   上限
+     * @param window  滑动窗口长度
+     * @return 拿到令牌等待时长, 秒, 不含和 redis 通信时间.
+     * @throws IllegalStateException permits 超过上限, 永远拿不到
+     */
+    public double acquire(int permits, long limit, Duration window) {
+        try {
+            return acquire(permits, limit, window, false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        return acquireInterruptibly(1, this.globalLimit, this.globalWindow);
+    }
+
+    /**
+     * 同 {@link #acquire(int, long, Duration)}, 等待期间响应中断
+     *
+     * @throws InterruptedException 被中断
+     */
+    public double acquireInterruptibly(int permits, long limit, Duration window) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return acquire(permits, limit, window, true);
+    }
+
+    private double acquire(int permits, long limit, Duration window, boolean interruptibly) throws InterruptedException {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long waitedMs = 0L;
+        long sleepTime;
+        while ((sleepTime = acquire0(permits, limit, window)) != 0) {
+            if (sleepTime < 0) {
+                throw neverAcquire(permits);
+            }
+            SleepUtil.sleep(sleepTime, TimeUnit.MILLISECONDS, interruptibly);
+            waitedMs += sleepTime;
+        }
+
+        return 1.0 * waitedMs / 1000;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return this.tryAcquire(1, Duration.ZERO);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return this.tryAcquire(permits, Duration.ZERO);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return this.tryAcquire(1, timeout);
+    }
+
+    /**
+     * 非阻塞 acquire
+     * <p>
+     * 成功直接返回 true; 失败, 最多等待 timeout 时长. 预计等待超过 timeout 或 permits 超过上限时提前返回 false.
+     */
+    public boolean tryAcquire(int permits, Duration timeout) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        long sleepTime;
+        while ((sleepTime = acquire0(permits, this.globalLimit, this.globalWindow)) != 0) {
+            if (sleepTime < 0 || System.currentTimeMillis() + sleepTime > end) {
+                return false;
+            }
+            SleepUtil.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
+        }
+
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return this.acquireAsync(1, this.globalLimit, this.globalWindow);
+    }
+
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return this.acquireAsync(permits, this.globalLimit, this.globalWindow);
+    }
+
+    public CompletableFuture<Double> acquireAsync(long limit, Duration window) {
+        return this.acquireAsync(1, limit, window);
+    }
+
+    /**
+     * 异步的 {@link #acquire(int, long, Duration)}
+     */
+    public CompletableFuture<Double> acquireAsync(int permits, long limit, Duration window) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        return DelayScheduler.call(() -> acquireAsync0(permits, limit, window, 0L));
+    }
+
+    private CompletableFuture<Double> acquireAsync0(int permits, long limit, Duration window, long waitedMs) {
+        return acquire0Async(permits, limit, window).thenCompose(sleepTime -> {
+            if (sleepTime == 0) {
+                return CompletableFuture.completedFuture(1.0 * waitedMs / 1000);
+            }
+            if (sleepTime < 0) {
+                CompletableFuture<Double> failed = new CompletableFuture<>();
+                failed.completeExceptionally(neverAcquire(permits));
+                return failed;
+            }
+            return DelayScheduler.delay(() -> acquireAsync0(permits, limit, window, waitedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync() {
+        return this.tryAcquireAsync(1, Duration.ZERO);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return this.tryAcquireAsync(1, timeout);
+    }
+
+    /**
+     * 异步的 {@link #tryAcquire(int, Duration)}
+     */
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        return DelayScheduler.call(() -> tryAcquireAsync0(permits, this.globalLimit, this.globalWindow, end));
+    }
+
+    private CompletableFuture<Boolean> tryAcquireAsync0(int permits, long limit, Duration window, long end) {
+        return acquire0Async(permits, limit, window).thenCompose(sleepTime -> {
+            if (sleepTime == 0) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (sleepTime < 0 || System.currentTimeMillis() + sleepTime > end) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return DelayScheduler.delay(() -> tryAcquireAsync0(permits, limit, window, end), sleepTime, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 退还多计的名额: 按预估的 permits 获取 (globalWindow), 实际用量更少时退还差额, 一次脚本调用.
+     * <p>
+     * 获取时计入的名额已滑出窗口则不必再退, 不访问 redis.
+     *
+     * @param permits          退还数
+     * @param acquiredAtMillis 获取成功 (acquire / tryAcquire 返回) 时的时间戳
+     * @return 实际退还数
+     */
+    public abstract long refund(int permits, long acquiredAtMillis);
+
+    /**
+     * @return 0 通过; -1 permits 超过上限; 否则建议等待的毫秒数
+     */
+    private long acquire0(int permits, long limit, Duration window) {
+        long windMs = window.toMillis();
+        long nowMs = System.currentTimeMillis();
+        Object eval = redisExecutor.eval(getScript(), keys(windMs, nowMs), args(permits, limit, windMs, nowMs));
+        return parseResult(eval);
+    }
+
+    private CompletableFuture<Long> acquire0Async(int permits, long limit, Duration window) {
+        long windMs = window.toMillis();
+        long nowMs = System.currentTimeMillis();
+        return redisExecutor.evalAsync(getScript(), keys(windMs, nowMs), args(permits, limit, windMs, nowMs))
+                .thenApply(this::parseResult);
+    }
+
+    private long parseResult(Object eval) {
+        if (eval == null) {
+            throw new RuntimeException("eval " + getScript().getClass().getSimpleName() + " return null, rate limit fail");
+        }
+
+        return (Long) eval;
+    }
+
+    private IllegalStateException neverAcquire(int permits) {
+        return new IllegalStateException(getClass().getSimpleName() + " " + keyPrefix + " limit less then " + permits + ", can never acquire");
+    }
+
+    protected abstract RedisScript getScript();
+
+    protected abstract List<String> keys(long windMs, long nowMs);
+
+    protected abstract List<String> args(int permits, long limit, long windMs, long nowMs);
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public int getGlobalLimit() {
+        return globalLimit;
+    }
+
+    public Duration getGlobalWindow() {
+        return globalWindow;
+    }
+
+}
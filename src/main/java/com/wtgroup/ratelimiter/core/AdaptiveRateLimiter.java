@@ -0,0 +1,312 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstyAdaptRateScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应速率的平滑突发限流器
+ * <p>
+ * 按下游的延迟和错误自动调整 {@link SmoothBurstyRateLimiter} 在 redis 中的共享速率 (AIMD):
+ * 调用方在每次下游调用结束后 {@link #release(Outcome, long) 反馈} 结果和耗时, 计入本地无锁的采样窗口;
+ * 每个窗口结束时判定一次, 错误率超过阈值或平均延迟超过基线的 latencyTolerance 倍则乘性减小, 否则窗口内有被限流的调用则加性增大,
+ * 一次脚本调用完成调整. 反馈本身不访问 redis.
+ * <pre>
+ * limiter.acquire();
+ * long start = System.nanoTime();
+ * try {
+ *     callDb();
+ *     limiter.release(Outcome.SUCCESS, System.nanoTime() - start);
+ * } catch (Exception e) {
+ *     limiter.release(Outcome.ERROR, System.nanoTime() - start);
+ * }
+ * </pre>
+ * <p>
+ * Note:<br/>
+ * 1> 基线是最近 30 ~ 60 个窗口中最低的窗口平均延迟, 近似下游无负载时的延迟; 按周期滚动, 以跟上下游本身的变化,
+ * 又不会在持续打满时被拉高.<br/>
+ * 2> 各节点各自判定, 由脚本在冷却时长 (一个窗口) 内只减一次 / 只加一次, 同一次过载不会被多个节点叠加减小.<br/>
+ * 3> 窗口内反馈数不足 minSamples 时不调整.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 11:40
+ */
+@Slf4j
+public class AdaptiveRateLimiter implements RateLimiter {
+
+    private static RedisScript adaptRateScript = new SmoothBurstyAdaptRateScript();
+
+    private final SmoothBurstyRateLimiter delegate;
+    private final double minRate;
+    private final double maxRate;
+    /**
+     * 加性增量, 默认 (maxRate - minRate) / 50
+     */
+    private double increaseStep;
+    /**
+     * 乘性减小系数, 默认 0.9
+     */
+    private double backoffRatio = 0.9;
+    private long windowNanos = Duration.ofSeconds(1).toNanos();
+    private final Controller controller = new Controller();
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(System.nanoTime()));
+    private volatile double currentRate;
+
+    /**
+     * @param delegate 被调整速率的限流器, 其 permitsPerSecond 作为初始速率
+     * @param minRate  速率下限
+     * @param maxRate  速率上限
+     */
+    public AdaptiveRateLimiter(SmoothBurstyRateLimiter delegate, double minRate, double maxRate) {
+        Assert.notNull(delegate, "`delegate` is null");
+        Assert.isTrue(minRate > 0 && minRate <= maxRate, "`minRate` must greater then 0 and not greater then `maxRate`");
+        this.delegate = delegate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increaseStep = Math.max((maxRate - minRate) / 50, 0.001);
+        this.currentRate = delegate.getPermitsPerSecond();
+    }
+
+    @Override
+    public double acquire() {
+        double waited = delegate.acquire();
+        if (waited > 0) {
+            throttled();
+        }
+        return waited;
+    }
+
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        double waited = delegate.acquireInterruptibly();
+        if (waited > 0) {
+            throttled();
+        }
+        return waited;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return throttledIfFalse(delegate.tryAcquire());
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return throttledIfFalse(delegate.tryAcquire(timeout));
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return delegate.acquireAsync().thenApply(waited -> {
+            if (waited > 0) {
+                throttled();
+            }
+            return waited;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return delegate.tryAcquireAsync(timeout).thenApply(this::throttledIfFalse);
+    }
+
+    /**
+     * 反馈一次下游调用的结果, 只计入本地窗口, 不访问 redis. 窗口结束时由共用定时器线程判定并调整速率.
+     *
+     * @param outcome      结果
+     * @param latencyNanos 下游调用耗时
+     */
+    public void release(Outcome outcome, long latencyNanos) {
+        Window w = current();
+        w.samples.increment();
+        w.latencyNanos.add(latencyNanos);
+        if (outcome == Outcome.ERROR) {
+            w.errors.increment();
+        }
+    }
+
+    private boolean throttledIfFalse(boolean acquired) {
+        if (!acquired) {
+            throttled();
+        }
+        return acquired;
+    }
+
+    private void throttled() {
+        current().throttled.increment();
+    }
+
+    /**
+     * 当前窗口; 已到期则由换窗口成功的线程提交判定
+     */
+    private Window current() {
+        Window w = window.get();
+        long now = System.nanoTime();
+        if (now - w.start >= windowNanos) {
+            Window next = new Window(now);
+            if (window.compareAndSet(w, next)) {
+                DelayScheduler.getExecutor().execute(() -> adapt(w));
+                return next;
+            }
+            return window.get();
+        }
+        return w;
+    }
+
+    private void adapt(Window w) {
+        int op;
+        synchronized (controller) {
+            op = controller.decide(w.samples.sum(), w.errors.sum(), w.latencyNanos.sum(), w.throttled.sum());
+        }
+        if (op == 0) {
+            return;
+        }
+        try {
+            Object res = delegate.getRedisExecutor().eval(adaptRateScript,
+                    Collections.singletonList(delegate.getId()),
+                    Arrays.asList(String.valueOf(op), String.valueOf(increaseStep), String.valueOf(backoffRatio),
+                            String.valueOf(minRate), String.valueOf(maxRate),
+                            String.valueOf(windowNanos / 1000), String.valueOf(delegate.getPermitsPerSecond())));
+            if (res == null) {
+                throw new RuntimeException("eval SmoothBurstyAdaptRateScript return null, adapt rate fail");
+            }
+            double rate = (Long) res / 1000.0;
+            if (rate != currentRate) {
+                this.currentRate = rate;
+                delegate.rateChanged(rate);
+            }
+        } catch (RuntimeException e) {
+            // 只影响调整, 不影响限流本身, 下个窗口再试
+            log.warn("AdaptiveRateLimiter {} adapt rate fail", delegate.getId(), e);
+        }
+    }
+
+    /**
+     * 采样窗口长度, 默认 1 秒, 同时是各节点间调整的冷却时长
+     */
+    public void setSampleWindow(Duration sampleWindow) {
+        Assert.isTrue(sampleWindow != null && sampleWindow.toMillis() > 0, "`sampleWindow` must greater then 1ms");
+        this.windowNanos = sampleWindow.toNanos();
+    }
+
+    /**
+     * 平均延迟超过基线的多少倍视为过载, 默认 2.0
+     */
+    public void setLatencyTolerance(double latencyTolerance) {
+        Assert.isTrue(latencyTolerance > 1, "`latencyTolerance` must greater then 1");
+        controller.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * 错误率超过多少视为过载, 默认 0.05
+     */
+    public void setErrorThreshold(double errorThreshold) {
+        Assert.isTrue(errorThreshold >= 0 && errorThreshold < 1, "`errorThreshold` must in [0, 1)");
+        controller.errorThreshold = errorThreshold;
+    }
+
+    /**
+     * 窗口内至少多少次反馈才判定, 默认 10
+     */
+    public void setMinSamples(int minSamples) {
+        Assert.isTrue(minSamples > 0, "`minSamples` must greater then 0");
+        controller.minSamples = minSamples;
+    }
+
+    public void setIncreaseStep(double increaseStep) {
+        Assert.isTrue(increaseStep > 0, "`increaseStep` must greater then 0");
+        this.increaseStep = increaseStep;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "`backoffRatio` must in (0, 1)");
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * 本节点最近一次调整后 (或初始) 的速率, 其他节点的调整在本节点下次调整时才同步
+     */
+    public double getRate() {
+        return currentRate;
+    }
+
+    public SmoothBurstyRateLimiter getDelegate() {
+        return delegate;
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        /**
+         * 下游报错或超时, 计入错误率
+         */
+        ERROR
+    }
+
+    /**
+     * 一个采样窗口, 各计数无锁累加
+     */
+    private static final class Window {
+        final long start;
+        final LongAdder samples = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder latencyNanos = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * 按一个窗口的统计判定调整方向, 不访问 redis
+     */
+    static final class Controller {
+        /**
+         * 基线取最近两个周期内的最低值, 每个周期的窗口数
+         */
+        static final int BASELINE_PERIOD = 30;
+
+        double latencyTolerance = 2.0;
+        double errorThreshold = 0.05;
+        int minSamples = 10;
+        /**
+         * 基线延迟, 即无负载时的延迟估计
+         */
+        double baselineNanos = Double.MAX_VALUE;
+        private double periodMin = Double.MAX_VALUE;
+        private double previousPeriodMin = Double.MAX_VALUE;
+        private int periodWindows;
+
+        /**
+         * @return -1 减小; 1 增大; 0 不变
+         */
+        int decide(long samples, long errors, long latencyNanos, long throttled) {
+            if (samples < minSamples) {
+                return 0;
+            }
+            double avg = 1.0 * latencyNanos / samples;
+            periodMin = Math.min(periodMin, avg);
+            baselineNanos = Math.min(previousPeriodMin, periodMin);
+            if (++periodWindows >= BASELINE_PERIOD) {
+                previousPeriodMin = periodMin;
+                periodMin = Double.MAX_VALUE;
+                periodWindows = 0;
+            }
+            if (errors > samples * errorThreshold || avg > baselineNanos * latencyTolerance) {
+                return -1;
+            }
+            return throttled > 0 ? 1 : 0;
+        }
+    }
+
+}
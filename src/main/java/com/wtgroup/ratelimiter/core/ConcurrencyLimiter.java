@@ -0,0 +1,430 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.script.ConcurrencyAcquireScript;
+import com.wtgroup.ratelimiter.script.ConcurrencyReleaseScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发数限流器 (分布式信号量)
+ * <p>
+ * 限制同时在途的请求数, 而不是请求速率. 每个在途请求持有一个租约, 记在有序集合中, score 为到期时间 (redis 时间).
+ * 领取与归还各一次脚本调用; 节点崩溃未归还的租约到期后由下次领取清掉, 名额自动收回.
+ * <pre>
+ * try (ConcurrencyLimiter.Lease lease = limiter.acquire()) {
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * Note:<br/>
+ * 1> 请求须在租期内结束, 超过租期的租约会被回收, 此时实际并发可能超过上限. 租期按最慢请求设置.<br/>
+ * 2> 满了时按 retryInterval 轮询重试, 不感知别处的归还.<br/>
+ * 3> 可选的 {@link #setLocalCache(int) 本地缓存}: 全局占用不到一半时一次多领几个, 归还时先留在本地, 下次不访问 redis.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 09:30
+ */
+public class ConcurrencyLimiter {
+
+    private static RedisScript acquireScript = new ConcurrencyAcquireScript();
+    private static RedisScript releaseScript = new ConcurrencyReleaseScript();
+
+    private final RedisExecutor redisExecutor;
+    /**
+     * 租约有序集合的 redis key
+     */
+    private final String key;
+    private final int maxConcurrency;
+    private final long leaseNanos;
+    private final String maxConcurrencyArg;
+    private final String leaseMicrosArg;
+    /**
+     * 占用低于一半时才多给, 供本地缓存
+     */
+    private final String extraBelowArg;
+    /**
+     * 本实例标识, 和自增序号一起作为租约标识前缀, 保证唯一
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong seq = new AtomicLong();
+    /**
+     * 满了时的重试间隔, 默认 10ms
+     */
+    private long retryIntervalMillis = 10;
+    /**
+     * 本地缓存的空闲租约数上限, 0 不缓存
+     */
+    private volatile int localCacheSize;
+    private final ConcurrentLinkedQueue<Lease> cached = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cachedCount = new AtomicInteger();
+    /**
+     * 指标记录, 缺省不记录
+     */
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
+
+    public ConcurrencyLimiter(JedisPool jedisPool, String key, int maxConcurrency, Duration leaseTime) {
+        this(new JedisRedisExecutor(jedisPool), key, maxConcurrency, leaseTime);
+    }
+
+    /**
+     * @param redisExecutor  操作 redis
+     * @param key            租约有序集合的 redis key
+     * @param maxConcurrency 并发上限
+     * @param leaseTime      租期, 大于最慢请求的耗时
+     */
+    public ConcurrencyLimiter(RedisExecutor redisExecutor, String key, int maxConcurrency, Duration leaseTime) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        Assert.hasText(key, "`key` is empty");
+        Assert.isTrue(maxConcurrency > 0, "`maxConcurrency` must greater then 0");
+        Assert.isTrue(leaseTime != null && leaseTime.toMillis() > 0, "`leaseTime` must greater then 1ms");
+        this.redisExecutor = redisExecutor;
+        this.key = key;
+        this.maxConcurrency = maxConcurrency;
+        this.leaseNanos = leaseTime.toNanos();
+        this.maxConcurrencyArg = String.valueOf(maxConcurrency);
+        this.leaseMicrosArg = String.valueOf(TimeUnit.NANOSECONDS.toMicros(leaseNanos));
+        this.extraBelowArg = String.valueOf(maxConcurrency / 2);
+    }
+
+    /**
+     * 阻塞式领取, 满了时按 retryInterval 重试
+     */
+    public Lease acquire() {
+        try {
+            return acquire(false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 同 {@link #acquire()}, 等待期间响应中断
+     *
+     * @throws InterruptedException 被中断, 未领到租约
+     */
+    public Lease acquireInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return acquire(true);
+    }
+
+    private Lease acquire(boolean interruptibly) throws InterruptedException {
+        long waitedMs = 0L;
+        Lease lease;
+        while ((lease = tryAcquire0()) == null) {
+            SleepUtil.sleep(retryIntervalMillis, TimeUnit.MILLISECONDS, interruptibly);
+            waitedMs += retryIntervalMillis;
+        }
+        recorder.permitted();
+        recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
+        return lease;
+    }
+
+    /**
+     * @return 租约, 满了返回 null
+     */
+    public Lease tryAcquire() {
+        return tryAcquire(Duration.ZERO);
+    }
+
+    /**
+     * 最多等待 timeout
+     *
+     * @return 租约, 超时返回 null
+     */
+    public Lease tryAcquire(Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        long waitedMs = 0L;
+        Lease lease;
+        while ((lease = tryAcquire0()) == null) {
+            if (System.currentTimeMillis() + retryIntervalMillis > end) {
+                recorder.rejected();
+                return null;
+            }
+            SleepUtil.sleepUninterruptibly(retryIntervalMillis, TimeUnit.MILLISECONDS);
+            waitedMs += retryIntervalMillis;
+        }
+        recorder.permitted();
+        recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
+        return lease;
+    }
+
+    /**
+     * 异步的 {@link #acquire()}, 满了时由共用定时器重试
+     */
+    public CompletableFuture<Lease> acquireAsync() {
+        return DelayScheduler.call(() -> acquireAsync0(Long.MAX_VALUE, 0L));
+    }
+
+    /**
+     * 异步的 {@link #tryAcquire(Duration)}, 超时完成为 null
+     */
+    public CompletableFuture<Lease> tryAcquireAsync(Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        return DelayScheduler.call(() -> acquireAsync0(end, 0L));
+    }
+
+    private CompletableFuture<Lease> acquireAsync0(long end, long waitedMs) {
+        return tryAcquire0Async().thenCompose(lease -> {
+            if (lease != null) {
+                recorder.permitted();
+                recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
+                return CompletableFuture.completedFuture(lease);
+            }
+            if (System.currentTimeMillis() + retryIntervalMillis > end) {
+                recorder.rejected();
+                return CompletableFuture.completedFuture(null);
+            }
+            return DelayScheduler.delay(() -> acquireAsync0(end, waitedMs + retryIntervalMillis), retryIntervalMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 归还租约, 与 {@link Lease#close()} 相同, 重复归还无效.
+     * <p>
+     * 开启本地缓存且租约还剩一半以上租期时先留在本地, 否则一次脚本调用从 redis 删掉.
+     *
+     * @return false: 重复归还, 或租约已到期被回收 (请求超过了租期)
+     */
+    public boolean release(Lease lease) {
+        Assert.isTrue(lease != null && lease.owner == this, "`lease` not acquired from this limiter");
+        if (!lease.released.compareAndSet(false, true)) {
+            return false;
+        }
+        if (reusable(lease) && offerCached(lease.member, lease.expireAt)) {
+            return true;
+        }
+        return releaseRemote(Collections.singletonList(lease.member)) > 0;
+    }
+
+    /**
+     * 归还本地缓存的空闲租约, 关闭本地缓存
+     */
+    public void close() {
+        this.localCacheSize = 0;
+        List<String> members = new ArrayList<>();
+        Lease lease;
+        while ((lease = cached.poll()) != null) {
+            cachedCount.decrementAndGet();
+            members.add(lease.member);
+        }
+        if (!members.isEmpty()) {
+            releaseRemote(members);
+        }
+    }
+
+    private Lease tryAcquire0() {
+        Lease lease = pollCached();
+        if (lease != null) {
+            return lease;
+        }
+        String prefix = nextPrefix();
+        long start = System.nanoTime();
+        Object res = redisExecutor.eval(acquireScript, Collections.singletonList(key), acquireArgs(prefix));
+        recorder.redis(System.nanoTime() - start);
+        return granted(res, prefix, start);
+    }
+
+    private CompletableFuture<Lease> tryAcquire0Async() {
+        Lease lease = pollCached();
+        if (lease != null) {
+            return CompletableFuture.completedFuture(lease);
+        }
+        String prefix = nextPrefix();
+        long start = System.nanoTime();
+        CompletableFuture<Object> future = redisExecutor.evalAsync(acquireScript, Collections.singletonList(key), acquireArgs(prefix));
+        if (recorder != LimiterRecorder.NOOP) {
+            future = future.whenComplete((res, ex) -> recorder.redis(System.nanoTime() - start));
+        }
+        return future.thenApply(res -> granted(res, prefix, start));
+    }
+
+    private String nextPrefix() {
+        return instanceId + ":" + seq.incrementAndGet();
+    }
+
+    /**
+     * 开启本地缓存时, 把缓存补满所需的数目一并申请
+     */
+    private List<String> acquireArgs(String prefix) {
+        int wanted = 1 + Math.max(0, localCacheSize - cachedCount.get());
+        return Arrays.asList(maxConcurrencyArg, leaseMicrosArg, String.valueOf(wanted), extraBelowArg, prefix);
+    }
+
+    /**
+     * 第 1 个租约返回给调用方, 多给的放入本地缓存. 到期时间从发出请求时算起, 不晚于 redis 中的到期时间.
+     */
+    private Lease granted(Object res, String prefix, long start) {
+        if (res == null) {
+            throw new RuntimeException("eval ConcurrencyAcquireScript return null, acquire fail");
+        }
+        long granted = (Long) res;
+        if (granted <= 0) {
+            return null;
+        }
+        long expireAt = start + leaseNanos;
+        List<String> overflow = null;
+        for (long i = 2; i <= granted; i++) {
+            if (!offerCached(prefix + ":" + i, expireAt)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(prefix + ":" + i);
+            }
+        }
+        if (overflow != null) {
+            releaseRemote(overflow);
+        }
+        return new Lease(this, prefix + ":1", expireAt);
+    }
+
+    /**
+     * 取一个还剩一半以上租期的缓存租约; 不足一半的从 redis 删掉, 尽早让出名额.
+     */
+    private Lease pollCached() {
+        if (cachedCount.get() == 0) {
+            return null;
+        }
+        List<String> stale = null;
+        Lease lease;
+        while ((lease = cached.poll()) != null) {
+            cachedCount.decrementAndGet();
+            if (reusable(lease)) {
+                break;
+            }
+            if (stale == null) {
+                stale = new ArrayList<>();
+            }
+            stale.add(lease.member);
+        }
+        if (stale != null) {
+            releaseRemote(stale);
+        }
+        return lease == null ? null : new Lease(this, lease.member, lease.expireAt);
+    }
+
+    private boolean offerCached(String member, long expireAt) {
+        while (true) {
+            int c = cachedCount.get();
+            if (c >= localCacheSize) {
+                return false;
+            }
+            if (cachedCount.compareAndSet(c, c + 1)) {
+                cached.offer(new Lease(this, member, expireAt));
+                return true;
+            }
+        }
+    }
+
+    private boolean reusable(Lease lease) {
+        return lease.expireAt - System.nanoTime() >= leaseNanos / 2;
+    }
+
+    private long releaseRemote(List<String> members) {
+        long start = System.nanoTime();
+        Object res = redisExecutor.eval(releaseScript, Collections.singletonList(key), members);
+        recorder.redis(System.nanoTime() - start);
+        if (res == null) {
+            throw new RuntimeException("eval ConcurrencyReleaseScript return null, release fail");
+        }
+        return (Long) res;
+    }
+
+    /**
+     * 本地缓存, 缺省关闭.
+     * <p>
+     * 开启后, 全局占用不到上限一半时, 领取一次多领至多 size 个放在本地; 归还时先留在本地 (至多 size 个), 下次领取不访问 redis.
+     * 缓存的租约仍占全局名额, 全局占用到一半以上后不再多领. 只复用还剩一半以上租期的租约, 即此时请求须在半个租期内结束.
+     *
+     * @param size 本地最多缓存的空闲租约数, 0 关闭
+     */
+    public void setLocalCache(int size) {
+        Assert.isTrue(size >= 0, "`size` must not be negative");
+        this.localCacheSize = size;
+    }
+
+    /**
+     * 满了时的重试间隔, 默认 10ms
+     */
+    public void setRetryInterval(Duration retryInterval) {
+        Assert.isTrue(retryInterval != null && retryInterval.toMillis() > 0, "`retryInterval` must greater then 1ms");
+        this.retryIntervalMillis = retryInterval.toMillis();
+    }
+
+    /**
+     * 开启指标记录, 以 key 作为限流器 id
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("concurrency", this.key);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 租约, 关闭即归还
+     */
+    public static final class Lease implements AutoCloseable {
+        private final ConcurrencyLimiter owner;
+        private final String member;
+        /**
+         * 本地估算的到期时点 (nanoTime)
+         */
+        private final long expireAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(ConcurrencyLimiter owner, String member, long expireAt) {
+            this.owner = owner;
+            this.member = member;
+            this.expireAt = expireAt;
+        }
+
+        /**
+         * 已超过租期, 名额可能已被回收
+         */
+        public boolean isExpired() {
+            return System.nanoTime() - expireAt >= 0;
+        }
+
+        public String getId() {
+            return member;
+        }
+
+        @Override
+        public void close() {
+            owner.release(this);
+        }
+    }
+
+}
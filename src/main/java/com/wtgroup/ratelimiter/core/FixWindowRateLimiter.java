@@ -1,14 +1,30 @@
 package com.wtgroup.ratelimiter.core;
 
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.script.FixWindowQueueScript;
 import com.wtgroup.ratelimiter.script.FixWindowScript;
+import com.wtgroup.ratelimiter.script.FixWindowSetLimitScript;
 import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.WindowRefundScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.KeyUtil;
+import com.wtgroup.ratelimiter.util.ScriptUtil;
 import com.wtgroup.ratelimiter.util.SleepUtil;
 import org.springframework.util.Assert;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,15 +32,18 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Note:<br/>
  * 1> 时间窗内允许上限内突发. 窗口内没有做到更新颗粒度的匀速.<br/>
- * 2> 窗口临界处会存在 2倍 窗口上限的突发可能.
+ * 2> 窗口临界处会存在 2倍 窗口上限的突发可能.<br/>
+ * 3> 获取失败的调用缺省睡眠到下一个窗口重试, 所有节点的等待者同时在窗口边界醒来访问 redis, 抢不到的继续等, 可能一直抢不到.
+ * 开启 {@link #setFair(boolean) 公平排队} 后按到达顺序领取准入时点, 只访问一次 redis.<br/>
+ * 4> 支持按权重 (字节数 / 查询单元 / token 数等) 一次计入 permits, 实际用量低于预估时 {@link #refund(int, long) 退还} 差额.
  *
  * @author dafei
  * @version 0.1
  * @date 2020/12/2 16:08
  */
-public class FixWindowRateLimiter {
+public class FixWindowRateLimiter implements RateLimiter {
 
-    private final JedisPool jedisPool;
+    private final RedisExecutor redisExecutor;
 
     /**
      * 全局限制数, 在 acquire 没有指定 limit 时生效.
@@ -35,6 +54,7 @@ public class FixWindowRateLimiter {
      * 类似 globalLimit , 默认 1S
      */
     private Duration globalWindow = Duration.ofSeconds(1);
+    private long globalWindowMillis = 1000;
     /**
      * 计数窗口依据的 redis key 前缀 (不用含分隔符)
      */
@@ -43,39 +63,102 @@ public class FixWindowRateLimiter {
      * lua 脚本
      */
     private RedisScript script = new FixWindowScript();
+    private static RedisScript setLimitScript = new FixWindowSetLimitScript();
+    private static RedisScript queueScript = new FixWindowQueueScript();
+    private static RedisScript refundScript = new WindowRefundScript();
+    /**
+     * 排队脚本返回值: 队列已满, 见 {@link FixWindowQueueScript}
+     */
+    private static final long QUEUE_FULL = -2;
+    /**
+     * 窗口 key 与配置 key 的前缀; cluster / 分片时带 hash tag, 落在同一 slot, 见 {@link KeyUtil#keyTag}
+     */
+    private final String keyTag;
+    /**
+     * 配置 key, 其中的 limit 覆盖 globalLimit, 见 {@link #setLimit(int)}
+     */
+    private final String configKey;
+    private final byte[] configKeyBytes;
+    /**
+     * 公平排队的队尾 key, 见 {@link #setFair(boolean)}
+     */
+    private final String queueKey;
+    private volatile boolean fair;
+    /**
+     * 公平排队最多排到当前窗口之后第几个窗口, 见 {@link #setMaxQueueWindows(int)}
+     */
+    private volatile int maxQueueWindows = 64;
+    /**
+     * 最近一个窗口的脚本参数, 同一窗口内的调用复用, 见 {@link #acquire0(int, long, long)}
+     */
+    private volatile WindowParams windowParams;
+    /**
+     * 指标记录, 缺省不记录
+     */
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
 
     public FixWindowRateLimiter(JedisPool jedisPool) {
         this(jedisPool, null);
     }
 
+    public FixWindowRateLimiter(RedisExecutor redisExecutor) {
+        this(redisExecutor, null);
+    }
+
     /**
      * @param jedisPool 操作 redis
      * @param keyPrefix 计数窗口依据的 redis key 前缀
      */
     public FixWindowRateLimiter(JedisPool jedisPool, String keyPrefix) {
+        this(new JedisRedisExecutor(jedisPool), keyPrefix);
+    }
 
-        // if (jedisPool == null) {
-        //     this.jedisPool = new JedisPool();
-        // } else {
-        //     this.jedisPool = jedisPool;
-        // }
-
-        Assert.notNull(jedisPool, "`jedisPool` is null");
-        this.jedisPool = jedisPool;
+    /**
+     * @param redisExecutor 操作 redis
+     * @param keyPrefix     计数窗口依据的 redis key 前缀
+     */
+    public FixWindowRateLimiter(RedisExecutor redisExecutor, String keyPrefix) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        this.redisExecutor = redisExecutor;
 
         if (keyPrefix != null) {
             this.keyPrefix = keyPrefix;
         }
+        this.keyTag = KeyUtil.keyTag(redisExecutor, this.keyPrefix);
+        this.configKey = this.keyTag + ":config";
+        this.configKeyBytes = ScriptUtil.toBytes(this.configKey);
+        this.queueKey = this.keyTag + ":queue";
     }
 
     public FixWindowRateLimiter(JedisPool jedisPool, String keyPrefix, int globalLimit, Duration globalWindow) {
-        this(jedisPool, keyPrefix);
+        this(new JedisRedisExecutor(jedisPool), keyPrefix, globalLimit, globalWindow);
+    }
+
+    public FixWindowRateLimiter(RedisExecutor redisExecutor, String keyPrefix, int globalLimit, Duration globalWindow) {
+        this(redisExecutor, keyPrefix);
         this.globalLimit = globalLimit;
         this.globalWindow = globalWindow;
+        this.globalWindowMillis = globalWindow.toMillis();
     }
 
+    @Override
     public double acquire() {
-        return this.acquire(this.globalLimit, this.globalWindow);
+        return this.acquire(1, this.globalLimit, this.globalWindow);
+    }
+
+    /**
+     * 按权重获取, 如按字节数 / 查询单元 / token 数限流, 一次脚本调用计入 permits.
+     *
+     * @param permits 申请数
+     * @return 拿到令牌等待时长, 秒
+     * @see #acquire(int, long, Duration)
+     */
+    public double acquire(int permits) {
+        return this.acquire(permits, this.globalLimit, this.globalWindow);
+    }
+
+    public double acquire(long limit, Duration window) {
+        return this.acquire(1, limit, window);
     }
 
     /**
@@ -94,54 +177,323 @@ public class FixWindowRateLimiter {
      *                     now ~ next window
      * </pre>
      *
-     * @param limit  上限
-     * @param window 时间窗口长度
+     * @param permits 申请数
+     * @param limit   上限
+     * @param window  时间窗口长度
      * @return 拿到令牌等待时长, 秒, 不含和 redis 通信时间.
+     * @throws IllegalStateException permits 超过上限, 永远拿不到
      */
-    public double acquire(long limit, Duration window) {
+    public double acquire(int permits, long limit, Duration window) {
+        try {
+            return acquire(permits, limit, window, false);
+        } catch (InterruptedException e) {
+            // 不可中断时不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        return acquireInterruptibly(1, this.globalLimit, this.globalWindow);
+    }
+
+    /**
+     * 同 {@link #acquire(int, long, Duration)}, 等待期间响应中断
+     *
+     * @throws InterruptedException 被中断; 公平模式下已领取的准入时点不退还
+     */
+    public double acquireInterruptibly(int permits, long limit, Duration window) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return acquire(permits, limit, window, true);
+    }
+
+    private double acquire(int permits, long limit, Duration window, boolean interruptibly) throws InterruptedException {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long windMs = window.toMillis();
+        if (fair) {
+            long queuedMs = 0L;
+            long waitMs;
+            // 队列已满, 睡眠到下一个窗口再排
+            while ((waitMs = enqueue(permits, limit, windMs, -1)) == QUEUE_FULL) {
+                long sleepTime = calcSleepTime(window);
+                SleepUtil.sleep(sleepTime, TimeUnit.MILLISECONDS, interruptibly);
+                queuedMs += sleepTime;
+            }
+            if (waitMs < 0) {
+                throw neverAcquire(permits);
+            }
+            SleepUtil.sleep(waitMs, TimeUnit.MILLISECONDS, interruptibly);
+            queuedMs += waitMs;
+            recorder.permitted();
+            recorder.waited(TimeUnit.MILLISECONDS.toNanos(queuedMs));
+            return 1.0 * queuedMs / 1000;
+        }
+
         long waitedMs = 0L;
-        while (!acquire0(limit, window)) {
+        long res;
+        while ((res = acquire0(permits, limit, windMs)) != 1) {
+            if (res < 0) {
+                throw neverAcquire(permits);
+            }
             // 睡眠到下一个窗口
             long sleepTime = calcSleepTime(window);
-            SleepUtil.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
+            SleepUtil.sleep(sleepTime, TimeUnit.MILLISECONDS, interruptibly);
             waitedMs += sleepTime;
         }
 
+        recorder.permitted();
+        recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
         return 1.0 * waitedMs / 1000;
     }
 
+    @Override
     public boolean tryAcquire() {
-        return this.tryAcquire(Duration.ZERO);
+        return this.tryAcquire(1, Duration.ZERO);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return this.tryAcquire(permits, Duration.ZERO);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return this.tryAcquire(1, timeout);
     }
 
     /**
      * 非阻塞 acquire
      * <p>
-     * 成功直接返回 true; 失败, 最多等待 timeout 时长. 含 redis 通信时间.<br/>
+     * 成功直接返回 true; 失败, 最多等待 timeout 时长. 含 redis 通信时间. permits 超过上限时直接返回 false.<br/>
      * Note: 返回前最近一次的 redis 通信时长可能会引起一定误差.
+     *
+     * @param permits 申请数
+     * @param timeout 最多等待时长
      */
-    public boolean tryAcquire(Duration timeout) {
+    public boolean tryAcquire(int permits, Duration timeout) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
         long end = System.currentTimeMillis() + timeout.toMillis();
         int limit = this.globalLimit;
         Duration window = this.globalWindow;
-        while (!acquire0(limit, window)) {
-            if (System.currentTimeMillis() >= end) {
+        long windMs = this.globalWindowMillis;
+        if (fair && end > System.currentTimeMillis()) {
+            long waitMs = enqueue(permits, limit, windMs, end);
+            if (waitMs < 0) {
+                recorder.rejected();
                 return false;
             }
+            SleepUtil.sleepUninterruptibly(waitMs, TimeUnit.MILLISECONDS);
+            recorder.permitted();
+            recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitMs));
+            return true;
+        }
 
+        long waitedMs = 0L;
+        long res;
+        while ((res = acquire0(permits, limit, windMs)) != 1) {
             // 下个窗口开始时点在 end 前面, 则还有重试的希望, 否则, 肯定失败
-            if (this.nextWindowBegin(window) >= end) {
+            if (res < 0 || System.currentTimeMillis() >= end || this.nextWindowBegin(window) >= end) {
+                recorder.rejected();
                 return false;
             }
 
             // 睡眠到下个窗口
             long sleepTime = calcSleepTime(window);
             SleepUtil.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
+            waitedMs += sleepTime;
         }
 
+        recorder.permitted();
+        recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
         return true;
     }
 
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return this.acquireAsync(1, this.globalLimit, this.globalWindow);
+    }
+
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return this.acquireAsync(permits, this.globalLimit, this.globalWindow);
+    }
+
+    public CompletableFuture<Double> acquireAsync(long limit, Duration window) {
+        return this.acquireAsync(1, limit, window);
+    }
+
+    /**
+     * 异步的 {@link #acquire(int, long, Duration)}
+     * <p>
+     * 获取失败时, 不睡眠调用方线程, 由共用定时器在下一个窗口重试.
+     *
+     * @param permits 申请数
+     * @param limit   上限
+     * @param window  时间窗口长度
+     * @return 拿到令牌时完成, 值为等待时长, 秒; permits 超过上限时以 IllegalStateException 异常完成
+     */
+    public CompletableFuture<Double> acquireAsync(int permits, long limit, Duration window) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        if (fair) {
+            return DelayScheduler.call(() -> enqueueAsync0(permits, limit, window, 0L));
+        }
+        return DelayScheduler.call(() -> acquireAsync0(permits, limit, window, 0L));
+    }
+
+    private CompletableFuture<Double> enqueueAsync0(int permits, long limit, Duration window, long queuedMs) {
+        return enqueueAsync(permits, limit, window.toMillis(), -1).thenCompose(waitMs -> {
+            if (waitMs == QUEUE_FULL) {
+                long sleepTime = calcSleepTime(window);
+                return DelayScheduler.delay(() -> enqueueAsync0(permits, limit, window, queuedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+            }
+            if (waitMs < 0) {
+                CompletableFuture<Double> failed = new CompletableFuture<>();
+                failed.completeExceptionally(neverAcquire(permits));
+                return failed;
+            }
+            long totalMs = queuedMs + waitMs;
+            recorder.permitted();
+            recorder.waited(TimeUnit.MILLISECONDS.toNanos(totalMs));
+            return DelayScheduler.delay(1.0 * totalMs / 1000, waitMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private CompletableFuture<Double> acquireAsync0(int permits, long limit, Duration window, long waitedMs) {
+        return acquire0Async(permits, limit, window).thenCompose(res -> {
+            if (res == 1) {
+                recorder.permitted();
+                recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
+                return CompletableFuture.completedFuture(1.0 * waitedMs / 1000);
+            }
+            if (res < 0) {
+                CompletableFuture<Double> failed = new CompletableFuture<>();
+                failed.completeExceptionally(neverAcquire(permits));
+                return failed;
+            }
+            long sleepTime = calcSleepTime(window);
+            return DelayScheduler.delay(() -> acquireAsync0(permits, limit, window, waitedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync() {
+        return this.tryAcquireAsync(1, Duration.ZERO);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return this.tryAcquireAsync(1, timeout);
+    }
+
+    /**
+     * 异步的 {@link #tryAcquire(int, Duration)}
+     */
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        if (fair && end > System.currentTimeMillis()) {
+            return DelayScheduler.call(() -> enqueueAsync(permits, this.globalLimit, this.globalWindowMillis, end)).thenCompose(waitMs -> {
+                if (waitMs < 0) {
+                    recorder.rejected();
+                    return CompletableFuture.completedFuture(false);
+                }
+                recorder.permitted();
+                recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitMs));
+                return DelayScheduler.delay(true, waitMs, TimeUnit.MILLISECONDS);
+            });
+        }
+        return DelayScheduler.call(() -> tryAcquireAsync0(permits, this.globalLimit, this.globalWindow, end, 0L));
+    }
+
+    private CompletableFuture<Boolean> tryAcquireAsync0(int permits, long limit, Duration window, long end, long waitedMs) {
+        return acquire0Async(permits, limit, window).thenCompose(res -> {
+            if (res == 1) {
+                recorder.permitted();
+                recorder.waited(TimeUnit.MILLISECONDS.toNanos(waitedMs));
+                return CompletableFuture.completedFuture(true);
+            }
+            if (res < 0 || System.currentTimeMillis() >= end || this.nextWindowBegin(window) >= end) {
+                recorder.rejected();
+                return CompletableFuture.completedFuture(false);
+            }
+            long sleepTime = calcSleepTime(window);
+            return DelayScheduler.delay(() -> tryAcquireAsync0(permits, limit, window, end, waitedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 退还多计的名额: 按预估的 permits 获取, 实际用量更少时把差额退回获取时所在的窗口, 一次脚本调用.
+     * <p>
+     * 获取时所在的窗口已过去则不必再退 (不访问 redis), 也不会退到别的窗口; 计数不会减到 0 以下.
+     *
+     * @param permits          退还数
+     * @param acquiredAtMillis 获取成功 (acquire / tryAcquire 返回) 时的时间戳, 用于定位窗口
+     * @return 实际退还数
+     */
+    public long refund(int permits, long acquiredAtMillis) {
+        return this.refund(permits, this.globalWindow, acquiredAtMillis);
+    }
+
+    /**
+     * 与 {@link #acquire(int, long, Duration)} 配对, 见 {@link #refund(int, long)}
+     *
+     * @param window 获取时使用的时间窗口长度
+     */
+    public long refund(int permits, Duration window, long acquiredAtMillis) {
+        Assert.isTrue(permits > 0, "Refunded permits must be positive");
+        long windMs = window.toMillis();
+        long windowSeq = acquiredAtMillis / windMs;
+        if (windowSeq < System.currentTimeMillis() / windMs) {
+            return 0;
+        }
+        Object res = redisExecutor.eval(refundScript,
+                Collections.singletonList(this.keyTag + ":" + windowSeq),
+                Collections.singletonList(String.valueOf(permits)));
+        if (res == null) {
+            throw new RuntimeException("eval WindowRefundScript return null, refund fail");
+        }
+        return (Long) res;
+    }
+
+    /**
+     * 批量非阻塞 acquire, 一次往返判定多个相互独立的 key.
+     * <p>
+     * 各 key 计数窗口的 redis key 为 keyPrefix:key:窗口序号, 上限和窗口取 globalLimit / globalWindow.
+ * <p>
+ * cluster / 分片时各 key 的计数均为 <code>{keyPrefix}:key:窗口序号</code>, 全部落在 {keyPrefix} 所在的一个 slot (节点):
+ * 一批 key 不会分散到集群各节点, 按 key 数扩容无效; 需要分散时按 key 建多个 keyPrefix 不同的限流器.
+     *
+     * @param keys    业务 key
+     * @param permits 各 key 的申请数, null 时均为 1
+     * @return 第 i 位为 true 表示 keys[i] 获取成功
+     */
+    public BitSet tryAcquireBatch(String[] keys, int[] permits) {
+        Assert.isTrue(permits == null || permits.length == keys.length, "`permits` length must equals `keys` length");
+        long windMs = this.globalWindow.toMillis();
+        String windowSuffix = ":" + System.currentTimeMillis() / windMs;
+        String windowLimit = String.valueOf(this.globalLimit);
+        String ttl = String.valueOf(calcTtl(windMs / 1000));
+
+        String[][] params = new String[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            int p = permits == null ? 1 : permits[i];
+            Assert.isTrue(p > 0, "Requested permits must be positive");
+            params[i] = new String[]{this.keyTag + ":" + keys[i] + windowSuffix, configKey, windowLimit, ttl, String.valueOf(p)};
+        }
+
+        long start = System.nanoTime();
+        Object[] results = redisExecutor.evalBatch(script, 2, params);
+        recorder.redis(System.nanoTime() - start);
+        BitSet acquired = new BitSet(keys.length);
+        for (int i = 0; i < results.length; i++) {
+            if (parseResult(results[i]) == 1) {
+                acquired.set(i);
+                recorder.permitted();
+            } else {
+                recorder.rejected();
+            }
+        }
+        return acquired;
+    }
 
     /**
      * 下一个窗口时点减去当前时间戳即是需要等待的时长
@@ -164,28 +516,224 @@ public class FixWindowRateLimiter {
         return ((nowMs + windMs) / windMs) * windMs;
     }
 
-    private boolean acquire0(long limit, Duration window) {
-        Object eval = null;
-        try (Jedis jedis = jedisPool.getResource()) {
-            long windMs = window.toMillis();
-            long windowSeq = System.currentTimeMillis() / windMs;
-            String windowKey = this.keyPrefix + ":" + windowSeq;
-            String windowLimit = String.valueOf(limit);
+    /**
+     * 热路径: 同一窗口内复用预编码的参数, 以二进制执行, 返回值按 long 取, permits 为 1 时本身不分配对象.
+     * 窗口切换或 limit / window 与缓存的不同时才重新编码.
+     *
+     * @return 1 通过; 0 本窗口已不够; -1 permits 超过上限
+     */
+    private long acquire0(int permits, long limit, long windMs) {
+        long windowSeq = System.currentTimeMillis() / windMs;
+        WindowParams params = this.windowParams;
+        if (params == null || params.windowSeq != windowSeq || params.limit != limit || params.windowMillis != windMs) {
             // 加入ttl, 脚本中并不知晓时间窗口的大小
-            // ttl
-            long windSec = windMs / 1000;
-            String ttl = String.valueOf(calcTtl(windSec));
+            params = new WindowParams(windowSeq, limit, windMs, new byte[][]{
+                    ScriptUtil.toBytes(this.keyTag + ":" + windowSeq),
+                    configKeyBytes,
+                    ScriptUtil.toBytes(limit),
+                    ScriptUtil.toBytes(calcTtl(windMs / 1000))});
+            this.windowParams = params;
+        }
+        byte[][] evalParams = params.params;
+        if (permits != 1) {
+            evalParams = Arrays.copyOf(evalParams, evalParams.length + 1);
+            evalParams[evalParams.length - 1] = ScriptUtil.toBytes(permits);
+        }
 
-            eval = jedis.eval(script.getScriptAsString(),
-                    Arrays.asList(windowKey),
-                    Arrays.asList(windowLimit, ttl));
+        long start = System.nanoTime();
+        long res = redisExecutor.evalLong(script, 2, evalParams);
+        recorder.redis(System.nanoTime() - start);
+
+        return res;
+    }
+
+    /**
+     * 公平排队: 一次往返领取准入时点 (名额已计入准入窗口), 之后只在本地等待, 不再访问 redis.
+     *
+     * @param end 最多等待到的时点 (ms), 小于 0 不限
+     * @return 需要等待的毫秒数; -1 表示 end 前排不到或 permits 超过上限, 未计入
+     */
+    private long enqueue(int permits, long limit, long windMs, long end) {
+        long windowSeq = System.currentTimeMillis() / windMs;
+        long start = System.nanoTime();
+        Object res = redisExecutor.eval(queueScript, Arrays.asList(queueKey, configKey), queueArgs(permits, limit, windMs, windowSeq, end));
+        recorder.redis(System.nanoTime() - start);
+        return waitMillis(res, windMs, windowSeq);
+    }
+
+    private CompletableFuture<Long> enqueueAsync(int permits, long limit, long windMs, long end) {
+        long windowSeq = System.currentTimeMillis() / windMs;
+        long start = System.nanoTime();
+        CompletableFuture<Object> future = redisExecutor.evalAsync(queueScript, Arrays.asList(queueKey, configKey), queueArgs(permits, limit, windMs, windowSeq, end));
+        if (recorder != LimiterRecorder.NOOP) {
+            future = future.whenComplete((res, ex) -> recorder.redis(System.nanoTime() - start));
         }
+        return future.thenApply(res -> waitMillis(res, windMs, windowSeq));
+    }
 
+    private List<String> queueArgs(int permits, long limit, long windMs, long windowSeq, long end) {
+        List<String> args = new ArrayList<>(8);
+        args.add(String.valueOf(limit));
+        args.add(String.valueOf(windowSeq));
+        args.add(String.valueOf(windMs));
+        args.add(String.valueOf(calcTtl(windMs / 1000)));
+        args.add(this.keyTag + ":");
+        args.add(String.valueOf(permits));
+        args.add(String.valueOf(this.maxQueueWindows));
+        if (end >= 0) {
+            args.add(String.valueOf(end - windowSeq * windMs));
+        }
+        return args;
+    }
+
+    private static long waitMillis(Object eval, long windMs, long windowSeq) {
+        if (eval == null) {
+            throw new RuntimeException("eval FixWindowQueueScript return null, rate limit fail");
+        }
+        long offset = (Long) eval;
+        if (offset < 0) {
+            return offset;
+        }
+        return Math.max(0, windowSeq * windMs + offset - System.currentTimeMillis());
+    }
+
+    private CompletableFuture<Long> acquire0Async(int permits, long limit, Duration window) {
+        long windMs = window.toMillis();
+        long windowSeq = System.currentTimeMillis() / windMs;
+        String windowKey = this.keyTag + ":" + windowSeq;
+        String windowLimit = String.valueOf(limit);
+        String ttl = String.valueOf(calcTtl(windMs / 1000));
+
+        long start = System.nanoTime();
+        CompletableFuture<Object> future = redisExecutor.evalAsync(script,
+                Arrays.asList(windowKey, configKey),
+                Arrays.asList(windowLimit, ttl, String.valueOf(permits)));
+        if (recorder != LimiterRecorder.NOOP) {
+            // 回调要捕获 start, 只在真正记录时才包一层
+            future = future.whenComplete((res, ex) -> recorder.redis(System.nanoTime() - start));
+        }
+        return future.thenApply(this::parseResult);
+    }
+
+    /**
+     * @return 1 通过; 0 本窗口已不够; -1 permits 超过上限
+     */
+    private long parseResult(Object eval) {
         if (eval == null) {
             throw new RuntimeException("eval FixWindowScript return null, rate limit fail");
         }
 
-        return (Long) eval == 1;
+        return (Long) eval;
+    }
+
+    private IllegalStateException neverAcquire(int permits) {
+        return new IllegalStateException("FixWindowRateLimiter " + keyPrefix + " limit less then " + permits + ", can never acquire");
+    }
+
+    /**
+     * 调整上限, 写入 redis 配置 key, 所有节点下次调用即生效 (调用时指定的 limit 也被覆盖).
+     *
+     * @param limit 新上限
+     */
+    public void setLimit(int limit) {
+        Assert.isTrue(limit > 0, "`limit` must greater then 0");
+        Object res = redisExecutor.eval(setLimitScript,
+                Collections.singletonList(configKey),
+                Collections.singletonList(String.valueOf(limit)));
+        if (res == null) {
+            throw new RuntimeException("eval FixWindowSetLimitScript return null, set limit fail");
+        }
+        this.globalLimit = limit;
+    }
+
+    /**
+     * 查询 redis 中的实时状态: 生效的上限, 当前全局窗口的计数
+     *
+     * @return
+     */
+    public Map<String, Object> queryState() {
+        long windMs = this.globalWindow.toMillis();
+        String override = redisExecutor.hget(configKey, "limit");
+        String count = redisExecutor.get(this.keyTag + ":" + System.currentTimeMillis() / windMs);
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("limit", override == null ? this.globalLimit : Integer.parseInt(override));
+        state.put("windowMillis", windMs);
+        state.put("count", count == null ? 0 : Long.parseLong(count));
+        return state;
+    }
+
+    /**
+     * 公平排队模式, 缺省关闭.
+     * <p>
+     * 开启后 acquire / 带超时的 tryAcquire 拿不到时不再睡眠到窗口边界后重试: 一次脚本调用按到达顺序 (跨节点) 领取准入窗口,
+     * 名额当即计入该窗口, 之后在本地等待, 准入时点按在该窗口中的序位均匀错开, 窗口边界上没有集中的重试.
+     * 超时内排不到的不占名额. 不等待的 tryAcquire() 与非公平模式相同.
+     * 代价是排队者平均多等约半个窗口 (准入时点在窗口内错开, 而不是都在窗口开始).
+     *
+     * @param fair
+     */
+    public void setFair(boolean fair) {
+        this.fair = fair;
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * 公平排队最多排到当前窗口之后第几个窗口, 缺省 64.
+     * <p>
+     * 限制排队脚本一次最多读的窗口计数个数. 排满时带超时的 tryAcquire 直接失败, acquire 睡眠到下一个窗口再排.
+     *
+     * @param maxQueueWindows
+     */
+    public void setMaxQueueWindows(int maxQueueWindows) {
+        Assert.isTrue(maxQueueWindows > 0, "`maxQueueWindows` must greater then 0");
+        this.maxQueueWindows = maxQueueWindows;
+    }
+
+    public int getMaxQueueWindows() {
+        return maxQueueWindows;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public int getGlobalLimit() {
+        return globalLimit;
+    }
+
+    public Duration getGlobalWindow() {
+        return globalWindow;
+    }
+
+    /**
+     * 开启指标记录, 以 keyPrefix 作为限流器 id
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("fix_window", this.keyPrefix);
+    }
+
+    /**
+     * 某个窗口的脚本参数: 窗口 key, 配置 key, 上限, ttl. 不可变, 多线程共享
+     */
+    private static final class WindowParams {
+        final long windowSeq;
+        final long limit;
+        final long windowMillis;
+        final byte[][] params;
+
+        WindowParams(long windowSeq, long limit, long windowMillis, byte[][] params) {
+            this.windowSeq = windowSeq;
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            this.params = params;
+        }
     }
 
     /**
@@ -198,7 +746,7 @@ public class FixWindowRateLimiter {
      * @param windSec 秒数
      * @return
      */
-    private long calcTtl(long windSec) {
+    static long calcTtl(long windSec) {
         if (windSec < 1) {
             return 1;
         }
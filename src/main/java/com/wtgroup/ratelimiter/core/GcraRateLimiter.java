@@ -0,0 +1,261 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.script.GcraScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * GCRA (Generic Cell Rate Algorithm) 限流器
+ * <p>
+ * 与 {@link SmoothBurstyRateLimiter} 语义一致 (默认最多攒 1 秒的令牌, 先用存量, 不足部分透支由下一个请求等待),
+ * 但 redis 中每个 key 只存一个整数 (见 {@link GcraScript}), 速率等配置每次经 ARGV 传入, 一次 GET + SET.
+ * 适合按用户/IP 等维度的海量 key.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 不需要初始化, key 不存在即令牌是满的; 令牌攒满时 key 自动过期.<br/>
+ * 2> 时间精度为微秒, 速率不宜超过 1e6/s.<br/>
+ * 3> 同一 id 各节点需配置相同的速率.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 19:45
+ */
+public class GcraRateLimiter implements RateLimiter {
+
+    private static RedisScript gcraScript = new GcraScript();
+
+    private final RedisExecutor redisExecutor;
+    private final double permitsPerSecond;
+    private final Duration maxBurst;
+    private final String intervalMicrosArg;
+    private final String maxBurstMicrosArg;
+    /**
+     * 限流器 id , 即 redis 中 key
+     */
+    private String id = "GCRA_RATE_LIMITER";
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
+
+    public GcraRateLimiter(JedisPool jedisPool, String id, double permitsPerSecond) {
+        this(new JedisRedisExecutor(jedisPool), id, permitsPerSecond);
+    }
+
+    public GcraRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond) {
+        this(redisExecutor, id, permitsPerSecond, Duration.ofSeconds(1));
+    }
+
+    /**
+     * @param redisExecutor
+     * @param id
+     * @param permitsPerSecond
+     * @param maxBurst         攒满令牌需要的时长, 即最多存 permitsPerSecond * maxBurst 个. 同 {@link SmoothBurstyRateLimiter} 默认 1 秒
+     */
+    public GcraRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond, Duration maxBurst) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
+        Assert.isTrue(maxBurst != null && !maxBurst.isNegative(), "`maxBurst` must not be negative");
+        this.redisExecutor = redisExecutor;
+        if (!StringUtils.isEmpty(id)) {
+            this.id = id;
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxBurst = maxBurst;
+        this.intervalMicrosArg = String.valueOf(SECONDS.toMicros(1L) / permitsPerSecond);
+        this.maxBurstMicrosArg = String.valueOf(maxBurst.toNanos() / 1000);
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 阻塞式获取令牌
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     */
+    public double acquire(int permits) {
+        long microsToWait = reserve(permits, null);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
+
+        return 1.0 * microsToWait / SECONDS.toMicros(1L);
+    }
+
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        return acquireInterruptibly(1);
+    }
+
+    /**
+     * 阻塞式获取令牌, 等待期间响应中断
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     * @throws InterruptedException 被中断; 已预留的令牌不退还
+     */
+    public double acquireInterruptibly(int permits) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long microsToWait = reserve(permits, null);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        MICROSECONDS.sleep(microsToWait);
+
+        return 1.0 * microsToWait / SECONDS.toMicros(1L);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return tryAcquire(permits, Duration.ZERO);
+    }
+
+    /**
+     * 非阻塞式获取
+     * <p>
+     * 同 guava: 超时内等不到则不预留, 返回 false.
+     *
+     * @param permits
+     * @param timeout
+     * @return
+     */
+    public boolean tryAcquire(int permits, Duration timeout) {
+        long timeoutMicros = max(timeout.toNanos() / 1000, 0);
+        long microsToWait = reserve(permits, String.valueOf(timeoutMicros));
+        if (microsToWait < 0) {
+            recorder.rejected();
+            return false;
+        }
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
+
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return DelayScheduler.call(() -> reserveAsync(permits, null)
+                .thenCompose(microsToWait -> {
+                    recorder.permitted();
+                    recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                    return DelayScheduler.delay(1.0 * microsToWait / SECONDS.toMicros(1L), microsToWait, MICROSECONDS);
+                }));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return tryAcquireAsync(1, timeout);
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        return DelayScheduler.call(() -> {
+            long timeoutMicros = max(timeout.toNanos() / 1000, 0);
+            return reserveAsync(permits, String.valueOf(timeoutMicros)).thenCompose(microsToWait -> {
+                if (microsToWait < 0) {
+                    recorder.rejected();
+                    return CompletableFuture.completedFuture(false);
+                }
+                recorder.permitted();
+                recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                return DelayScheduler.delay(true, microsToWait, MICROSECONDS);
+            });
+        });
+    }
+
+    /**
+     * @param timeoutMicros null 时一定预留
+     * @return 需要睡眠的微秒数; 超时内等不到时 -1
+     */
+    private long reserve(int permits, String timeoutMicros) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+
+        long start = System.nanoTime();
+        Object res = redisExecutor.eval(gcraScript, Collections.singletonList(this.id), args(permits, timeoutMicros));
+        recorder.redis(System.nanoTime() - start);
+        if (res == null) {
+            throw new RuntimeException("eval GcraScript return null, rate limit fail");
+        }
+        return (Long) res;
+    }
+
+    private CompletableFuture<Long> reserveAsync(int permits, String timeoutMicros) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+
+        return redisExecutor.evalAsync(gcraScript, Collections.singletonList(this.id), args(permits, timeoutMicros))
+                .thenApply(res -> {
+                    if (res == null) {
+                        throw new RuntimeException("eval GcraScript return null, rate limit fail");
+                    }
+                    return (Long) res;
+                });
+    }
+
+    private List<String> args(int permits, String timeoutMicros) {
+        return timeoutMicros == null
+                ? Arrays.asList(String.valueOf(permits), intervalMicrosArg, maxBurstMicrosArg)
+                : Arrays.asList(String.valueOf(permits), intervalMicrosArg, maxBurstMicrosArg, timeoutMicros);
+    }
+
+    /**
+     * 销毁: 删除 redis key
+     */
+    public void destroy() {
+        redisExecutor.del(this.id);
+    }
+
+    /**
+     * 开启指标记录, 以 id 作为限流器 id
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("gcra", this.id);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public Duration getMaxBurst() {
+        return maxBurst;
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.MultiLevelScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 多级限流器 (如 用户 -> 租户 -> 全局)
+ * <p>
+ * 各级的检查与扣减在一次脚本调用中原子完成: 全部通过才扣减, 任何一级拒绝都不扣减, 不会漏令牌.
+ * 不论多少级, 都只有一次 redis 往返.
+ * <pre>
+ * HierarchicalRateLimiter limiter = new HierarchicalRateLimiter(redisExecutor)
+ *         .addSmoothBursty("user", "API_USER", 10)
+ *         .addFixWindow("tenant", "API_TENANT", 1000, Duration.ofSeconds(1))
+ *         .addSmoothBursty("global", "API_GLOBAL", 5000);
+ * int rejected = limiter.tryAcquire(1, userId, tenantId, null);
+ * </pre>
+ * 各级与同一 key 的单级限流器共用数据: 固定窗口级认 {@link FixWindowRateLimiter#setLimit} 写入的 <code>key:config</code> 覆盖,
+ * 平滑突发级认 {@link SmoothBurstyRateLimiter#setRate} 的速率.
+ * redis cluster / 分片部署下, 一次调用涉及的各级 key 须在同一 slot (带相同 hash tag, 如 <code>{api}:user</code>, <code>{api}:global</code>).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 18:20
+ */
+public class HierarchicalRateLimiter {
+
+    /**
+     * {@link #tryAcquire} 全部通过时的返回值
+     */
+    public static final int PERMITTED = -1;
+
+    private static final RedisScript script = new MultiLevelScript();
+
+    private final RedisExecutor redisExecutor;
+    private final List<Level> levels = new ArrayList<>();
+
+    public HierarchicalRateLimiter(RedisExecutor redisExecutor) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        this.redisExecutor = redisExecutor;
+    }
+
+    /**
+     * 追加一级固定窗口计数
+     *
+     * @param name      级别名
+     * @param keyPrefix redis key 前缀
+     */
+    public HierarchicalRateLimiter addFixWindow(String name, String keyPrefix, long limit, Duration window) {
+        Assert.isTrue(window.toMillis() > 0, "`window` must greater then 0");
+        levels.add(new Level(name, keyPrefix, true, limit, window.toMillis()));
+        return this;
+    }
+
+    /**
+     * 追加一级平滑突发
+     *
+     * @param name     级别名
+     * @param idPrefix redis key 前缀
+     */
+    public HierarchicalRateLimiter addSmoothBursty(String name, String idPrefix, double permitsPerSecond) {
+        Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
+        levels.add(new Level(name, idPrefix, false, permitsPerSecond, 0));
+        return this;
+    }
+
+    /**
+     * 各级同时获取 permits 个令牌, 不等待.
+     *
+     * @param permits       申请数
+     * @param dimensionKeys 各级的维度 key, 依添加顺序; 为 null 或缺省时该级直接用前缀作为 key (全局级)
+     * @return {@link #PERMITTED}; 否则第一个拒绝的级别下标 (从 0 开始, 依添加顺序)
+     */
+    public int tryAcquire(int permits, String... dimensionKeys) {
+        Object res = redisExecutor.eval(script, keys(dimensionKeys), args(permits));
+        return parseResult(res);
+    }
+
+    public CompletableFuture<Integer> tryAcquireAsync(int permits, String... dimensionKeys) {
+        return redisExecutor.evalAsync(script, keys(dimensionKeys), args(permits))
+                .thenApply(this::parseResult);
+    }
+
+    public String levelName(int level) {
+        return levels.get(level).name;
+    }
+
+    private List<String> keys(String[] dimensionKeys) {
+        Assert.isTrue(!levels.isEmpty(), "No level added");
+        Assert.isTrue(dimensionKeys.length <= levels.size(), "More dimension keys than levels");
+        long nowMs = System.currentTimeMillis();
+        int n = levels.size();
+        // 前 n 个为各级的 key, 后 n 个为各级的配置 key
+        String[] keys = new String[n * 2];
+        for (int i = 0; i < n; i++) {
+            Level level = levels.get(i);
+            String key = i < dimensionKeys.length && dimensionKeys[i] != null ? level.prefix + ":" + dimensionKeys[i] : level.prefix;
+            if (level.fixWindow) {
+                keys[i] = key + ":" + (nowMs / level.windowMs);
+                keys[n + i] = key + ":config";
+            } else {
+                keys[i] = key;
+                keys[n + i] = key;
+            }
+        }
+        return Arrays.asList(keys);
+    }
+
+    private List<String> args(int permits) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        List<String> args = new ArrayList<>(1 + levels.size() * 3);
+        args.add(String.valueOf(permits));
+        for (Level level : levels) {
+            args.add(level.kind);
+            args.add(level.rateArg);
+            args.add(level.ttlArg);
+        }
+        return args;
+    }
+
+    private int parseResult(Object res) {
+        if (res == null) {
+            throw new RuntimeException("eval MultiLevelScript return null, rate limit fail");
+        }
+        long level = (Long) res;
+        return level == 0 ? PERMITTED : (int) level - 1;
+    }
+
+    private static final class Level {
+        final String name;
+        final String prefix;
+        final boolean fixWindow;
+        final long windowMs;
+        final String kind;
+        final String rateArg;
+        final String ttlArg;
+
+        Level(String name, String prefix, boolean fixWindow, double rate, long windowMs) {
+            Assert.hasText(prefix, "`prefix` is empty");
+            this.name = name;
+            this.prefix = prefix;
+            this.fixWindow = fixWindow;
+            this.windowMs = windowMs;
+            this.kind = fixWindow ? "F" : "S";
+            this.rateArg = fixWindow ? String.valueOf((long) rate) : String.valueOf(rate);
+            this.ttlArg = String.valueOf(FixWindowRateLimiter.calcTtl(windowMs / 1000));
+        }
+    }
+
+}
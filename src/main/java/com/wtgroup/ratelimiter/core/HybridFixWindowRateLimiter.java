@@ -0,0 +1,318 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.FixWindowSyncScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.KeyUtil;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 两级固定窗口限流器: 本地快速判定 + 异步同步到 redis
+ * <p>
+ * 1> 拒绝: redis 报告窗口额度用完后, 本地记下 "拒绝到窗口结束", 之前的请求直接拒绝, 不访问 redis.
+ * 被限流的流量再大, redis 的请求量也不随之增长.<br/>
+ * 2> 放行: 本地先放行最多 <code>localBudget</code> 个 (且不超过上次同步得知的剩余额度), 由后台每 <code>syncInterval</code>
+ * 把计数批量写入 redis; 本地额度用完时同步一次并判定本次请求.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> redis key 与 {@link FixWindowRateLimiter} 相同 (keyPrefix:窗口序号, keyPrefix:config, cluster / 分片时 keyPrefix 带 hash tag), 可与其共用计数和 setLimit.<br/>
+ * 2> 以一定误差换吞吐: 单节点在一个窗口内最多多放约 2 * localBudget 个.<br/>
+ * 3> 节点宕机时尚未同步的计数丢失 (只会让其他节点多放, 不超过上述误差).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 18:30
+ */
+public class HybridFixWindowRateLimiter implements RateLimiter {
+
+    private static RedisScript syncScript = new FixWindowSyncScript();
+
+    private final RedisExecutor redisExecutor;
+    /**
+     * 窗口 key 与配置 key 的前缀, 同 {@link FixWindowRateLimiter}
+     */
+    private final String keyTag;
+    private final String configKey;
+    private final String limitArg;
+    private final String ttlArg;
+    private final long windowMillis;
+    /**
+     * 两次同步之间本地最多放行数
+     */
+    private final int localBudget;
+    private final long syncMillis;
+
+    private final AtomicReference<Window> window = new AtomicReference<>();
+    /**
+     * 在此时点 (ms) 前本地直接拒绝
+     */
+    private volatile long deniedUntil;
+
+    /**
+     * @param redisExecutor
+     * @param keyPrefix     计数窗口依据的 redis key 前缀
+     * @param limit         窗口上限
+     * @param window        窗口长度
+     * @param localBudget   两次同步之间本地最多放行数
+     * @param syncInterval  后台同步间隔
+     */
+    public HybridFixWindowRateLimiter(RedisExecutor redisExecutor, String keyPrefix, int limit, Duration window,
+                                      int localBudget, Duration syncInterval) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        Assert.hasText(keyPrefix, "`keyPrefix` is empty");
+        Assert.isTrue(limit > 0, "`limit` must greater then 0");
+        Assert.isTrue(window != null && window.toMillis() > 0, "`window` must greater then 1ms");
+        Assert.isTrue(localBudget > 0, "`localBudget` must greater then 0");
+        Assert.isTrue(syncInterval != null && syncInterval.toMillis() > 0, "`syncInterval` must greater then 1ms");
+        this.redisExecutor = redisExecutor;
+        this.keyTag = KeyUtil.keyTag(redisExecutor, keyPrefix);
+        this.configKey = keyTag + ":config";
+        this.limitArg = String.valueOf(limit);
+        this.windowMillis = window.toMillis();
+        this.ttlArg = String.valueOf(FixWindowRateLimiter.calcTtl(windowMillis / 1000));
+        this.localBudget = localBudget;
+        this.syncMillis = syncInterval.toMillis();
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 获取失败时, 休眠到下一个时间窗口重试, 如此往复.
+     *
+     * @return 拿到令牌等待时长, 秒
+     */
+    public double acquire(int permits) {
+        long waitedMs = 0L;
+        while (!tryAcquire(permits)) {
+            long sleepTime = calcSleepTime();
+            SleepUtil.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
+            waitedMs += sleepTime;
+        }
+        return 1.0 * waitedMs / 1000;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    public boolean tryAcquire(int permits) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long now = System.currentTimeMillis();
+        if (now < deniedUntil) {
+            return false;
+        }
+        Window w = currentWindow(now);
+        if (w.takeLocal(permits)) {
+            return true;
+        }
+        long delta = w.pending.getAndSet(0);
+        Object res;
+        try {
+            res = redisExecutor.eval(syncScript, w.keys, Arrays.asList(limitArg, ttlArg, String.valueOf(delta), String.valueOf(permits)));
+        } catch (RuntimeException e) {
+            w.pending.addAndGet(delta);
+            throw e;
+        }
+        return onSynced(w, res);
+    }
+
+    /**
+     * 失败时, 下一个窗口在超时前开始则睡到下个窗口重试, 否则返回 false.
+     */
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        while (!tryAcquire(1)) {
+            if (System.currentTimeMillis() >= end || nextWindowBegin() >= end) {
+                return false;
+            }
+            SleepUtil.sleepUninterruptibly(calcSleepTime(), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return DelayScheduler.call(() -> acquireAsync0(0L));
+    }
+
+    private CompletableFuture<Double> acquireAsync0(long waitedMs) {
+        return tryAcquireAsync0(1).thenCompose(acquired -> {
+            if (acquired) {
+                return CompletableFuture.completedFuture(1.0 * waitedMs / 1000);
+            }
+            long sleepTime = calcSleepTime();
+            return DelayScheduler.delay(() -> acquireAsync0(waitedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        return DelayScheduler.call(() -> tryAcquireAsync1(end));
+    }
+
+    private CompletableFuture<Boolean> tryAcquireAsync1(long end) {
+        return tryAcquireAsync0(1).thenCompose(acquired -> {
+            if (acquired) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (System.currentTimeMillis() >= end || nextWindowBegin() >= end) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return DelayScheduler.delay(() -> tryAcquireAsync1(end), calcSleepTime(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private CompletableFuture<Boolean> tryAcquireAsync0(int permits) {
+        long now = System.currentTimeMillis();
+        if (now < deniedUntil) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Window w = currentWindow(now);
+        if (w.takeLocal(permits)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        long delta = w.pending.getAndSet(0);
+        return redisExecutor.evalAsync(syncScript, w.keys, Arrays.asList(limitArg, ttlArg, String.valueOf(delta), String.valueOf(permits)))
+                .whenComplete((res, ex) -> {
+                    if (ex != null) {
+                        w.pending.addAndGet(delta);
+                    }
+                })
+                .thenApply(res -> onSynced(w, res));
+    }
+
+    /**
+     * 立即把本地尚未同步的计数写入 redis, 如停机前调用
+     */
+    public void flush() {
+        Window w = window.get();
+        if (w != null) {
+            flushAsync(w).join();
+        }
+    }
+
+    private CompletableFuture<Void> flushAsync(Window w) {
+        long delta = w.pending.getAndSet(0);
+        if (delta == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return redisExecutor.evalAsync(syncScript, w.keys, Arrays.asList(limitArg, ttlArg, String.valueOf(delta), "0"))
+                .handle((res, ex) -> {
+                    if (ex != null) {
+                        // 放回去, 窗口还没过期就稍后重试
+                        if (w.pending.getAndAdd(delta) == 0 && w.seq >= System.currentTimeMillis() / windowMillis - 1) {
+                            scheduleFlush(w);
+                        }
+                    } else {
+                        onSynced(w, res);
+                    }
+                    return null;
+                });
+    }
+
+    private void scheduleFlush(Window w) {
+        DelayScheduler.delay(() -> flushAsync(w), syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记下 redis 返回的剩余额度, 用完时本地拒绝到窗口结束
+     *
+     * @return 本次申请是否计入
+     */
+    private boolean onSynced(Window w, Object res) {
+        if (res == null) {
+            throw new RuntimeException("eval FixWindowSyncScript return null, rate limit fail");
+        }
+        long r = (Long) res;
+        boolean granted = r >= 0;
+        long remaining = granted ? r : -1 - r;
+        w.remaining = remaining;
+        if (remaining <= 0) {
+            long until = (w.seq + 1) * windowMillis;
+            if (until > deniedUntil) {
+                deniedUntil = until;
+            }
+        }
+        return granted;
+    }
+
+    private Window currentWindow(long now) {
+        long seq = now / windowMillis;
+        while (true) {
+            Window w = window.get();
+            if (w != null && w.seq >= seq) {
+                return w;
+            }
+            Window next = new Window(seq);
+            if (window.compareAndSet(w, next)) {
+                // 上个窗口未同步的计数交给其已排期的同步任务
+                return next;
+            }
+        }
+    }
+
+    private long calcSleepTime() {
+        return nextWindowBegin() - System.currentTimeMillis();
+    }
+
+    private long nextWindowBegin() {
+        long nowMs = System.currentTimeMillis();
+        return ((nowMs + windowMillis) / windowMillis) * windowMillis;
+    }
+
+    private final class Window {
+        final long seq;
+        final List<String> keys;
+        /**
+         * 本地已放行, 尚未同步到 redis 的数量
+         */
+        final AtomicLong pending = new AtomicLong();
+        /**
+         * 上次同步得知的剩余额度, 尚未同步过时为 -1
+         */
+        volatile long remaining = -1;
+
+        Window(long seq) {
+            this.seq = seq;
+            this.keys = Arrays.asList(keyTag + ":" + seq, configKey);
+        }
+
+        /**
+         * 本地放行, 不超过 localBudget 和已知的剩余额度. 本期首个放行的负责排期同步.
+         */
+        boolean takeLocal(int permits) {
+            long r = remaining;
+            long cap = r < 0 ? localBudget : Math.min(localBudget, r);
+            while (true) {
+                long p = pending.get();
+                if (p + permits > cap) {
+                    return false;
+                }
+                if (pending.compareAndSet(p, p + permits)) {
+                    if (p == 0) {
+                        scheduleFlush(this);
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+
+}
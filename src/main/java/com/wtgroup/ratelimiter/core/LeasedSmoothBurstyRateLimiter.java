@@ -0,0 +1,226 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstyLeaseScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 租借模式的平滑突发限流器
+ * <p>
+ * 每个节点一次从 redis 批量租借一批令牌, 本地无锁计数发放, 用完或租期到了再续租.
+ * 续租时归还上个租约未用完的令牌. 批量大小按本节点观测到的消耗速率自适应.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 只借当下已存的令牌, 借不到时退化为 {@link SmoothBurstyRateLimiter} 的逐次预留.<br/>
+ * 2> 单节点最多持有 <code>errorBudget</code> 个令牌, 全局误差不超过 节点数 * errorBudget .<br/>
+ * 3> 节点宕机时手上的令牌随之丢失 (只会少放, 不会多放).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 11:20
+ */
+public class LeasedSmoothBurstyRateLimiter implements RateLimiter {
+
+    private static RedisScript smoothBurstyLeaseScript = new SmoothBurstyLeaseScript();
+
+    private final SmoothBurstyRateLimiter delegate;
+    /**
+     * 误差预算: 单节点最多持有的租借令牌数
+     */
+    private final int errorBudget;
+    /**
+     * 租期
+     */
+    private final long leaseNanos;
+
+    private volatile Lease lease;
+    private final AtomicBoolean renewing = new AtomicBoolean();
+    /**
+     * 观测到的消耗速率 (令牌/秒), 只在续租线程中读写
+     */
+    private double observedRate;
+
+    /**
+     * @param delegate    逐次预留的限流器, 共用其 redis key
+     * @param errorBudget 单节点最多持有的租借令牌数
+     * @param leaseTime   租期
+     */
+    public LeasedSmoothBurstyRateLimiter(SmoothBurstyRateLimiter delegate, int errorBudget, Duration leaseTime) {
+        Assert.notNull(delegate, "`delegate` is null");
+        Assert.isTrue(errorBudget > 0, "`errorBudget` must greater then 0");
+        Assert.isTrue(leaseTime != null && !leaseTime.isNegative() && !leaseTime.isZero(), "`leaseTime` must greater then 0");
+        this.delegate = delegate;
+        this.errorBudget = errorBudget;
+        this.leaseNanos = leaseTime.toNanos();
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 阻塞式获取令牌
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     */
+    public double acquire(int permits) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        if (takeLocal(permits)) {
+            return 0.0;
+        }
+        return delegate.acquire(permits);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return tryAcquire(permits, Duration.ZERO);
+    }
+
+    public boolean tryAcquire(int permits, Duration timeout) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        if (takeLocal(permits)) {
+            return true;
+        }
+        return delegate.tryAcquire(permits, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return DelayScheduler.call(() -> takeLocal(1) ? CompletableFuture.completedFuture(0.0) : delegate.acquireAsync(1));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return DelayScheduler.call(() -> takeLocal(1) ? CompletableFuture.completedFuture(true) : delegate.tryAcquireAsync(1, timeout));
+    }
+
+    /**
+     * 归还手上未用完的令牌
+     */
+    public void close() {
+        Lease old = this.lease;
+        this.lease = null;
+        if (old != null) {
+            long unused = old.remaining.getAndSet(0);
+            if (unused > 0) {
+                lease(0, unused);
+            }
+        }
+    }
+
+    /**
+     * 先从本地租约拿, 拿不到尝试续租一次. 超过误差预算的大请求直接走 redis.
+     */
+    private boolean takeLocal(int permits) {
+        if (permits > errorBudget) {
+            return false;
+        }
+        if (tryTake(this.lease, permits)) {
+            return true;
+        }
+        return renew() && tryTake(this.lease, permits);
+    }
+
+    private boolean tryTake(Lease l, int permits) {
+        if (l == null || System.nanoTime() - l.expireAt >= 0) {
+            return false;
+        }
+        return l.take(permits);
+    }
+
+    /**
+     * 续租, 同一时刻只有一个线程续租, 其余线程直接走 redis 逐次预留.
+     *
+     * @return 有可用的租约
+     */
+    private boolean renew() {
+        if (!renewing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            long now = System.nanoTime();
+            Lease old = this.lease;
+            if (old != null && old.granted == 0 && now - old.expireAt < 0) {
+                // 上次没借到, 本租期内不再尝试, 避免每次调用多一次往返
+                return false;
+            }
+            long unused = 0;
+            int batch = 1;
+            if (old != null) {
+                unused = old.remaining.getAndSet(0);
+                batch = nextBatchSize(old, unused, now);
+            }
+            long granted = lease(batch, unused);
+            this.lease = new Lease(granted, now, now + leaseNanos);
+            return granted > 0;
+        } finally {
+            renewing.set(false);
+        }
+    }
+
+    /**
+     * 按上个租约期间的消耗速率 (EWMA) 估算下个租期需要的令牌数, 不超过误差预算.
+     * 租约提前用完时, 存活时间短, 估算速率高, 批量随之变大.
+     */
+    private int nextBatchSize(Lease old, long unused, long now) {
+        long used = old.granted - unused;
+        long elapsed = Math.max(now - old.createdAt, 1L);
+        double rate = used * 1e9 / elapsed;
+        observedRate = observedRate == 0 ? rate : (observedRate + rate) / 2;
+        double size = Math.ceil(observedRate * leaseNanos / 1e9);
+        return (int) Math.max(1, Math.min(errorBudget, size));
+    }
+
+    private long lease(long requiredPermits, long returnedPermits) {
+        Object res = delegate.getRedisExecutor().eval(smoothBurstyLeaseScript,
+                Collections.singletonList(delegate.getId()),
+                Arrays.asList(String.valueOf(requiredPermits), String.valueOf(returnedPermits), String.valueOf(delegate.getPermitsPerSecond())));
+        return (Long) res;
+    }
+
+    private static final class Lease {
+        final long granted;
+        final long createdAt;
+        final long expireAt;
+        final AtomicLong remaining;
+
+        Lease(long granted, long createdAt, long expireAt) {
+            this.granted = granted;
+            this.createdAt = createdAt;
+            this.expireAt = expireAt;
+            this.remaining = new AtomicLong(granted);
+        }
+
+        boolean take(int permits) {
+            while (true) {
+                long r = remaining.get();
+                if (r < permits) {
+                    return false;
+                }
+                if (remaining.compareAndSet(r, r - permits)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+}
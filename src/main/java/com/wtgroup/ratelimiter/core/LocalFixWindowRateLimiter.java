@@ -0,0 +1,165 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的固定窗口计数限流器
+ * <p>
+ * 与 {@link FixWindowRateLimiter} 语义一致 (窗口按时间戳对齐, 失败时等到下一个窗口重试), 但不访问 redis, 只限制本实例.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 窗口序号 (低 32 位) 和计数 (高 32 位) 打包在一个 long 里, 一次 CAS 完成 "换窗口 + 计数", 无锁.
+ * 序号截断成 32 位, 以差值比较先后; 计算序号后才到的线程若发现已换到更新的窗口, 计入新窗口, 不会把窗口倒回去.<br/>
+ * 2> 上限和窗口在构造时确定, 热路径上不分配对象.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:45
+ */
+public class LocalFixWindowRateLimiter implements RateLimiter {
+
+    private static final long SEQ_MASK = 0xFFFFFFFFL;
+
+    private final int limit;
+    private final long windowMillis;
+    /**
+     * 计数 << 32 | 窗口序号
+     */
+    private final AtomicLong state;
+
+    public LocalFixWindowRateLimiter(int limit, Duration window) {
+        Assert.isTrue(limit > 0, "`limit` must greater then 0");
+        Assert.isTrue(window != null && window.toMillis() > 0, "`window` must greater then 1ms");
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.state = new AtomicLong(currentSeq());
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 获取失败时, 休眠到下一个时间窗口重试, 如此往复.
+     *
+     * @return 拿到令牌等待时长, 秒
+     */
+    public double acquire(int permits) {
+        long waitedMs = 0L;
+        while (!acquire0(permits)) {
+            long sleepTime = calcSleepTime();
+            SleepUtil.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
+            waitedMs += sleepTime;
+        }
+        return 1.0 * waitedMs / 1000;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return acquire0(1);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return acquire0(permits);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 失败时, 下一个窗口在超时前开始则睡到下个窗口重试, 否则返回 false.
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) {
+        long end = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (!acquire0(permits)) {
+            if (System.currentTimeMillis() >= end || nextWindowBegin() >= end) {
+                return false;
+            }
+            SleepUtil.sleepUninterruptibly(calcSleepTime(), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return DelayScheduler.call(() -> acquireAsync0(0L));
+    }
+
+    private CompletableFuture<Double> acquireAsync0(long waitedMs) {
+        if (acquire0(1)) {
+            return CompletableFuture.completedFuture(1.0 * waitedMs / 1000);
+        }
+        long sleepTime = calcSleepTime();
+        return DelayScheduler.delay(() -> acquireAsync0(waitedMs + sleepTime), sleepTime, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        return DelayScheduler.call(() -> tryAcquireAsync0(end));
+    }
+
+    private CompletableFuture<Boolean> tryAcquireAsync0(long end) {
+        if (acquire0(1)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (System.currentTimeMillis() >= end || nextWindowBegin() >= end) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return DelayScheduler.delay(() -> tryAcquireAsync0(end), calcSleepTime(), TimeUnit.MILLISECONDS);
+    }
+
+    private boolean acquire0(int permits) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long seq = currentSeq();
+        while (true) {
+            long s = state.get();
+            long cur = s & SEQ_MASK;
+            long target;
+            long count;
+            if ((int) (cur - seq) >= 0) {
+                target = cur;
+                count = s >>> 32;
+            } else {
+                // 换了窗口, 计数从 0 开始
+                target = seq;
+                count = 0;
+            }
+            if (count + permits > limit) {
+                return false;
+            }
+            if (state.compareAndSet(s, (count + permits) << 32 | target)) {
+                return true;
+            }
+        }
+    }
+
+    private long currentSeq() {
+        return (System.currentTimeMillis() / windowMillis) & SEQ_MASK;
+    }
+
+    private long calcSleepTime() {
+        return nextWindowBegin() - System.currentTimeMillis();
+    }
+
+    private long nextWindowBegin() {
+        long nowMs = System.currentTimeMillis();
+        return ((nowMs + windowMillis) / windowMillis) * windowMillis;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+}
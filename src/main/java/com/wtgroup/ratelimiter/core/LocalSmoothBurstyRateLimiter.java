@@ -0,0 +1,166 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * 进程内的平滑突发限流器
+ * <p>
+ * 与 {@link SmoothBurstyRateLimiter} 语义一致 (最多攒 1 秒的令牌, 先用存量, 不足部分透支由下一个请求等待), 但不访问 redis,
+ * 只限制本实例. 适合保护本地线程池/CPU 密集接口, 或单节点/测试部署.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 存量令牌和 nextFreeTicket 合并成一个时间点 e (nanoTime): e 之前的部分折算为存量令牌, 最多 maxPermits;
+ * e 在未来则表示已透支到 e. 一个 long 的 CAS 即可完成预留, 无锁.<br/>
+ * 2> 热路径上不分配对象, 超时用 {@link #tryAcquire(int, long, TimeUnit)} 可避免构造 Duration.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:30
+ */
+public class LocalSmoothBurstyRateLimiter implements RateLimiter {
+
+    private final double permitsPerSecond;
+    private final double stableIntervalNanos;
+    /**
+     * 攒满 maxPermits 需要的时长
+     */
+    private final long maxBurstNanos;
+    /**
+     * 存量令牌为 0 的时点, 见类注释
+     */
+    private final AtomicLong emptyAt;
+
+    public LocalSmoothBurstyRateLimiter(double permitsPerSecond) {
+        Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
+        this.permitsPerSecond = permitsPerSecond;
+        this.stableIntervalNanos = SECONDS.toNanos(1L) / permitsPerSecond;
+        // maxPermits = permitsPerSecond, 即攒 1 秒
+        this.maxBurstNanos = SECONDS.toNanos(1L);
+        // 初始令牌是满的
+        this.emptyAt = new AtomicLong(System.nanoTime() - maxBurstNanos);
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 阻塞式获取令牌
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     */
+    public double acquire(int permits) {
+        long nanosToWait = reserve(permits);
+        SleepUtil.sleepUninterruptibly(nanosToWait, NANOSECONDS);
+        return 1.0 * nanosToWait / SECONDS.toNanos(1L);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1, 0, NANOSECONDS);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout.toNanos(), NANOSECONDS);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return tryAcquire(permits, 0, NANOSECONDS);
+    }
+
+    public boolean tryAcquire(int permits, Duration timeout) {
+        return tryAcquire(permits, timeout.toNanos(), NANOSECONDS);
+    }
+
+    /**
+     * 非阻塞式获取
+     * <p>
+     * 同 guava: 超时内等不到 (上一个请求透支到了 now + timeout 之后) 则不预留, 直接返回 false.
+     *
+     * @param permits
+     * @param timeout
+     * @param unit
+     * @return
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) {
+        long nanosToWait = tryReserve(permits, Math.max(unit.toNanos(timeout), 0));
+        if (nanosToWait < 0) {
+            return false;
+        }
+        SleepUtil.sleepUninterruptibly(nanosToWait, NANOSECONDS);
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return DelayScheduler.call(() -> {
+            long nanosToWait = reserve(permits);
+            return DelayScheduler.delay(1.0 * nanosToWait / SECONDS.toNanos(1L), nanosToWait, NANOSECONDS);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return tryAcquireAsync(1, timeout);
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        return DelayScheduler.call(() -> {
+            long nanosToWait = tryReserve(permits, Math.max(timeout.toNanos(), 0));
+            if (nanosToWait < 0) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return DelayScheduler.delay(true, nanosToWait, NANOSECONDS);
+        });
+    }
+
+    /**
+     * @return 需要等待的纳秒数
+     */
+    private long reserve(int permits) {
+        return tryReserve(permits, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return 需要等待的纳秒数; 超时内等不到时 -1, 不预留
+     */
+    private long tryReserve(int permits, long timeoutNanos) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        long cost = (long) (permits * stableIntervalNanos);
+        while (true) {
+            long now = System.nanoTime();
+            long e = emptyAt.get();
+            // 存量令牌不超过 maxPermits
+            long e0 = Math.max(e, now - maxBurstNanos);
+            long wait = Math.max(e0 - now, 0);
+            if (wait > timeoutNanos) {
+                return -1;
+            }
+            if (emptyAt.compareAndSet(e, e0 + cost)) {
+                return wait;
+            }
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+}
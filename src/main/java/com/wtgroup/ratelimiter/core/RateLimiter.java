@@ -0,0 +1,53 @@
+package com.wtgroup.ratelimiter.core;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 限流器公共契约, 每次获取一个令牌.
+ * <p>
+ * 各实现另有带 permits / limit 等参数的重载.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:02
+ */
+public interface RateLimiter {
+
+    /**
+     * 阻塞式获取
+     *
+     * @return 等待的秒数; 0.0 表示没有被限流
+     */
+    double acquire();
+
+    /**
+     * 阻塞式获取, 等待期间响应中断 (虚拟线程等可取消的调用方).
+     * <p>
+     * 缺省实现只在获取前检查中断标记, 等待本身不可中断.
+     *
+     * @return 等待的秒数; 0.0 表示没有被限流
+     * @throws InterruptedException 被中断; 已预留的令牌不退还
+     */
+    default double acquireInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return acquire();
+    }
+
+    boolean tryAcquire();
+
+    /**
+     * 最多等待 timeout
+     *
+     * @param timeout
+     * @return
+     */
+    boolean tryAcquire(Duration timeout);
+
+    CompletableFuture<Double> acquireAsync();
+
+    CompletableFuture<Boolean> tryAcquireAsync(Duration timeout);
+
+}
@@ -0,0 +1,98 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.util.LruCache;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 按维度 key (用户/API key/租户...) 限流
+ * <p>
+ * 每个维度 key 对应一个限流器, 首次用到时创建, 创建不访问 redis, redis 中的数据由脚本在首次访问时初始化.
+ * 本地只缓存有限个限流器 (LRU + 访问过期), key 再多堆内存也是平的; 被淘汰的限流器再用到时重新创建, 状态仍在 redis 中.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:35
+ */
+public class RateLimiterRegistry<L extends RateLimiter> {
+
+    private final Function<String, L> factory;
+    private final LruCache<String, L> cache;
+
+    /**
+     * @param factory           维度 key -> 限流器, 不应访问 redis
+     * @param maxSize           本地最多缓存的限流器个数
+     * @param expireAfterAccess 多久未访问后从本地淘汰
+     */
+    public RateLimiterRegistry(Function<String, L> factory, int maxSize, Duration expireAfterAccess) {
+        Assert.notNull(factory, "`factory` is null");
+        this.factory = factory;
+        this.cache = new LruCache<>(maxSize, expireAfterAccess.toMillis());
+    }
+
+    /**
+     * 每个维度 key 一个 {@link SmoothBurstyRateLimiter}, redis key 为 <code>idPrefix:key</code>
+     */
+    public static RateLimiterRegistry<SmoothBurstyRateLimiter> smoothBursty(RedisExecutor redisExecutor, String idPrefix, double permitsPerSecond,
+                                                                            int maxSize, Duration expireAfterAccess) {
+        return new RateLimiterRegistry<>(key -> new SmoothBurstyRateLimiter(redisExecutor, idPrefix + ":" + key, permitsPerSecond, true),
+                maxSize, expireAfterAccess);
+    }
+
+    /**
+     * 每个维度 key 一个 {@link FixWindowRateLimiter}, redis key 前缀为 <code>keyPrefix:key</code>
+     */
+    public static RateLimiterRegistry<FixWindowRateLimiter> fixWindow(RedisExecutor redisExecutor, String keyPrefix, int limit, Duration window,
+                                                                      int maxSize, Duration expireAfterAccess) {
+        return new RateLimiterRegistry<>(key -> new FixWindowRateLimiter(redisExecutor, keyPrefix + ":" + key, limit, window),
+                maxSize, expireAfterAccess);
+    }
+
+    /**
+     * 每个维度 key 一个 {@link HybridFixWindowRateLimiter}, redis key 前缀为 <code>keyPrefix:key</code>.
+     * 被限流的 key 本地拒绝到窗口结束, 不再访问 redis.
+     */
+    public static RateLimiterRegistry<HybridFixWindowRateLimiter> hybridFixWindow(RedisExecutor redisExecutor, String keyPrefix, int limit, Duration window,
+                                                                                  int localBudget, Duration syncInterval,
+                                                                                  int maxSize, Duration expireAfterAccess) {
+        return new RateLimiterRegistry<>(key -> new HybridFixWindowRateLimiter(redisExecutor, keyPrefix + ":" + key, limit, window, localBudget, syncInterval),
+                maxSize, expireAfterAccess);
+    }
+
+    public L get(String key) {
+        Assert.notNull(key, "`key` is null");
+        return cache.get(key, factory);
+    }
+
+    public double acquire(String key) {
+        return get(key).acquire();
+    }
+
+    public boolean tryAcquire(String key) {
+        return get(key).tryAcquire();
+    }
+
+    public boolean tryAcquire(String key, Duration timeout) {
+        return get(key).tryAcquire(timeout);
+    }
+
+    public CompletableFuture<Double> acquireAsync(String key) {
+        return get(key).acquireAsync();
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync(String key, Duration timeout) {
+        return get(key).tryAcquireAsync(timeout);
+    }
+
+    /**
+     * 本地缓存的限流器个数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+}
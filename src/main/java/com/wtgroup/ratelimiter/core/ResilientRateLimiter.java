@@ -0,0 +1,220 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * redis 慢或不可用时降级的限流器
+ * <p>
+ * 包装一个依赖 redis 的限流器, 其调用抛异常 (包括熔断器断开时的 {@link com.wtgroup.ratelimiter.executor.RedisUnavailableException})
+ * 时按 {@link FailMode} 处理, 而不是把 redis 故障变成应用故障. 熔断与恢复探测见
+ * {@link com.wtgroup.ratelimiter.executor.CircuitBreakerRedisExecutor}: 被包装的限流器应使用它作为 executor, 否则每次都要等到 redis 超时.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 21:30
+ */
+@Slf4j
+public class ResilientRateLimiter implements RateLimiter {
+
+    public enum FailMode {
+        /**
+         * 放行
+         */
+        OPEN,
+        /**
+         * 拒绝; 阻塞式的 acquire 无法拒绝, 抛出原异常
+         */
+        CLOSED,
+        /**
+         * 交给进程内限流器, 速率一般取全局的 1/实例数
+         */
+        LOCAL
+    }
+
+    private final String id;
+    private final RateLimiter delegate;
+    private final FailMode failMode;
+    private final RateLimiter local;
+    /**
+     * 降级时的放行/拒绝, 缺省不记录
+     */
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
+
+    /**
+     * @param id       用于日志和指标
+     * @param delegate 依赖 redis 的限流器
+     * @param failMode
+     * @param local    进程内限流器, 仅 {@link FailMode#LOCAL} 需要
+     */
+    public ResilientRateLimiter(String id, RateLimiter delegate, FailMode failMode, RateLimiter local) {
+        Assert.hasText(id, "`id` is empty");
+        Assert.notNull(delegate, "`delegate` is null");
+        Assert.notNull(failMode, "`failMode` is null");
+        Assert.isTrue(failMode != FailMode.LOCAL || local != null, "`local` is required by FailMode.LOCAL");
+        this.id = id;
+        this.delegate = delegate;
+        this.failMode = failMode;
+        this.local = local;
+    }
+
+    /**
+     * 按被包装限流器的速率创建进程内限流器
+     *
+     * @param delegate      {@link SmoothBurstyRateLimiter}, {@link SmoothWarmingUpRateLimiter}, {@link GcraRateLimiter} 或 {@link FixWindowRateLimiter}
+     * @param failMode
+     * @param localFraction 降级时本实例分到全局速率的比例, (0, 1]
+     */
+    public static ResilientRateLimiter of(RateLimiter delegate, FailMode failMode, double localFraction) {
+        Assert.isTrue(localFraction > 0 && localFraction <= 1, "`localFraction` must in (0, 1]");
+        String id;
+        RateLimiter local;
+        if (delegate instanceof SmoothBurstyRateLimiter) {
+            id = ((SmoothBurstyRateLimiter) delegate).getId();
+            local = new LocalSmoothBurstyRateLimiter(((SmoothBurstyRateLimiter) delegate).getPermitsPerSecond() * localFraction);
+        } else if (delegate instanceof SmoothWarmingUpRateLimiter) {
+            id = ((SmoothWarmingUpRateLimiter) delegate).getId();
+            local = new LocalSmoothBurstyRateLimiter(((SmoothWarmingUpRateLimiter) delegate).getPermitsPerSecond() * localFraction);
+        } else if (delegate instanceof GcraRateLimiter) {
+            id = ((GcraRateLimiter) delegate).getId();
+            local = new LocalSmoothBurstyRateLimiter(((GcraRateLimiter) delegate).getPermitsPerSecond() * localFraction);
+        } else if (delegate instanceof FixWindowRateLimiter) {
+            FixWindowRateLimiter fixWindow = (FixWindowRateLimiter) delegate;
+            id = fixWindow.getKeyPrefix();
+            local = new LocalFixWindowRateLimiter(Math.max(1, (int) (fixWindow.getGlobalLimit() * localFraction)), fixWindow.getGlobalWindow());
+        } else {
+            throw new IllegalArgumentException("Unsupported rate limiter for local fallback: " + delegate.getClass().getName());
+        }
+        return new ResilientRateLimiter(id, delegate, failMode, local);
+    }
+
+    @Override
+    public double acquire() {
+        try {
+            return delegate.acquire();
+        } catch (RuntimeException e) {
+            fallen(e);
+            switch (failMode) {
+                case OPEN:
+                    recorder.permitted();
+                    return 0.0;
+                case LOCAL:
+                    recorder.permitted();
+                    return local.acquire();
+                case CLOSED:
+                default:
+                    throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        try {
+            return delegate.tryAcquire();
+        } catch (RuntimeException e) {
+            fallen(e);
+            return record(failMode == FailMode.LOCAL ? local.tryAcquire() : failMode == FailMode.OPEN);
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        try {
+            return delegate.tryAcquire(timeout);
+        } catch (RuntimeException e) {
+            fallen(e);
+            return record(failMode == FailMode.LOCAL ? local.tryAcquire(timeout) : failMode == FailMode.OPEN);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return DelayScheduler.call(delegate::acquireAsync).handle((waited, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.completedFuture(waited);
+            }
+            fallen(ex);
+            switch (failMode) {
+                case OPEN:
+                    recorder.permitted();
+                    return CompletableFuture.completedFuture(0.0);
+                case LOCAL:
+                    recorder.permitted();
+                    return local.acquireAsync();
+                case CLOSED:
+                default:
+                    CompletableFuture<Double> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(unwrap(ex));
+                    return failed;
+            }
+        }).thenCompose(future -> future);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return DelayScheduler.call(() -> delegate.tryAcquireAsync(timeout)).handle((acquired, ex) -> {
+            if (ex == null) {
+                return CompletableFuture.completedFuture(acquired);
+            }
+            fallen(ex);
+            if (failMode == FailMode.LOCAL) {
+                return local.tryAcquireAsync(timeout).thenApply(this::record);
+            }
+            return CompletableFuture.completedFuture(record(failMode == FailMode.OPEN));
+        }).thenCompose(future -> future);
+    }
+
+    private void fallen(Throwable e) {
+        if (log.isDebugEnabled()) {
+            log.debug("ResilientRateLimiter {} fall back to {}", id, failMode, unwrap(e));
+        }
+    }
+
+    private boolean record(boolean acquired) {
+        if (acquired) {
+            recorder.permitted();
+        } else {
+            recorder.rejected();
+        }
+        return acquired;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * 开启指标记录: 降级时的放行/拒绝, 类型为 fallback
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("fallback", this.id);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public RateLimiter getDelegate() {
+        return delegate;
+    }
+
+    public FailMode getFailMode() {
+        return failMode;
+    }
+
+    public RateLimiter getLocal() {
+        return local;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SlidingWindowCounterScript;
+import com.wtgroup.ratelimiter.script.WindowRefundScript;
+import com.wtgroup.ratelimiter.util.KeyUtil;
+import org.springframework.util.Assert;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 滑动窗口计数 限流器
+ * <p>
+ * 按上个窗口计数的加权 + 当前窗口计数估算滑动窗口内的流量, 每个 key 只占两个计数器.
+ * <p>
+ * Note:<br/>
+ * 1> 假设上个窗口内流量均匀, 是近似值, 但消除了固定窗口临界处 2倍 突发.<br/>
+ * 2> 窗口划分依赖客户端时钟, 同 {@link FixWindowRateLimiter}.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:20
+ */
+public class SlidingWindowCounterRateLimiter extends AbstractSlidingWindowRateLimiter {
+
+    private static final RedisScript script = new SlidingWindowCounterScript();
+    private static final RedisScript refundScript = new WindowRefundScript();
+
+    /**
+     * 两个窗口 key 的前缀; cluster / 分片时带 hash tag, 落在同一 slot
+     */
+    private final String keyTag;
+
+    public SlidingWindowCounterRateLimiter(JedisPool jedisPool, String keyPrefix, int globalLimit, Duration globalWindow) {
+        this(new JedisRedisExecutor(jedisPool), keyPrefix, globalLimit, globalWindow);
+    }
+
+    public SlidingWindowCounterRateLimiter(RedisExecutor redisExecutor, String keyPrefix) {
+        super(redisExecutor, keyPrefix, "SLIDING_WINDOW_COUNTER_RATE_LIMITER");
+        this.keyTag = KeyUtil.keyTag(redisExecutor, this.keyPrefix);
+    }
+
+    /**
+     * @param redisExecutor 操作 redis
+     * @param keyPrefix     计数窗口依据的 redis key 前缀
+     * @param globalLimit   窗口内上限
+     * @param globalWindow  窗口长度
+     */
+    public SlidingWindowCounterRateLimiter(RedisExecutor redisExecutor, String keyPrefix, int globalLimit, Duration globalWindow) {
+        super(redisExecutor, keyPrefix, "SLIDING_WINDOW_COUNTER_RATE_LIMITER", globalLimit, globalWindow);
+        this.keyTag = KeyUtil.keyTag(redisExecutor, this.keyPrefix);
+    }
+
+    @Override
+    protected RedisScript getScript() {
+        return script;
+    }
+
+    @Override
+    protected List<String> keys(long windMs, long nowMs) {
+        long windowSeq = nowMs / windMs;
+        return Arrays.asList(keyTag + ":" + windowSeq, keyTag + ":" + (windowSeq - 1));
+    }
+
+    @Override
+    protected List<String> args(int permits, long limit, long windMs, long nowMs) {
+        // 当前窗口下个窗口还要作为 "上个窗口" 使用, ttl 至少两个窗口
+        long ttl = Math.max(1, (windMs * 2 + 999) / 1000);
+        return Arrays.asList(String.valueOf(limit), String.valueOf(ttl), String.valueOf(windMs), String.valueOf(nowMs % windMs),
+                String.valueOf(permits));
+    }
+
+    /**
+     * 退回获取时所在的窗口计数. 该窗口作为 "上个窗口" 仍参与估算, 直到再下一个窗口开始.
+     */
+    @Override
+    public long refund(int permits, long acquiredAtMillis) {
+        Assert.isTrue(permits > 0, "Refunded permits must be positive");
+        long windMs = getGlobalWindow().toMillis();
+        long nowMs = System.currentTimeMillis();
+        if (nowMs / windMs - acquiredAtMillis / windMs > 1) {
+            return 0;
+        }
+        Object eval = redisExecutor.eval(refundScript,
+                keys(windMs, acquiredAtMillis).subList(0, 1),
+                Collections.singletonList(String.valueOf(permits)));
+        if (eval == null) {
+            throw new RuntimeException("eval WindowRefundScript return null, refund fail");
+        }
+        return (Long) eval;
+    }
+
+}
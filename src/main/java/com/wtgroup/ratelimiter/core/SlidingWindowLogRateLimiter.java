@@ -0,0 +1,95 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SlidingWindowLogRefundScript;
+import com.wtgroup.ratelimiter.script.SlidingWindowLogScript;
+import org.springframework.util.Assert;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 滑动窗口日志 限流器
+ * <p>
+ * 每次通过在有序集合中记一条, 精确统计任意滑动窗口内的流量. 时间取 redis 时间.
+ * <p>
+ * Note:<br/>
+ * 1> 内存与窗口内上限成正比 (按权重获取时每个名额一条), 适合低流量的 key, 高流量或大权重用 {@link SlidingWindowCounterRateLimiter}.<br/>
+ * 2> 需要 redis ^3.2 版本, 支持 redis.replicate_commands() .
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:25
+ */
+public class SlidingWindowLogRateLimiter extends AbstractSlidingWindowRateLimiter {
+
+    private static final RedisScript script = new SlidingWindowLogScript();
+    private static final RedisScript refundScript = new SlidingWindowLogRefundScript();
+
+    /**
+     * 本实例标识, 和自增序号一起作为日志成员, 保证唯一
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong seq = new AtomicLong();
+
+    public SlidingWindowLogRateLimiter(JedisPool jedisPool, String keyPrefix, int globalLimit, Duration globalWindow) {
+        this(new JedisRedisExecutor(jedisPool), keyPrefix, globalLimit, globalWindow);
+    }
+
+    public SlidingWindowLogRateLimiter(RedisExecutor redisExecutor, String keyPrefix) {
+        super(redisExecutor, keyPrefix, "SLIDING_WINDOW_LOG_RATE_LIMITER");
+    }
+
+    /**
+     * @param redisExecutor 操作 redis
+     * @param keyPrefix     日志的 redis key
+     * @param globalLimit   窗口内上限
+     * @param globalWindow  窗口长度
+     */
+    public SlidingWindowLogRateLimiter(RedisExecutor redisExecutor, String keyPrefix, int globalLimit, Duration globalWindow) {
+        super(redisExecutor, keyPrefix, "SLIDING_WINDOW_LOG_RATE_LIMITER", globalLimit, globalWindow);
+    }
+
+    @Override
+    protected RedisScript getScript() {
+        return script;
+    }
+
+    @Override
+    protected List<String> keys(long windMs, long nowMs) {
+        return Collections.singletonList(this.keyPrefix);
+    }
+
+    @Override
+    protected List<String> args(int permits, long limit, long windMs, long nowMs) {
+        return Arrays.asList(String.valueOf(limit), String.valueOf(windMs * 1000), instanceId + ":" + seq.incrementAndGet(),
+                String.valueOf(permits));
+    }
+
+    /**
+     * 删掉窗口内最早的 permits 条记录, 见 {@link SlidingWindowLogRefundScript}
+     */
+    @Override
+    public long refund(int permits, long acquiredAtMillis) {
+        Assert.isTrue(permits > 0, "Refunded permits must be positive");
+        long windMs = getGlobalWindow().toMillis();
+        if (System.currentTimeMillis() - acquiredAtMillis >= windMs) {
+            return 0;
+        }
+        Object eval = redisExecutor.eval(refundScript,
+                Collections.singletonList(this.keyPrefix),
+                Arrays.asList(String.valueOf(permits), String.valueOf(windMs * 1000)));
+        if (eval == null) {
+            throw new RuntimeException("eval SlidingWindowLogRefundScript return null, refund fail");
+        }
+        return (Long) eval;
+    }
+
+}
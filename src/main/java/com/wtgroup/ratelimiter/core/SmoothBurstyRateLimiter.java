@@ -1,19 +1,29 @@
 package com.wtgroup.ratelimiter.core;
 
 import com.wtgroup.ratelimiter.consts.Consts;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
 import com.wtgroup.ratelimiter.script.RedisScript;
 import com.wtgroup.ratelimiter.script.SmoothBurstyInitScript;
 import com.wtgroup.ratelimiter.script.SmoothBurstyReserveScript;
+import com.wtgroup.ratelimiter.script.SmoothBurstySetRateScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.ScriptUtil;
 import com.wtgroup.ratelimiter.util.SleepUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static java.lang.Math.max;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
@@ -35,35 +45,79 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * @date 2020/12/3 0:51
  */
 @Slf4j
-public class SmoothBurstyRateLimiter {
+public class SmoothBurstyRateLimiter implements RateLimiter {
 
     private static RedisScript smoothBurstyInitScript = new SmoothBurstyInitScript();
     private static RedisScript smoothBurstyReserveScript = new SmoothBurstyReserveScript();
+    private static RedisScript smoothBurstySetRateScript = new SmoothBurstySetRateScript();
     /**
      * 暂写死过期 360 天
      */
     private static int RATE_LIMITER_INFO_KEY_TTL = 360 * 24 * 3600;
+    /**
+     * 预留不设超时, 一定预留
+     */
+    private static final long UNBOUNDED = -1;
 
-    private final JedisPool jedisPool;
+    private final RedisExecutor redisExecutor;
     /**
      * 每秒可用的令牌数, 决定了限流器的速率.
+     * 以 redis 中的为准, 此处只用于初始化; 其他节点 setRate 后, 本值不会随之改变.
+     */
+    private volatile double permitsPerSecond;
+    /**
+     * 预留脚本参数, key 不存在时脚本据此初始化
      */
-    private final double permitsPerSecond;
+    private volatile String permitsPerSecondArg;
+    /**
+     * 预编码的单个令牌预留参数 {id, 1, permitsPerSecond} 及不等待的 {id, 1, permitsPerSecond, 0}, 随 setRate 整体替换,
+     * 见 {@link #reserve(int, long)}
+     */
+    private volatile byte[][] reserveOneParams;
+    private volatile byte[][] tryOneParams;
     /**
      * 限流器 id , 即 redis 中 key
      */
     private String id = "SMOOTH_BURSTY_RATE_LIMITER";
+    /**
+     * 指标记录, 缺省不记录
+     */
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
+    /**
+     * 本地缓存 nextFreeTicketMicros, 见 {@link #setNearCache(boolean)}
+     */
+    private boolean nearCache;
+    private volatile long knownNextFreeTicketMicros;
 
     public SmoothBurstyRateLimiter(JedisPool jedisPool, String id, double permitsPerSecond) {
-        Assert.notNull(jedisPool, "`jedisPool` is null");
-        this.jedisPool = jedisPool;
+        this(new JedisRedisExecutor(jedisPool), id, permitsPerSecond);
+    }
+
+    public SmoothBurstyRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond) {
+        this(redisExecutor, id, permitsPerSecond, false);
+    }
+
+    /**
+     * @param redisExecutor
+     * @param id
+     * @param permitsPerSecond
+     * @param lazyInit         true: 构造时不访问 redis, 首次预留时由脚本初始化 (不重置已有的数据)
+     */
+    public SmoothBurstyRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond, boolean lazyInit) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        this.redisExecutor = redisExecutor;
         if (!StringUtils.isEmpty(id)) {
             this.id = id;
         }
         Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
         this.permitsPerSecond = permitsPerSecond;
+        this.permitsPerSecondArg = String.valueOf(permitsPerSecond);
+        this.reserveOneParams = reserveParams(1, this.permitsPerSecondArg, UNBOUNDED);
+        this.tryOneParams = reserveParams(1, this.permitsPerSecondArg, 0);
 
-        init();
+        if (!lazyInit) {
+            init();
+        }
     }
 
 
@@ -76,6 +130,7 @@ public class SmoothBurstyRateLimiter {
      *
      * @return
      */
+    @Override
     public double acquire() {
         return acquire(1);
     }
@@ -86,32 +141,131 @@ public class SmoothBurstyRateLimiter {
      * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
      */
     public double acquire(int permits) {
-        long microsToWait = reserve(permits);
+        long microsToWait = reserve(permits, UNBOUNDED);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
         // 睡眠
         SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
 
         return 1.0 * microsToWait / SECONDS.toMicros(1L);
     }
 
-    private long reserve(int permits) {
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        return acquireInterruptibly(1);
+    }
+
+    /**
+     * 阻塞式获取令牌, 等待期间响应中断
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     * @throws InterruptedException 被中断; 已预留的令牌不退还
+     */
+    public double acquireInterruptibly(int permits) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long microsToWait = reserve(permits, UNBOUNDED);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        MICROSECONDS.sleep(microsToWait);
+
+        return 1.0 * microsToWait / SECONDS.toMicros(1L);
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    /**
+     * 异步获取令牌
+     * <p>
+     * 同 {@link #acquire(int)}, 但不睡眠调用方线程, 等待交给共用定时器.
+     *
+     * @return 拿到令牌时完成, 值为等待的秒数
+     */
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return DelayScheduler.call(() -> reserveAsync(permits, UNBOUNDED)
+                .thenCompose(microsToWait -> {
+                    recorder.permitted();
+                    recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                    return DelayScheduler.delay(1.0 * microsToWait / SECONDS.toMicros(1L), microsToWait, MICROSECONDS);
+                }));
+    }
+
+    /**
+     * 预留令牌, 超时内能否等到由脚本按 redis 时间判定, 只在等得到时才扣减, 一次往返.
+     * <p>
+     * 热路径: 申请 1 个令牌时复用预编码的参数, 以二进制执行, 返回值按 long 取.
+     *
+     * @param timeoutMicros {@link #UNBOUNDED} 时一定预留
+     * @return 需要睡眠的微秒数; 超时内等不到时为负数: -1 - 距可预留时点的微秒数
+     */
+    private long reserve(int permits, long timeoutMicros) {
         Assert.isTrue(permits > 0, "Requested permits must be positive");
+        byte[][] params;
+        if (permits == 1 && timeoutMicros == UNBOUNDED) {
+            params = reserveOneParams;
+        } else if (permits == 1 && timeoutMicros == 0) {
+            params = tryOneParams;
+        } else {
+            params = reserveParams(permits, permitsPerSecondArg, timeoutMicros);
+        }
 
-        try (Jedis jedis = jedisPool.getResource()) {
+        long start = System.nanoTime();
+        long microsToWait = redisExecutor.evalLong(smoothBurstyReserveScript, 1, params);
+        recorder.redis(System.nanoTime() - start);
 
-            // 返回需要睡眠的微妙数
-            Object res = jedis.eval(smoothBurstyReserveScript.getScriptAsString(),
-                    Collections.singletonList(String.valueOf(this.id)),
-                    Collections.singletonList(String.valueOf(permits)));
+        return microsToWait;
+    }
 
-            return (Long) res;
+    private byte[][] reserveParams(int permits, String permitsPerSecondArg, long timeoutMicros) {
+        byte[] id = ScriptUtil.toBytes(this.id);
+        byte[] required = ScriptUtil.toBytes(permits);
+        byte[] rate = ScriptUtil.toBytes(permitsPerSecondArg);
+        return timeoutMicros == UNBOUNDED
+                ? new byte[][]{id, required, rate}
+                : new byte[][]{id, required, rate, ScriptUtil.toBytes(timeoutMicros)};
+    }
 
+    private CompletableFuture<Long> reserveAsync(int permits, long timeoutMicros) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+        List<String> args = timeoutMicros == UNBOUNDED
+                ? Arrays.asList(String.valueOf(permits), permitsPerSecondArg)
+                : Arrays.asList(String.valueOf(permits), permitsPerSecondArg, String.valueOf(timeoutMicros));
+
+        long start = System.nanoTime();
+        return timed(redisExecutor.evalAsync(smoothBurstyReserveScript,
+                Collections.singletonList(String.valueOf(this.id)), args), start)
+                .thenApply(res -> {
+                    if (res == null) {
+                        throw new RuntimeException("eval SmoothBurstyReserveScript return null, rate limit fail");
+                    }
+                    return (Long) res;
+                });
+    }
+
+    /**
+     * 记录异步 redis 调用耗时. 回调要捕获 start, 只在真正记录时才包一层.
+     */
+    private <T> CompletableFuture<T> timed(CompletableFuture<T> future, long start) {
+        if (recorder == LimiterRecorder.NOOP) {
+            return future;
         }
+        return future.whenComplete((res, ex) -> recorder.redis(System.nanoTime() - start));
     }
 
+    @Override
     public boolean tryAcquire() {
         return tryAcquire(1);
     }
 
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout);
+    }
+
     public boolean tryAcquire(int permits) {
         return tryAcquire(permits, Duration.ZERO);
     }
@@ -119,7 +273,7 @@ public class SmoothBurstyRateLimiter {
     /**
      * 非阻塞式获取
      * <p>
-     * 在指定超时时间内返回结果.
+     * 在指定超时时间内返回结果. 超时内能否等到令牌由预留脚本按 redis 时间判定, 等不到时不扣减, 一次往返.
      *
      * @param permits
      * @param timeout
@@ -129,43 +283,120 @@ public class SmoothBurstyRateLimiter {
         Assert.isTrue(permits > 0, "Requested permits must be positive");
         long timeoutMicros = max(timeout.toNanos()/1000, 0);
 
-        long microsToWait;
         long nowMicros = System.currentTimeMillis() * 1000; // 精度损失, 会导致 ns 获取不到, 故用毫秒
-        if (!canAcquire(nowMicros, timeoutMicros)) {
+        if (deniedLocally(nowMicros, timeoutMicros)) {
+            recorder.rejected();
             return false;
-        } else {
-            microsToWait = reserve(permits);
         }
-        // 预计需要睡眠的时长超过了 timeout , 提前返回 (这是和 guava 不同的地方)
-        if (microsToWait > timeoutMicros) {
+        long microsToWait = reserve(permits, timeoutMicros);
+        if (microsToWait < 0) {
+            remember(nowMicros, microsToWait);
+            recorder.rejected();
             return false;
         }
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
 
         SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
 
         return true;
     }
 
+    public CompletableFuture<Boolean> tryAcquireAsync() {
+        return tryAcquireAsync(1);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return tryAcquireAsync(1, timeout);
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits) {
+        return tryAcquireAsync(permits, Duration.ZERO);
+    }
+
     /**
-     * 当前时点+超时时长 落在 最近一次可释放令牌时点 之前, 那么, 必然无法成功 acquire .
+     * 异步的 {@link #tryAcquire(int, Duration)}
      *
-     * @param nowMicros
-     * @param timeoutMicros
+     * @param permits
+     * @param timeout
      * @return
      */
-    private boolean canAcquire(long nowMicros, long timeoutMicros) {
-        return queryEarliestAvailable() - timeoutMicros <= nowMicros;
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        return DelayScheduler.call(() -> {
+            Assert.isTrue(permits > 0, "Requested permits must be positive");
+            long timeoutMicros = max(timeout.toNanos() / 1000, 0);
+
+            long nowMicros = System.currentTimeMillis() * 1000;
+            if (deniedLocally(nowMicros, timeoutMicros)) {
+                recorder.rejected();
+                return CompletableFuture.completedFuture(false);
+            }
+            return reserveAsync(permits, timeoutMicros).thenCompose(microsToWait -> {
+                if (microsToWait < 0) {
+                    remember(nowMicros, microsToWait);
+                    recorder.rejected();
+                    return CompletableFuture.completedFuture(false);
+                }
+                recorder.permitted();
+                recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                return DelayScheduler.delay(true, microsToWait, MICROSECONDS);
+            });
+        });
     }
 
     /**
-     * 查询 nextFreeTicketMicros
+     * 批量非阻塞获取, 一次往返判定多个相互独立的 key, 不等待.
+     * <p>
+     * 每个 key 是一个独立的限流器, redis key 为 id:key, 速率同本限流器, 首次使用时由脚本初始化.
      *
-     * @return
+     * @param keys    业务 key
+     * @param permits 各 key 的申请数, null 时均为 1
+     * @return 第 i 位为 true 表示 keys[i] 获取成功
      */
-    long queryEarliestAvailable() {
-        try (Jedis jedis = jedisPool.getResource()) {
-            String res = jedis.hget(this.id, Consts.nextFreeTicketMicros);
-            return Long.parseLong(res);
+    public BitSet tryAcquireBatch(String[] keys, int[] permits) {
+        Assert.isTrue(permits == null || permits.length == keys.length, "`permits` length must equals `keys` length");
+        String[][] params = new String[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            int p = permits == null ? 1 : permits[i];
+            Assert.isTrue(p > 0, "Requested permits must be positive");
+            params[i] = new String[]{this.id + ":" + keys[i], String.valueOf(p), permitsPerSecondArg, "0"};
+        }
+
+        long start = System.nanoTime();
+        Object[] results = redisExecutor.evalBatch(smoothBurstyReserveScript, 1, params);
+        recorder.redis(System.nanoTime() - start);
+        BitSet acquired = new BitSet(keys.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                throw new RuntimeException("eval SmoothBurstyReserveScript return null, rate limit fail");
+            }
+            // 超时为 0, 返回值只会是负数 (拿不到) 或 0
+            if ((Long) results[i] >= 0) {
+                acquired.set(i);
+                recorder.permitted();
+            } else {
+                recorder.rejected();
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * 开启近端缓存时, 按上次被拒时得知的 nextFreeTicketMicros 本地判定, 透支严重时被拒的请求不再访问 redis.
+     * <p>
+     * 当前时点+超时时长 落在 最近一次可释放令牌时点 之前, 那么, 必然无法成功 acquire .
+     */
+    private boolean deniedLocally(long nowMicros, long timeoutMicros) {
+        return nearCache && knownNextFreeTicketMicros - timeoutMicros > nowMicros;
+    }
+
+    /**
+     * 被拒时脚本返回 -1 - 距可预留时点的微秒数, 换算到本地时钟记下; 只用相对时长, 不受客户端与 redis 时钟偏差影响
+     */
+    private void remember(long nowMicros, long rejected) {
+        if (nearCache) {
+            knownNextFreeTicketMicros = nowMicros + (-1 - rejected);
         }
     }
 
@@ -177,46 +408,114 @@ public class SmoothBurstyRateLimiter {
      * 导致, 即使系统重启了, 依然阻塞请求很久很久. 这是不合理的, 而是应该, 重置.
      */
     private void init() {
-        try (Jedis jedis = jedisPool.getResource()) {
-            // 检查 key 是否已存在. 存在继续检查是否符合格式要求:
-            // 1) 字段符合规范; 2) 值无异常.
-
-            // if (jedis.exists(this.id)) {
-            //     // throw new RuntimeException("Exists redis key : " + this.id);
-            //     Map<String, String> rlinfo = jedis.hgetAll(this.id);
-            //     checkRateLimiterInfo(rlinfo);
-            //     // 设置较长的 ttl , 更新 ttl
-            //     jedis.expire(this.id, RATE_LIMITER_INFO_KEY_TTL);
-            //     log.info("SmoothBurstyRateLimiter's info is exits, and valid, return.");
-            //     return;
-            // }
-
-            Object res = jedis.eval(smoothBurstyInitScript.getScriptAsString(),
-                    Collections.singletonList(String.valueOf(this.id)),
-                    Collections.singletonList(String.valueOf(this.permitsPerSecond)));
-
-            if (res == null || (Long) res != 1) {
-                throw new RuntimeException("Init SmoothBurstyRateLimiter fail. id: " + this.id);
-            }
+        // 检查 key 是否已存在. 存在继续检查是否符合格式要求:
+        // 1) 字段符合规范; 2) 值无异常.
+
+        // if (jedis.exists(this.id)) {
+        //     // throw new RuntimeException("Exists redis key : " + this.id);
+        //     Map<String, String> rlinfo = jedis.hgetAll(this.id);
+        //     checkRateLimiterInfo(rlinfo);
+        //     // 设置较长的 ttl , 更新 ttl
+        //     jedis.expire(this.id, RATE_LIMITER_INFO_KEY_TTL);
+        //     log.info("SmoothBurstyRateLimiter's info is exits, and valid, return.");
+        //     return;
+        // }
+
+        Object res = redisExecutor.eval(smoothBurstyInitScript,
+                Collections.singletonList(String.valueOf(this.id)),
+                Collections.singletonList(String.valueOf(this.permitsPerSecond)));
+
+        if (res == null || (Long) res != 1) {
+            throw new RuntimeException("Init SmoothBurstyRateLimiter fail. id: " + this.id);
+        }
+
+        // 设置较长的 ttl
+        redisExecutor.expire(this.id, RATE_LIMITER_INFO_KEY_TTL);
+
+        log.info("SmoothBurstyRateLimiter init finished.");
+    }
 
-            // 设置较长的 ttl
-            jedis.expire(this.id, RATE_LIMITER_INFO_KEY_TTL);
 
-            log.info("SmoothBurstyRateLimiter init finished.");
+    /**
+     * 调整速率
+     * <p>
+     * 同 guava 的 setRate, 在 redis 中原子地按旧速率同步存量令牌后切换到新速率, 所有节点下次调用即生效.
+     * 改过的速率记在 redis 中, 之后 key 不再自然过期, 节点重启 init 也沿用改过的速率, 直到 {@link #destroy()}.
+     *
+     * @param permitsPerSecond
+     */
+    public void setRate(double permitsPerSecond) {
+        Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
+        Object res = redisExecutor.eval(smoothBurstySetRateScript,
+                Collections.singletonList(this.id),
+                Collections.singletonList(String.valueOf(permitsPerSecond)));
+        if (res == null || (Long) res != 1) {
+            throw new RuntimeException("Set rate of SmoothBurstyRateLimiter fail. id: " + this.id);
         }
+        rateChanged(permitsPerSecond);
     }
 
+    /**
+     * redis 中的速率已被改过 (如 {@link AdaptiveRateLimiter}), 只同步本地缓存的参数
+     */
+    void rateChanged(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.permitsPerSecondArg = String.valueOf(permitsPerSecond);
+        this.reserveOneParams = reserveParams(1, this.permitsPerSecondArg, UNBOUNDED);
+        this.tryOneParams = reserveParams(1, this.permitsPerSecondArg, 0);
+    }
+
+    /**
+     * 查询 redis 中的实时状态
+     *
+     * @return key 不存在 (尚未初始化或已过期, 令牌是满的) 时为空
+     */
+    public Map<String, String> queryState() {
+        return redisExecutor.hgetAll(this.id);
+    }
 
     /**
      * 销毁: 删除 redis key
      */
     public void destroy() {
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.del(this.id);
-        }
+        redisExecutor.del(this.id);
     }
 
 
+    /**
+     * 近端缓存: 记住最近被拒时得知的 nextFreeTicketMicros, 在其之前超时内拿不到令牌的 tryAcquire 本地直接拒绝, 不访问 redis.
+     * <p>
+     * nextFreeTicketMicros 只增不减, 缓存值是其下界, 不会误放. 仅当 key 被 destroy / 重新 init 后,
+     * 本地会继续拒绝到缓存的时点为止.
+     *
+     * @param nearCache
+     */
+    public void setNearCache(boolean nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * 开启指标记录, 以 id 作为限流器 id
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("smooth_bursty", this.id);
+    }
+
+    RedisExecutor getRedisExecutor() {
+        return redisExecutor;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
     private void checkRateLimiterInfo(Map<String, String> rlinfo) {
         Assert.isTrue(rlinfo.containsKey(Consts.maxPermits), "SmoothBurstyRateLimiter redis info hasn't field of `" + Consts.maxPermits + "`");
         Assert.isTrue(rlinfo.containsKey(Consts.storedPermits), "SmoothBurstyRateLimiter redis info hasn't field of `" + Consts.storedPermits + "`");
@@ -0,0 +1,310 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.metrics.LimiterRecorder;
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.script.SmoothWarmingUpInitScript;
+import com.wtgroup.ratelimiter.script.SmoothWarmingUpReserveScript;
+import com.wtgroup.ratelimiter.util.DelayScheduler;
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * 预热限流器
+ * <p>
+ * 仿照 guava 框架中的 {@link com.google.common.util.concurrent.SmoothRateLimiter.SmoothWarmingUp} .
+ * 空闲一段时间后, 不像 {@link SmoothBurstyRateLimiter} 那样放出一整批突发, 而是从 coldFactor 倍的间隔开始,
+ * 在 warmupPeriod 内逐步提速到 permitsPerSecond, 保护冷缓存后面的下游.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 预热积分 (梯形面积) 在 lua 脚本中以 redis TIME 原子计算, 与 {@link SmoothBurstyRateLimiter} 一样不依赖客户端时钟.<br/>
+ * 2> tryAcquire 把超时交给脚本判定, 一次往返.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 19:10
+ */
+@Slf4j
+public class SmoothWarmingUpRateLimiter implements RateLimiter {
+
+    private static RedisScript smoothWarmingUpInitScript = new SmoothWarmingUpInitScript();
+    private static RedisScript smoothWarmingUpReserveScript = new SmoothWarmingUpReserveScript();
+    /**
+     * 同 guava, 冷状态下发放间隔是稳定间隔的 3 倍
+     */
+    public static final double DEFAULT_COLD_FACTOR = 3.0;
+    private static int RATE_LIMITER_INFO_KEY_TTL = 360 * 24 * 3600;
+
+    private final RedisExecutor redisExecutor;
+    private final double permitsPerSecond;
+    private final Duration warmupPeriod;
+    private final double coldFactor;
+    /**
+     * 预留脚本参数, key 不存在时脚本据此初始化
+     */
+    private final String permitsPerSecondArg;
+    private final String warmupPeriodMicrosArg;
+    private final String coldFactorArg;
+    /**
+     * 限流器 id , 即 redis 中 key
+     */
+    private String id = "SMOOTH_WARMING_UP_RATE_LIMITER";
+    private LimiterRecorder recorder = LimiterRecorder.NOOP;
+
+    public SmoothWarmingUpRateLimiter(JedisPool jedisPool, String id, double permitsPerSecond, Duration warmupPeriod) {
+        this(new JedisRedisExecutor(jedisPool), id, permitsPerSecond, warmupPeriod);
+    }
+
+    public SmoothWarmingUpRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond, Duration warmupPeriod) {
+        this(redisExecutor, id, permitsPerSecond, warmupPeriod, DEFAULT_COLD_FACTOR, false);
+    }
+
+    /**
+     * @param redisExecutor
+     * @param id
+     * @param permitsPerSecond 稳定速率
+     * @param warmupPeriod     从冷状态提速到稳定速率的时长
+     * @param coldFactor       冷状态下发放间隔是稳定间隔的倍数
+     * @param lazyInit         true: 构造时不访问 redis, 首次预留时由脚本初始化 (不重置已有的数据)
+     */
+    public SmoothWarmingUpRateLimiter(RedisExecutor redisExecutor, String id, double permitsPerSecond, Duration warmupPeriod,
+                                      double coldFactor, boolean lazyInit) {
+        Assert.notNull(redisExecutor, "`redisExecutor` is null");
+        Assert.isTrue(permitsPerSecond > 0, "`permitsPerSecond` must greater then 0");
+        Assert.isTrue(warmupPeriod != null && !warmupPeriod.isNegative() && !warmupPeriod.isZero(), "`warmupPeriod` must greater then 0");
+        Assert.isTrue(coldFactor > 1, "`coldFactor` must greater then 1");
+        this.redisExecutor = redisExecutor;
+        if (!StringUtils.isEmpty(id)) {
+            this.id = id;
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.warmupPeriod = warmupPeriod;
+        this.coldFactor = coldFactor;
+        this.permitsPerSecondArg = String.valueOf(permitsPerSecond);
+        this.warmupPeriodMicrosArg = String.valueOf(warmupPeriod.toNanos() / 1000);
+        this.coldFactorArg = String.valueOf(coldFactor);
+
+        if (!lazyInit) {
+            init();
+        }
+    }
+
+    @Override
+    public double acquire() {
+        return acquire(1);
+    }
+
+    /**
+     * 阻塞式获取令牌
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     */
+    public double acquire(int permits) {
+        long microsToWait = reserve(permits, null);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
+
+        return 1.0 * microsToWait / SECONDS.toMicros(1L);
+    }
+
+    @Override
+    public double acquireInterruptibly() throws InterruptedException {
+        return acquireInterruptibly(1);
+    }
+
+    /**
+     * 阻塞式获取令牌, 等待期间响应中断
+     *
+     * @return time spent sleeping to enforce rate, in seconds; 0.0 if not rate-limited
+     * @throws InterruptedException 被中断; 已预留的令牌不退还
+     */
+    public double acquireInterruptibly(int permits) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long microsToWait = reserve(permits, null);
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        MICROSECONDS.sleep(microsToWait);
+
+        return 1.0 * microsToWait / SECONDS.toMicros(1L);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        return tryAcquire(1, timeout);
+    }
+
+    public boolean tryAcquire(int permits) {
+        return tryAcquire(permits, Duration.ZERO);
+    }
+
+    /**
+     * 非阻塞式获取
+     * <p>
+     * 同 guava: 超时内等不到则不预留, 返回 false.
+     *
+     * @param permits
+     * @param timeout
+     * @return
+     */
+    public boolean tryAcquire(int permits, Duration timeout) {
+        long timeoutMicros = max(timeout.toNanos() / 1000, 0);
+        long microsToWait = reserve(permits, String.valueOf(timeoutMicros));
+        if (microsToWait < 0) {
+            recorder.rejected();
+            return false;
+        }
+        recorder.permitted();
+        recorder.waited(MICROSECONDS.toNanos(microsToWait));
+        SleepUtil.sleepUninterruptibly(microsToWait, MICROSECONDS);
+
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    public CompletableFuture<Double> acquireAsync(int permits) {
+        return DelayScheduler.call(() -> reserveAsync(permits, null)
+                .thenCompose(microsToWait -> {
+                    recorder.permitted();
+                    recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                    return DelayScheduler.delay(1.0 * microsToWait / SECONDS.toMicros(1L), microsToWait, MICROSECONDS);
+                }));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        return tryAcquireAsync(1, timeout);
+    }
+
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, Duration timeout) {
+        return DelayScheduler.call(() -> {
+            long timeoutMicros = max(timeout.toNanos() / 1000, 0);
+            return reserveAsync(permits, String.valueOf(timeoutMicros)).thenCompose(microsToWait -> {
+                if (microsToWait < 0) {
+                    recorder.rejected();
+                    return CompletableFuture.completedFuture(false);
+                }
+                recorder.permitted();
+                recorder.waited(MICROSECONDS.toNanos(microsToWait));
+                return DelayScheduler.delay(true, microsToWait, MICROSECONDS);
+            });
+        });
+    }
+
+    /**
+     * @param timeoutMicros null 时一定预留
+     * @return 需要睡眠的微秒数; 超时内等不到时 -1
+     */
+    private long reserve(int permits, String timeoutMicros) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+
+        long start = System.nanoTime();
+        Object res = redisExecutor.eval(smoothWarmingUpReserveScript,
+                Collections.singletonList(this.id),
+                reserveArgs(permits, timeoutMicros));
+        recorder.redis(System.nanoTime() - start);
+        if (res == null) {
+            throw new RuntimeException("eval SmoothWarmingUpReserveScript return null, rate limit fail");
+        }
+        return (Long) res;
+    }
+
+    private CompletableFuture<Long> reserveAsync(int permits, String timeoutMicros) {
+        Assert.isTrue(permits > 0, "Requested permits must be positive");
+
+        return redisExecutor.evalAsync(smoothWarmingUpReserveScript,
+                Collections.singletonList(this.id),
+                reserveArgs(permits, timeoutMicros))
+                .thenApply(res -> {
+                    if (res == null) {
+                        throw new RuntimeException("eval SmoothWarmingUpReserveScript return null, rate limit fail");
+                    }
+                    return (Long) res;
+                });
+    }
+
+    private List<String> reserveArgs(int permits, String timeoutMicros) {
+        return timeoutMicros == null
+                ? Arrays.asList(String.valueOf(permits), permitsPerSecondArg, warmupPeriodMicrosArg, coldFactorArg)
+                : Arrays.asList(String.valueOf(permits), permitsPerSecondArg, warmupPeriodMicrosArg, coldFactorArg, timeoutMicros);
+    }
+
+    /**
+     * 初始化 redis 限流器元数据, 重置为冷状态. 同 {@link SmoothBurstyRateLimiter} , 在 new 时都再次初始化.
+     */
+    private void init() {
+        Object res = redisExecutor.eval(smoothWarmingUpInitScript,
+                Collections.singletonList(this.id),
+                Arrays.asList(permitsPerSecondArg, warmupPeriodMicrosArg, coldFactorArg));
+
+        if (res == null || (Long) res != 1) {
+            throw new RuntimeException("Init SmoothWarmingUpRateLimiter fail. id: " + this.id);
+        }
+
+        // 设置较长的 ttl
+        redisExecutor.expire(this.id, RATE_LIMITER_INFO_KEY_TTL);
+
+        log.info("SmoothWarmingUpRateLimiter init finished.");
+    }
+
+    /**
+     * 销毁: 删除 redis key
+     */
+    public void destroy() {
+        redisExecutor.del(this.id);
+    }
+
+    /**
+     * 开启指标记录, 以 id 作为限流器 id
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.recorder = metrics.limiter("smooth_warming_up", this.id);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public Duration getWarmupPeriod() {
+        return warmupPeriod;
+    }
+
+    public double getColdFactor() {
+        return coldFactor;
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.ShardedRedisExecutor;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * 把一个热点全局限流器拆成 N 个子桶, 各子桶额度之和等于全局额度, 子桶的 key 分散到不同 slot / 分片.
+ * <p>
+ * 单个 key 只能落在一个 redis 节点, 全局限流器的吞吐受限于该节点; 拆成子桶后由 N 个节点分担.
+ * 每次随机选一个子桶; tryAcquire 被拒时再试下一个子桶, 减少因子桶间负载不均导致的少放.
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 子桶 id 为 <code>id#i</code>. 对 {@link ShardedRedisExecutor}, 选取的后缀使子桶轮流落在各分片上; 对 redis cluster, 按 slot 自然分散.<br/>
+ * 2> 每个子桶的突发上限也是全局的 1/N, 负载极不均匀时整体可能略少放.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:55
+ */
+public class StripedRateLimiter implements RateLimiter {
+
+    private final List<RateLimiter> stripes;
+
+    public StripedRateLimiter(List<? extends RateLimiter> stripes) {
+        Assert.notEmpty(stripes, "`stripes` is empty");
+        this.stripes = new ArrayList<>(stripes);
+    }
+
+    /**
+     * 每个子桶一个 {@link SmoothBurstyRateLimiter} (lazyInit), 速率 permitsPerSecond / stripes
+     */
+    public static StripedRateLimiter smoothBursty(RedisExecutor redisExecutor, String id, double permitsPerSecond, int stripes) {
+        List<String> ids = stripeIds(redisExecutor, id, stripes);
+        return build(stripes, i -> new SmoothBurstyRateLimiter(redisExecutor, ids.get(i), permitsPerSecond / stripes, true));
+    }
+
+    /**
+     * 每个子桶一个 {@link GcraRateLimiter}, 速率 permitsPerSecond / stripes
+     */
+    public static StripedRateLimiter gcra(RedisExecutor redisExecutor, String id, double permitsPerSecond, int stripes) {
+        List<String> ids = stripeIds(redisExecutor, id, stripes);
+        return build(stripes, i -> new GcraRateLimiter(redisExecutor, ids.get(i), permitsPerSecond / stripes));
+    }
+
+    /**
+     * 每个子桶一个 {@link FixWindowRateLimiter}, 上限 limit / stripes, 余数分给前几个子桶
+     */
+    public static StripedRateLimiter fixWindow(RedisExecutor redisExecutor, String keyPrefix, int limit, Duration window, int stripes) {
+        Assert.isTrue(limit >= stripes, "`limit` must not less then `stripes`");
+        List<String> ids = stripeIds(redisExecutor, keyPrefix, stripes);
+        return build(stripes, i -> new FixWindowRateLimiter(redisExecutor, ids.get(i), limit / stripes + (i < limit % stripes ? 1 : 0), window));
+    }
+
+    private static StripedRateLimiter build(int stripes, IntFunction<RateLimiter> factory) {
+        Assert.isTrue(stripes > 0, "`stripes` must greater then 0");
+        List<RateLimiter> limiters = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            limiters.add(factory.apply(i));
+        }
+        return new StripedRateLimiter(limiters);
+    }
+
+    /**
+     * 子桶 id. 对 {@link ShardedRedisExecutor} 挑选后缀, 使第 i 个子桶落在第 i % 分片数 个分片上
+     */
+    static List<String> stripeIds(RedisExecutor redisExecutor, String id, int stripes) {
+        List<String> ids = new ArrayList<>(stripes);
+        if (!(redisExecutor instanceof ShardedRedisExecutor)) {
+            for (int i = 0; i < stripes; i++) {
+                ids.add(id + "#" + i);
+            }
+            return ids;
+        }
+        ShardedRedisExecutor sharded = (ShardedRedisExecutor) redisExecutor;
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < stripes; i++) {
+            int target = i % sharded.getShardCount();
+            for (int suffix = 0; ; suffix++) {
+                String candidate = id + "#" + suffix;
+                if (!used.contains(suffix) && sharded.shardIndex(candidate) == target) {
+                    used.add(suffix);
+                    ids.add(candidate);
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public double acquire() {
+        return stripes.get(pick()).acquire();
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        int i = pick();
+        return stripes.get(i).tryAcquire() || (stripes.size() > 1 && stripes.get(next(i)).tryAcquire());
+    }
+
+    @Override
+    public boolean tryAcquire(Duration timeout) {
+        int i = pick();
+        if (stripes.size() > 1 && stripes.get(i).tryAcquire()) {
+            return true;
+        }
+        return stripes.get(next(i)).tryAcquire(timeout);
+    }
+
+    @Override
+    public CompletableFuture<Double> acquireAsync() {
+        return stripes.get(pick()).acquireAsync();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquireAsync(Duration timeout) {
+        int i = pick();
+        if (stripes.size() == 1) {
+            return stripes.get(i).tryAcquireAsync(timeout);
+        }
+        return stripes.get(i).tryAcquireAsync(Duration.ZERO)
+                .thenCompose(acquired -> acquired ? CompletableFuture.completedFuture(true) : stripes.get(next(i)).tryAcquireAsync(timeout));
+    }
+
+    private int pick() {
+        return ThreadLocalRandom.current().nextInt(stripes.size());
+    }
+
+    private int next(int i) {
+        return i + 1 == stripes.size() ? 0 : i + 1;
+    }
+
+    public List<RateLimiter> getStripes() {
+        return stripes;
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 以 {@link CircuitBreaker} 包装另一个 executor.
+ * <p>
+ * 每次调用的异常和耗时报告给熔断器; 断开时不访问 redis, 直接抛 {@link RedisUnavailableException} (异步方法返回以此失败的 future),
+ * 由 {@link com.wtgroup.ratelimiter.core.ResilientRateLimiter} 按降级模式处理.
+ * <p>
+ * 单次调用的等待上限仍由客户端的 socket / 命令超时决定 (spring.redis.timeout), 延迟预算只决定慢调用是否计为失败.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 21:25
+ */
+public class CircuitBreakerRedisExecutor implements RedisExecutor {
+
+    private final RedisExecutor delegate;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakerRedisExecutor(RedisExecutor delegate, CircuitBreaker breaker) {
+        Assert.notNull(delegate, "`delegate` is null");
+        Assert.notNull(breaker, "`breaker` is null");
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        permit();
+        long start = System.nanoTime();
+        Object res;
+        try {
+            res = delegate.eval(script, keys, args);
+        } catch (RuntimeException e) {
+            breaker.onFailure(e);
+            throw e;
+        }
+        breaker.onSuccess(System.nanoTime() - start);
+        return res;
+    }
+
+    @Override
+    public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+        permit();
+        long start = System.nanoTime();
+        long res;
+        try {
+            res = delegate.evalLong(script, keyCount, params);
+        } catch (RuntimeException e) {
+            breaker.onFailure(e);
+            throw e;
+        }
+        breaker.onSuccess(System.nanoTime() - start);
+        return res;
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        return async(() -> delegate.evalAsync(script, keys, args));
+    }
+
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        return sync(() -> delegate.evalBatch(script, keyCount, params));
+    }
+
+    @Override
+    public boolean isHashTagRequired() {
+        return delegate.isHashTagRequired();
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return sync(() -> delegate.hget(key, field));
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        return async(() -> delegate.hgetAsync(key, field));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return sync(() -> delegate.hgetAll(key));
+    }
+
+    @Override
+    public String get(String key) {
+        return sync(() -> delegate.get(key));
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        sync(() -> {
+            delegate.expire(key, seconds);
+            return null;
+        });
+    }
+
+    @Override
+    public void del(String key) {
+        sync(() -> {
+            delegate.del(key);
+            return null;
+        });
+    }
+
+    private void permit() {
+        if (!breaker.tryAcquirePermission()) {
+            throw new RedisUnavailableException(breaker.getName());
+        }
+    }
+
+    private <T> T sync(Supplier<T> call) {
+        permit();
+        long start = System.nanoTime();
+        T res;
+        try {
+            res = call.get();
+        } catch (RuntimeException e) {
+            breaker.onFailure(e);
+            throw e;
+        }
+        breaker.onSuccess(System.nanoTime() - start);
+        return res;
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<CompletableFuture<T>> call) {
+        if (!breaker.tryAcquirePermission()) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new RedisUnavailableException(breaker.getName()));
+            return future;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            breaker.onFailure(e);
+            throw e;
+        }
+        return future.whenComplete((res, ex) -> {
+            if (ex == null) {
+                breaker.onSuccess(System.nanoTime() - start);
+            } else {
+                breaker.onFailure(ex);
+            }
+        });
+    }
+
+    public RedisExecutor getDelegate() {
+        return delegate;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+}
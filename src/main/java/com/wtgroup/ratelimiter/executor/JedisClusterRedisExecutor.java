@@ -0,0 +1,111 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import org.springframework.util.Assert;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于 {@link JedisCluster}, 按 key 的 slot 路由到对应主节点, 阻塞式.
+ * <p>
+ * 脚本的各 key 须在同一 slot, 限流器的多 key 布局都已带 hash tag ({@link com.wtgroup.ratelimiter.util.KeyUtil}).
+ * jedis cluster 不支持 pipeline, {@link #evalBatch} 逐条执行.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:45
+ */
+public class JedisClusterRedisExecutor implements RedisExecutor {
+
+    private final JedisCluster jedisCluster;
+
+    public JedisClusterRedisExecutor(JedisCluster jedisCluster) {
+        Assert.notNull(jedisCluster, "`jedisCluster` is null");
+        this.jedisCluster = jedisCluster;
+    }
+
+    /**
+     * 以 EVALSHA 执行, NOSCRIPT (新节点/故障转移后) 时在 key 所在节点 SCRIPT LOAD 后重试一次.
+     */
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        Assert.notEmpty(keys, "Cluster script needs at least one key");
+        try {
+            return jedisCluster.evalsha(script.getSha1(), keys, args);
+        } catch (JedisNoScriptException e) {
+            jedisCluster.scriptLoad(script.getScriptAsString(), keys.get(0));
+            return jedisCluster.evalsha(script.getSha1(), keys, args);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(eval(script, keys, args));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        Object[] results = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            List<String> param = Arrays.asList(params[i]);
+            results[i] = eval(script, param.subList(0, keyCount), param.subList(keyCount, param.size()));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isHashTagRequired() {
+        return true;
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return jedisCluster.hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            future.complete(hget(key, field));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return jedisCluster.hgetAll(key);
+    }
+
+    @Override
+    public String get(String key) {
+        return jedisCluster.get(key);
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        jedisCluster.expire(key, seconds);
+    }
+
+    @Override
+    public void del(String key) {
+        jedisCluster.del(key);
+    }
+
+    public JedisCluster getJedisCluster() {
+        return jedisCluster;
+    }
+}
@@ -0,0 +1,278 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.metrics.RateLimiterMetrics;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 基于 jedis 连接池, 每次调用借还一个连接, 阻塞式.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 14:35
+ */
+public class JedisRedisExecutor implements RedisExecutor {
+
+    private final JedisPool jedisPool;
+    private RateLimiterMetrics metrics = RateLimiterMetrics.NOOP;
+    private Semaphore borrowGate;
+    private boolean hashTagKeys;
+
+    public JedisRedisExecutor(JedisPool jedisPool) {
+        Assert.notNull(jedisPool, "`jedisPool` is null");
+        this.jedisPool = jedisPool;
+    }
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        Jedis jedis = borrow();
+        try {
+            return ScriptUtil.evalsha(jedis, script, keys, args);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+        Jedis jedis = borrow();
+        try {
+            return ScriptUtil.evalshaLong(jedis, script, keyCount, params);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(eval(script, keys, args));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 以 pipeline 发送, 有条目 NOSCRIPT 时 SCRIPT LOAD 后只重发这些条目.
+     */
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        Object[] results = new Object[params.length];
+        if (params.length == 0) {
+            return results;
+        }
+        // 用二进制 evalsha, String 版本的 pipeline evalsha 只能返回字符串
+        byte[] sha1 = SafeEncoder.encode(script.getSha1());
+        Jedis jedis = borrow();
+        try {
+            if (pipelineEvalsha(jedis, sha1, keyCount, params, results)) {
+                jedis.scriptLoad(script.getScriptAsString());
+                pipelineEvalsha(jedis, sha1, keyCount, params, results);
+            }
+        } finally {
+            giveBack(jedis);
+        }
+        return results;
+    }
+
+    /**
+     * 只发送 results 中尚无结果的条目
+     *
+     * @return 是否有条目 NOSCRIPT
+     */
+    private boolean pipelineEvalsha(Jedis jedis, byte[] sha1, int keyCount, String[][] params, Object[] results) {
+        Pipeline pipeline = jedis.pipelined();
+        Response<?>[] responses = new Response<?>[params.length];
+        for (int i = 0; i < params.length; i++) {
+            if (results[i] == null) {
+                responses[i] = pipeline.evalsha(sha1, keyCount, SafeEncoder.encodeMany(params[i]));
+            }
+        }
+        pipeline.sync();
+
+        boolean noScript = false;
+        for (int i = 0; i < responses.length; i++) {
+            if (responses[i] == null) {
+                continue;
+            }
+            try {
+                results[i] = responses[i].get();
+            } catch (JedisNoScriptException e) {
+                noScript = true;
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                    throw e;
+                }
+                noScript = true;
+            }
+        }
+        return noScript;
+    }
+
+    @Override
+    public boolean isHashTagRequired() {
+        return hashTagKeys;
+    }
+
+    /**
+     * 单机也使用带 hash tag 的 key ({keyPrefix}:窗口序号), 日后迁到 cluster / 分片时 key 不变. 默认 false, 沿用此前的 key.
+     *
+     * @param hashTagKeys
+     */
+    public void setHashTagKeys(boolean hashTagKeys) {
+        this.hashTagKeys = hashTagKeys;
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        Jedis jedis = borrow();
+        try {
+            return jedis.hget(key, field);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            future.complete(hget(key, field));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        Jedis jedis = borrow();
+        try {
+            return jedis.hgetAll(key);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        Jedis jedis = borrow();
+        try {
+            return jedis.get(key);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        Jedis jedis = borrow();
+        try {
+            jedis.expire(key, seconds);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    @Override
+    public void del(String key) {
+        Jedis jedis = borrow();
+        try {
+            jedis.del(key);
+        } finally {
+            giveBack(jedis);
+        }
+    }
+
+    private Jedis borrow() {
+        long start = System.nanoTime();
+        if (borrowGate != null) {
+            borrowGate.acquireUninterruptibly();
+        }
+        Jedis jedis;
+        try {
+            jedis = jedisPool.getResource();
+        } catch (RuntimeException e) {
+            if (borrowGate != null) {
+                borrowGate.release();
+            }
+            throw e;
+        }
+        metrics.poolBorrowed(System.nanoTime() - start);
+        return jedis;
+    }
+
+    private void giveBack(Jedis jedis) {
+        try {
+            jedis.close();
+        } finally {
+            if (borrowGate != null) {
+                borrowGate.release();
+            }
+        }
+    }
+
+    /**
+     * 借连接前先取信号量, 持有到归还连接. permits 取连接池的 maxTotal, 则进入连接池的线程都能立即拿到 (或新建) 连接.
+     * <p>
+     * 供虚拟线程使用: commons-pool2 新建连接时在 synchronized 块中 Object.wait, 大量虚拟线程在此等待会钉住 (pin) 载体线程;
+     * 改为在 {@link Semaphore} 上排队, 等待时卸载虚拟线程. 等待不响应中断, 中断标记保留.
+     *
+     * @param permits 同时借出的连接数上限, 取连接池的 maxTotal, 见 {@link #getPoolMaxTotal()}
+     */
+    public void setBorrowGate(int permits) {
+        Assert.isTrue(permits > 0, "`permits` must greater then 0");
+        this.borrowGate = new Semaphore(permits, true);
+    }
+
+    /**
+     * 记录借出连接的等待时长
+     *
+     * @param metrics
+     */
+    public void setMetrics(RateLimiterMetrics metrics) {
+        Assert.notNull(metrics, "`metrics` is null");
+        this.metrics = metrics;
+    }
+
+    public JedisPool getJedisPool() {
+        return jedisPool;
+    }
+
+    /**
+     * 连接池的 maxTotal, 用作 {@link #setBorrowGate(int)} 的 permits. jedis 没有公开, 从其内部的 commons-pool2 连接池读取.
+     *
+     * @return 连接池不限数量或读不到时为 -1
+     */
+    public int getPoolMaxTotal() {
+        Field field = ReflectionUtils.findField(Pool.class, "internalPool");
+        if (field == null) {
+            return -1;
+        }
+        ReflectionUtils.makeAccessible(field);
+        Object pool = ReflectionUtils.getField(field, jedisPool);
+        if (!(pool instanceof GenericObjectPool)) {
+            return -1;
+        }
+        return Math.max(-1, ((GenericObjectPool<?>) pool).getMaxTotal());
+    }
+}
@@ -0,0 +1,146 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 基于 lettuce 单连接多路复用.
+ * <p>
+ * 所有调用方共用一个连接, 并发的命令在同一连接上自动流水线发送, 没有连接池借还.
+ * 同步方法只是对异步结果的等待.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 14:40
+ */
+public class LettuceRedisExecutor implements RedisExecutor {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final StatefulRedisConnection<String, String> connection;
+    private boolean hashTagKeys;
+
+    public LettuceRedisExecutor(StatefulRedisConnection<String, String> connection) {
+        Assert.notNull(connection, "`connection` is null");
+        this.connection = connection;
+    }
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        return join(evalAsync(script, keys, args));
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        return evalAsync(script, keys.toArray(EMPTY), args.toArray(EMPTY));
+    }
+
+    /**
+     * 连续发出各条目的异步调用, 在连接上自然流水线, 再逐个等待结果.
+     */
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[params.length];
+        for (int i = 0; i < params.length; i++) {
+            String[] p = params[i];
+            futures[i] = evalAsync(script, Arrays.copyOfRange(p, 0, keyCount), Arrays.copyOfRange(p, keyCount, p.length));
+        }
+        Object[] results = new Object[params.length];
+        for (int i = 0; i < futures.length; i++) {
+            results[i] = join(futures[i]);
+        }
+        return results;
+    }
+
+    private CompletableFuture<Object> evalAsync(RedisScript script, String[] keyArr, String[] argArr) {
+        RedisAsyncCommands<String, String> async = connection.async();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        async.<Object>evalsha(script.getSha1(), ScriptOutputType.INTEGER, keyArr, argArr).whenComplete((res, ex) -> {
+            if (ex == null) {
+                future.complete(res);
+            } else if (unwrap(ex) instanceof RedisNoScriptException) {
+                // redis 重启/切换后脚本缓存丢失, EVAL 一次即重新缓存
+                async.<Object>eval(script.getScriptAsString(), ScriptOutputType.INTEGER, keyArr, argArr).whenComplete((res2, ex2) -> {
+                    if (ex2 == null) {
+                        future.complete(res2);
+                    } else {
+                        future.completeExceptionally(unwrap(ex2));
+                    }
+                });
+            } else {
+                future.completeExceptionally(unwrap(ex));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public boolean isHashTagRequired() {
+        return hashTagKeys;
+    }
+
+    /**
+     * 单机也使用带 hash tag 的 key ({keyPrefix}:窗口序号), 日后迁到 cluster / 分片时 key 不变. 默认 false, 沿用此前的 key.
+     *
+     * @param hashTagKeys
+     */
+    public void setHashTagKeys(boolean hashTagKeys) {
+        this.hashTagKeys = hashTagKeys;
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return connection.sync().hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        return connection.async().hget(key, field).toCompletableFuture();
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return connection.sync().hgetall(key);
+    }
+
+    @Override
+    public String get(String key) {
+        return connection.sync().get(key);
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        connection.sync().expire(key, seconds);
+    }
+
+    @Override
+    public void del(String key) {
+        connection.sync().del(key);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+}
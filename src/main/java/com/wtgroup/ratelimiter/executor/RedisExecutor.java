@@ -0,0 +1,104 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 限流器访问 redis 的统一入口
+ * <p>
+ * 限流器只依赖此接口, 不关心底层是 jedis 连接池还是 lettuce 多路复用连接.
+ * 脚本一律以 EVALSHA 执行, NOSCRIPT 时由实现负责重新加载.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 14:30
+ */
+public interface RedisExecutor {
+
+    /**
+     * 执行脚本
+     *
+     * @param script
+     * @param keys
+     * @param args
+     * @return 脚本返回值
+     */
+    Object eval(RedisScript script, List<String> keys, List<String> args);
+
+    /**
+     * 以预编码的二进制参数执行返回整数的脚本.
+     * <p>
+     * 限流热路径专用: 调用方缓存 key / arg 的 byte[] 与 params 数组, 不必每次拼接 String, 包装 List, 拆箱 Long.
+     * 缺省解码为 String 走 {@link #eval}.
+     *
+     * @param script
+     * @param keyCount params 中前 keyCount 个为 key, 其余为 arg
+     * @param params   只读, 调用方可跨调用复用
+     * @return 脚本返回值
+     */
+    default long evalLong(RedisScript script, int keyCount, byte[][] params) {
+        List<String> keys = new ArrayList<>(keyCount);
+        List<String> args = new ArrayList<>(params.length - keyCount);
+        for (int i = 0; i < params.length; i++) {
+            (i < keyCount ? keys : args).add(new String(params[i], StandardCharsets.UTF_8));
+        }
+        Object res = eval(script, keys, args);
+        if (res == null) {
+            throw new RuntimeException("eval " + script.getClass().getSimpleName() + " return null");
+        }
+        return (Long) res;
+    }
+
+    /**
+     * 异步执行脚本.
+     * <p>
+     * 不支持异步的实现, 同步执行后返回已完成的 future.
+     *
+     * @param script
+     * @param keys
+     * @param args
+     * @return
+     */
+    CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args);
+
+    /**
+     * 批量执行同一脚本, 一次往返.
+     * <p>
+     * 各条目相互独立, 不保证原子性, 返回值与 params 一一对应.
+     *
+     * @param script
+     * @param keyCount 每个条目中 key 的个数
+     * @param params   每个条目的 keys 后接 args
+     * @return 各条目的脚本返回值
+     */
+    Object[] evalBatch(RedisScript script, int keyCount, String[][] params);
+
+    /**
+     * 多 key 脚本的各 key 是否需要带相同的 hash tag 才能执行 (redis cluster / 客户端分片).
+     * <p>
+     * 为 false 时限流器沿用不带 hash tag 的 key (keyPrefix:窗口序号), 与此前单机部署的 key 兼容.
+     *
+     * @return
+     */
+    default boolean isHashTagRequired() {
+        return false;
+    }
+
+    String hget(String key, String field);
+
+    CompletableFuture<String> hgetAsync(String key, String field);
+
+    Map<String, String> hgetAll(String key);
+
+    String get(String key);
+
+    void expire(String key, int seconds);
+
+    void del(String key);
+
+}
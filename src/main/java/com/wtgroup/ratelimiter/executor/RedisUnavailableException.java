@@ -0,0 +1,16 @@
+package com.wtgroup.ratelimiter.executor;
+
+/**
+ * 熔断器断开, 调用未发往 redis
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 21:25
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+    public RedisUnavailableException(String breaker) {
+        super("Redis unavailable, circuit breaker " + breaker + " is open", null, false, false);
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.KeyUtil;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 客户端一致性哈希分片: 把 key 分散到多个独立的 redis 节点 (各自一个 {@link RedisExecutor}).
+ * <p>
+ * 按 key 的 hash tag ({@link KeyUtil#hashTagOf(String)}) 选分片, 规则同 redis cluster 的 slot, 所以带相同 hash tag 的多 key 脚本落在同一节点.
+ * 每个分片在环上有 {@value #VIRTUAL_NODES} 个虚拟节点, 增减分片时只有约 1/N 的 key 换节点 (换节点的限流器从满令牌/空窗口重新开始).
+ *
+ * <p>
+ * Note:<br/>
+ * 1> 分片以名字定位, 同一套分片各客户端须使用相同的名字, 与顺序无关.<br/>
+ * 2> {@link #evalBatch} 按分片分组, 每组一次 {@link RedisExecutor#evalBatch}.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:50
+ */
+public class ShardedRedisExecutor implements RedisExecutor {
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private final List<String> names;
+    private final List<RedisExecutor> shards;
+    /**
+     * 环: 升序的虚拟节点 hash 及其对应的分片下标
+     */
+    private final int[] ring;
+    private final int[] ringShards;
+
+    /**
+     * @param shards 分片名 -> 分片
+     */
+    public ShardedRedisExecutor(Map<String, ? extends RedisExecutor> shards) {
+        Assert.notEmpty(shards, "`shards` is empty");
+        this.names = new ArrayList<>(shards.keySet());
+        this.shards = new ArrayList<>(shards.values());
+
+        long[] points = new long[shards.size() * VIRTUAL_NODES];
+        int n = 0;
+        for (int s = 0; s < names.size(); s++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                // 高 32 位放 hash (有符号比较即可), 低 32 位放分片下标
+                points[n++] = ((long) hash(names.get(s) + "#" + v) << 32) | s;
+            }
+        }
+        Arrays.sort(points);
+        this.ring = new int[points.length];
+        this.ringShards = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ring[i] = (int) (points[i] >> 32);
+            ringShards[i] = (int) points[i];
+        }
+    }
+
+    /**
+     * 以 "shard-0", "shard-1" ... 命名
+     */
+    public static ShardedRedisExecutor of(List<? extends RedisExecutor> shards) {
+        Map<String, RedisExecutor> named = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            named.put("shard-" + i, shards.get(i));
+        }
+        return new ShardedRedisExecutor(named);
+    }
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        return route(keys.get(0)).eval(script, keys, args);
+    }
+
+    @Override
+    public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+        return route(new String(params[0], StandardCharsets.UTF_8)).evalLong(script, keyCount, params);
+    }
+
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        return route(keys.get(0)).evalAsync(script, keys, args);
+    }
+
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        Object[] results = new Object[params.length];
+        if (params.length == 0) {
+            return results;
+        }
+        // 按分片分组, 记下各条目在原数组中的位置
+        List<List<Integer>> groups = new ArrayList<>(shards.size());
+        for (int s = 0; s < shards.size(); s++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < params.length; i++) {
+            groups.get(shardIndex(params[i][0])).add(i);
+        }
+        for (int s = 0; s < shards.size(); s++) {
+            List<Integer> group = groups.get(s);
+            if (group.isEmpty()) {
+                continue;
+            }
+            String[][] shardParams = new String[group.size()][];
+            for (int j = 0; j < group.size(); j++) {
+                shardParams[j] = params[group.get(j)];
+            }
+            Object[] shardResults = shards.get(s).evalBatch(script, keyCount, shardParams);
+            for (int j = 0; j < group.size(); j++) {
+                results[group.get(j)] = shardResults[j];
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isHashTagRequired() {
+        return true;
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return route(key).hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        return route(key).hgetAsync(key, field);
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return route(key).hgetAll(key);
+    }
+
+    @Override
+    public String get(String key) {
+        return route(key).get(key);
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+        route(key).expire(key, seconds);
+    }
+
+    @Override
+    public void del(String key) {
+        route(key).del(key);
+    }
+
+    /**
+     * key 所在分片
+     */
+    public RedisExecutor route(String key) {
+        return shards.get(shardIndex(key));
+    }
+
+    /**
+     * key 所在分片的下标, 与构造时的顺序一致
+     */
+    public int shardIndex(String key) {
+        int h = hash(KeyUtil.hashTagOf(key));
+        int i = Arrays.binarySearch(ring, h);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        // 超过最大的虚拟节点, 绕回环首
+        return ringShards[i == ring.length ? 0 : i];
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<String> getShardNames() {
+        return names;
+    }
+
+    /**
+     * FNV-1a + murmur3 fmix32, 分布均匀且不分配对象
+     */
+    private static int hash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+}
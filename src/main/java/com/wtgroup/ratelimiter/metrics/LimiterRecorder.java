@@ -0,0 +1,59 @@
+package com.wtgroup.ratelimiter.metrics;
+
+/**
+ * 单个限流器的指标记录
+ * <p>
+ * 限流器创建时取得, 指标在此时预先注册好, 热路径上只做计数, 不分配对象.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:10
+ */
+public interface LimiterRecorder {
+
+    /**
+     * 不记录, 限流器的缺省值
+     */
+    LimiterRecorder NOOP = new LimiterRecorder() {
+        @Override
+        public void permitted() {
+        }
+
+        @Override
+        public void rejected() {
+        }
+
+        @Override
+        public void waited(long nanos) {
+        }
+
+        @Override
+        public void redis(long nanos) {
+        }
+    };
+
+    /**
+     * 获取成功
+     */
+    void permitted();
+
+    /**
+     * 获取失败 (tryAcquire 超时内拿不到)
+     */
+    void rejected();
+
+    /**
+     * 获取成功前等待的时长
+     *
+     * @param nanos
+     */
+    void waited(long nanos);
+
+    /**
+     * 一次 redis 往返耗时
+     *
+     * @param nanos
+     */
+    void redis(long nanos);
+
+}
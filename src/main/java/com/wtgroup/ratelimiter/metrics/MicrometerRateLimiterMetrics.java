@@ -0,0 +1,113 @@
+package com.wtgroup.ratelimiter.metrics;
+
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 micrometer 的限流指标
+ * <p>
+ * 指标:<br/>
+ * ratelimiter.requests{type, id, result=permitted|rejected} 计数<br/>
+ * ratelimiter.wait{type, id} 获取成功前的等待时长, 带直方图<br/>
+ * ratelimiter.redis{type, id} redis 往返耗时<br/>
+ * ratelimiter.pool.borrow jedis 连接池借出连接的等待时长<br/>
+ * ratelimiter.breaker.state{name} 熔断器状态, 0 关闭 1 断开 2 半开<br/>
+ * ratelimiter.breaker.calls{name, result=failed|slow|not_permitted} 熔断器记录的失败, 慢调用, 断开时拒绝的调用
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:20
+ */
+public class MicrometerRateLimiterMetrics implements RateLimiterMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer poolBorrow;
+
+    public MicrometerRateLimiterMetrics(MeterRegistry registry) {
+        Assert.notNull(registry, "`registry` is null");
+        this.registry = registry;
+        this.poolBorrow = Timer.builder("ratelimiter.pool.borrow")
+                .description("Time waiting to borrow a redis connection from the pool")
+                .register(registry);
+    }
+
+    @Override
+    public LimiterRecorder limiter(String type, String id) {
+        return new MicrometerLimiterRecorder(registry, type, id);
+    }
+
+    @Override
+    public void poolBorrowed(long nanos) {
+        poolBorrow.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void circuitBreaker(CircuitBreaker breaker) {
+        Gauge.builder("ratelimiter.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half open")
+                .tags("name", breaker.getName())
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.breaker.calls", breaker, CircuitBreaker::getFailures)
+                .tags("name", breaker.getName(), "result", "failed")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.breaker.calls", breaker, CircuitBreaker::getSlowCalls)
+                .tags("name", breaker.getName(), "result", "slow")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.breaker.calls", breaker, CircuitBreaker::getNotPermitted)
+                .tags("name", breaker.getName(), "result", "not_permitted")
+                .register(registry);
+    }
+
+    private static final class MicrometerLimiterRecorder implements LimiterRecorder {
+        private final Counter permitted;
+        private final Counter rejected;
+        private final Timer wait;
+        private final Timer redis;
+
+        MicrometerLimiterRecorder(MeterRegistry registry, String type, String id) {
+            this.permitted = Counter.builder("ratelimiter.requests")
+                    .tags("type", type, "id", id, "result", "permitted")
+                    .register(registry);
+            this.rejected = Counter.builder("ratelimiter.requests")
+                    .tags("type", type, "id", id, "result", "rejected")
+                    .register(registry);
+            this.wait = Timer.builder("ratelimiter.wait")
+                    .description("Time spent waiting for permits")
+                    .tags("type", type, "id", id)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.redis = Timer.builder("ratelimiter.redis")
+                    .description("Redis round trip of rate limiter scripts")
+                    .tags("type", type, "id", id)
+                    .register(registry);
+        }
+
+        @Override
+        public void permitted() {
+            permitted.increment();
+        }
+
+        @Override
+        public void rejected() {
+            rejected.increment();
+        }
+
+        @Override
+        public void waited(long nanos) {
+            wait.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void redis(long nanos) {
+            redis.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.wtgroup.ratelimiter.metrics;
+
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+
+/**
+ * 限流指标的入口
+ * <p>
+ * 不依赖具体的指标库, 缺省 {@link #NOOP}, 有 micrometer 时见 {@link MicrometerRateLimiterMetrics}.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:10
+ */
+public interface RateLimiterMetrics {
+
+    RateLimiterMetrics NOOP = new RateLimiterMetrics() {
+        @Override
+        public LimiterRecorder limiter(String type, String id) {
+            return LimiterRecorder.NOOP;
+        }
+
+        @Override
+        public void poolBorrowed(long nanos) {
+        }
+    };
+
+    /**
+     * 取得一个限流器的指标记录, 限流器创建时调用一次
+     *
+     * @param type 限流器类型, 如 fix_window
+     * @param id   限流器 id / key 前缀
+     * @return
+     */
+    LimiterRecorder limiter(String type, String id);
+
+    /**
+     * 从连接池借出连接的等待时长
+     *
+     * @param nanos
+     */
+    void poolBorrowed(long nanos);
+
+    /**
+     * 注册熔断器的指标, 熔断器创建时调用一次
+     *
+     * @param breaker
+     */
+    default void circuitBreaker(CircuitBreaker breaker) {
+    }
+
+}
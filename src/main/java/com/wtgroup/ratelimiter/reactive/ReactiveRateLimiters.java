@@ -0,0 +1,45 @@
+package com.wtgroup.ratelimiter.reactive;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 面向 WebFlux 的 Reactor 适配
+ * <p>
+ * 基于限流器的异步 API, 订阅时才访问 redis. 配合 {@link com.wtgroup.ratelimiter.executor.LettuceRedisExecutor}
+ * 全程不阻塞.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 15:20
+ */
+public class ReactiveRateLimiters {
+
+    public static Mono<Boolean> tryAcquire(FixWindowRateLimiter rateLimiter) {
+        return tryAcquire(rateLimiter, Duration.ZERO);
+    }
+
+    public static Mono<Boolean> tryAcquire(FixWindowRateLimiter rateLimiter, Duration timeout) {
+        return Mono.defer(() -> Mono.fromFuture(rateLimiter.tryAcquireAsync(timeout)));
+    }
+
+    public static Mono<Double> acquire(FixWindowRateLimiter rateLimiter) {
+        return Mono.defer(() -> Mono.fromFuture(rateLimiter.acquireAsync()));
+    }
+
+    public static Mono<Boolean> tryAcquire(SmoothBurstyRateLimiter rateLimiter, int permits) {
+        return tryAcquire(rateLimiter, permits, Duration.ZERO);
+    }
+
+    public static Mono<Boolean> tryAcquire(SmoothBurstyRateLimiter rateLimiter, int permits, Duration timeout) {
+        return Mono.defer(() -> Mono.fromFuture(rateLimiter.tryAcquireAsync(permits, timeout)));
+    }
+
+    public static Mono<Double> acquire(SmoothBurstyRateLimiter rateLimiter, int permits) {
+        return Mono.defer(() -> Mono.fromFuture(rateLimiter.acquireAsync(permits)));
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 并发限流: 领取租约
+ * <p>
+ * KEYS[1] 有序集合, 成员为租约标识, score 为到期时间 (redis 时间, 微秒).<br/>
+ * ARGV[1] 并发上限, ARGV[2] 租期(微秒), ARGV[3] 申请数, ARGV[4] 占用低于此数时才多给 (供本地缓存), ARGV[5] 租约标识前缀.<br/>
+ * 先清掉已到期的租约 (崩溃节点未归还的), 未满时至少给 1 个; 第 1 个之外的只在占用低于 ARGV[4] 时给.
+ * 租约标识为 ARGV[5]:1 ~ ARGV[5]:n, 返回给出的个数 n, 满了返回 0.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 09:10
+ */
+public class ConcurrencyAcquireScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local max = tonumber(ARGV[1])\n" +
+            "local leaseMicros = tonumber(ARGV[2])\n" +
+            "local wanted = tonumber(ARGV[3])\n" +
+            "local extraBelow = tonumber(ARGV[4])\n" +
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', nowMicros)\n" +
+            "local count = redis.call('ZCARD', KEYS[1])\n" +
+            "if count >= max then\n" +
+            "    return 0\n" +
+            "end\n" +
+            "local granted = 1 + math.max(0, math.min(wanted - 1, extraBelow - count - 1))\n" +
+            "granted = math.min(granted, max - count)\n" +
+            "for i = 1, granted do\n" +
+            "    redis.call('ZADD', KEYS[1], nowMicros + leaseMicros, ARGV[5] .. ':' .. i)\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(leaseMicros / 1000))\n" +
+            "return granted";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,29 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 并发限流: 归还租约
+ * <p>
+ * KEYS[1] 有序集合, ARGV 为要归还的租约标识. 返回实际删除数, 已到期被回收的租约不计.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 09:15
+ */
+public class ConcurrencyReleaseScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "return redis.call('ZREM', KEYS[1], unpack(ARGV))";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,74 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 固定窗口公平排队: 按到达顺序分配准入窗口
+ * <p>
+ * KEYS[1] 队尾 key, 记录已排到的窗口序号; KEYS[2] 配置 key, 其中的 limit 字段覆盖 ARGV[1].<br/>
+ * ARGV[1] 上限, ARGV[2] 当前窗口序号, ARGV[3] 窗口毫秒数, ARGV[4] ttl 秒, ARGV[5] 窗口计数 key 前缀, ARGV[6] 申请数,
+ * ARGV[7] 最多排到当前窗口之后第几个窗口, ARGV[8] 最多等待到的时点, 相对当前窗口开始的毫秒数 (可选).<br/>
+ * 从队尾窗口 (不早于当前窗口) 起找第一个放得下申请数的窗口并计入其计数 (与 {@link FixWindowScript} 共用), 返回准入时点相对当前窗口开始的毫秒数:
+ * 当前窗口放得下为 0; 之后的窗口按在该窗口中的序位均匀错开, 等待者不在窗口边界同时醒来.
+ * 申请数超过上限时返回 -1; 排队超过 ARGV[7] 个窗口或等待超过 ARGV[8] 时不计入, 返回 -2. 查找最多读 ARGV[7] + 1 个窗口计数.
+ * <p>
+ * 注意: 各窗口的计数 key 由 ARGV[5] 拼出, 没有在 KEYS 中声明, 不符合 EVAL 的 key 约定.
+ * 单机与主从没有影响; cluster 下要求 ARGV[5] 与 KEYS 带相同 hash tag (落在同一 slot), 按 KEYS 做路由或 ACL 的代理 (如 key 级 ACL) 看不到这些 key.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 23:10
+ */
+public class FixWindowQueueScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local limit = tonumber(ARGV[1])\n" +
+            "local override = redis.call('HGET', KEYS[2], 'limit')\n" +
+            "if override then\n" +
+            "    limit = tonumber(override)\n" +
+            "end\n" +
+            "local permits = tonumber(ARGV[6])\n" +
+            "if limit < permits then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "local seq = tonumber(ARGV[2])\n" +
+            "local windowMs = tonumber(ARGV[3])\n" +
+            "local ttl = tonumber(ARGV[4])\n" +
+            "local prefix = ARGV[5]\n" +
+            "local maxDepth = tonumber(ARGV[7])\n" +
+            "local maxOffset = tonumber(ARGV[8])\n" +
+            "local window = math.max(seq, tonumber(redis.call('GET', KEYS[1]) or '0'))\n" +
+            "local used\n" +
+            "while true do\n" +
+            "    if window - seq > maxDepth or (maxOffset and (window - seq) * windowMs > maxOffset) then\n" +
+            "        return -2\n" +
+            "    end\n" +
+            "    used = tonumber(redis.call('GET', prefix .. window) or '0')\n" +
+            "    if used + permits <= limit then\n" +
+            "        break\n" +
+            "    end\n" +
+            "    window = window + 1\n" +
+            "end\n" +
+            "local offset = 0\n" +
+            "if window > seq then\n" +
+            "    offset = (window - seq) * windowMs + math.floor(used * windowMs / limit)\n" +
+            "end\n" +
+            "if maxOffset and offset > maxOffset then\n" +
+            "    return -2\n" +
+            "end\n" +
+            "redis.call('INCRBY', prefix .. window, permits)\n" +
+            "redis.call('PEXPIRE', prefix .. window, ttl * 1000 + (window - seq) * windowMs)\n" +
+            "redis.call('SET', KEYS[1], window, 'PX', (window - seq + 1) * windowMs)\n" +
+            "return offset";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
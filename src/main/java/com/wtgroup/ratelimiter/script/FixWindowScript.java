@@ -1,7 +1,13 @@
 package com.wtgroup.ratelimiter.script;
 
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
 /**
  * 固定窗口计数脚本
+ * <p>
+ * KEYS[1] 窗口计数 key, KEYS[2] 配置 key (可选), 其中 limit 字段覆盖 ARGV[1].<br/>
+ * ARGV[1] 上限, ARGV[2] ttl, ARGV[3] 申请数 (可选, 默认 1).<br/>
+ * 通过返回 1, 本窗口已不够返回 0, 申请数超过上限 (永远拿不到) 返回 -1.
  *
  * @author dafei
  * @version 0.1
@@ -12,16 +18,32 @@ public class FixWindowScript implements RedisScript{
     private static final String SCRIPT =
             "local key = KEYS[1]\n" +
             "local limit = tonumber(ARGV[1])\n" +
+            "if KEYS[2] then\n" +
+            "    local override = redis.call('HGET', KEYS[2], 'limit')\n" +
+            "    if override then\n" +
+            "        limit = tonumber(override)\n" +
+            "    end\n" +
+            "end\n" +
             "local ttl = tonumber(ARGV[2])\n" +
+            "local permits = tonumber(ARGV[3]) or 1\n" +
+            "if permits > limit then\n" +
+            "    return -1\n" +
+            "end\n" +
             "local current = tonumber(redis.call('get', key) or \"0\")\n" +
-            "if current + 1 > limit then\n" +
+            "if current + permits > limit then\n" +
             "    return 0\n" +
             "else\n" +
-            "    redis.call(\"INCRBY\", key, \"1\")\n" +
+            "    redis.call(\"INCRBY\", key, permits)\n" +
             "    redis.call(\"EXPIRE\", key, ttl)\n" +
             "    return 1\n" +
             "end";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
 
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
 
     @Override
     public String getScriptAsString() {
@@ -0,0 +1,30 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 调整固定窗口上限
+ * <p>
+ * KEYS[1] 配置 key, ARGV[1] 新上限. 写入 limit 字段, 各节点下次调用 {@link FixWindowScript} 即生效.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:55
+ */
+public class FixWindowSetLimitScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "redis.call('HSET', KEYS[1], 'limit', ARGV[1])\n" +
+            "return 1";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
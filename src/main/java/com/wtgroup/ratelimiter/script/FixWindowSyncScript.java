@@ -0,0 +1,47 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 两级固定窗口的同步脚本
+ * <p>
+ * KEYS[1] 窗口计数 key, KEYS[2] 配置 key (limit 字段覆盖 ARGV[1]).<br/>
+ * ARGV[1] 上限, ARGV[2] ttl, ARGV[3] 本地已放行待同步的数量 (无条件计入), ARGV[4] 本次申请数 (不超上限才计入).<br/>
+ * 返回: 计入了本次申请时, 返回剩余额度 (>= 0); 否则返回 -1 - 剩余额度.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 18:20
+ */
+public class FixWindowSyncScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local limit = tonumber(ARGV[1])\n" +
+            "local override = redis.call('HGET', KEYS[2], 'limit')\n" +
+            "if override then\n" +
+            "    limit = tonumber(override)\n" +
+            "end\n" +
+            "local current = redis.call('INCRBY', KEYS[1], ARGV[3])\n" +
+            "local requested = tonumber(ARGV[4])\n" +
+            "local granted = current + requested <= limit\n" +
+            "if granted and requested > 0 then\n" +
+            "    current = redis.call('INCRBY', KEYS[1], requested)\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "local remaining = math.max(limit - current, 0)\n" +
+            "if granted then\n" +
+            "    return remaining\n" +
+            "end\n" +
+            "return -1 - remaining";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,47 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * GCRA 预留
+ * <p>
+ * key 中只存一个整数 tat: 存量令牌为 0 的时点 (微秒). tat 早于 now - maxBurstMicros 的部分不计 (存量最多 maxPermits),
+ * tat 在未来表示已透支到 tat. key 不存在即令牌是满的.<br/>
+ * ARGV[1] 申请数, ARGV[2] 发放间隔微秒数, ARGV[3] 攒满需要的微秒数, ARGV[4] 超时微秒数 (可选), 给出时超时内等不到则不预留, 返回 -1.<br/>
+ * 返回需要等待的微秒数. 令牌攒满时 key 过期.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 19:40
+ */
+public class GcraScript implements RedisScript {
+    public static final String SCRIPT =
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "local maxBurstMicros = tonumber(ARGV[3])\n" +
+            "local emptyAt = nowMicros - maxBurstMicros\n" +
+            "local tat = tonumber(redis.call('GET', KEYS[1]))\n" +
+            "if tat ~= nil and tat > emptyAt then\n" +
+            "    emptyAt = tat\n" +
+            "end\n" +
+            "local towait = math.max(emptyAt - nowMicros, 0)\n" +
+            "local timeoutMicros = tonumber(ARGV[4])\n" +
+            "if timeoutMicros ~= nil and towait > timeoutMicros then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "emptyAt = emptyAt + math.floor(tonumber(ARGV[1]) * tonumber(ARGV[2]) + 0.5)\n" +
+            "redis.call('SET', KEYS[1], string.format('%.0f', emptyAt), 'PX', math.ceil((emptyAt + maxBurstMicros - nowMicros) / 1000) + 1)\n" +
+            "return towait";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
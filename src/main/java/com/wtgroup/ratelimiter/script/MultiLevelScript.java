@@ -0,0 +1,91 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 多级限流, 一次脚本调用中原子地检查并扣减多个桶, 全部通过才扣减.
+ * <p>
+ * 共 n 级, KEYS[i] 第 i 级的 key, KEYS[n + i] 第 i 级的配置 key.<br/>
+ * ARGV[1] 申请数; 之后每级 3 个参数: 类型, p1, p2.<br/>
+ * 类型 F (固定窗口): p1 = limit, p2 = ttl(秒), KEYS[i] 为当前窗口 key; 配置 key 中的 limit 字段覆盖 p1 (同 {@link FixWindowScript}).<br/>
+ * 类型 S (平滑突发): p1 = permitsPerSecond, p2 不用, 配置 key 不用 (传 KEYS[i]); key 不存在时按其中的 permitsPerSecond 字段 (setRate 设置) 或 p1 初始化;
+ * 最近可用时点晚于当前时刻即拒绝. 速率被 setRate 改过的不设过期时间 (同 {@link SmoothBurstyReserveScript}).<br/>
+ * 全部通过返回 0, 否则返回第一个拒绝的级别 (从 1 开始).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 18:10
+ */
+public class MultiLevelScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local permits = tonumber(ARGV[1])\n" +
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "local n = (#ARGV - 1) / 3\n" +
+            "local states = {}\n" +
+            "for i = 1, n do\n" +
+            "    local kind = ARGV[i * 3 - 1]\n" +
+            "    local p1 = tonumber(ARGV[i * 3])\n" +
+            "    if kind == 'F' then\n" +
+            "        local override = redis.call('HGET', KEYS[n + i], 'limit')\n" +
+            "        if override then\n" +
+            "            p1 = tonumber(override)\n" +
+            "        end\n" +
+            "        local current = tonumber(redis.call('GET', KEYS[i]) or \"0\")\n" +
+            "        if current + permits > p1 then\n" +
+            "            return i\n" +
+            "        end\n" +
+            "    else\n" +
+            "        local rlInfo = redis.call('HMGET', KEYS[i], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits', 'permitsPerSecond')\n" +
+            "        local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
+            "        local stableIntervalMicros = tonumber(rlInfo[2])\n" +
+            "        local maxPermits = tonumber(rlInfo[3])\n" +
+            "        local storedPermits = tonumber(rlInfo[4])\n" +
+            "        if nextFreeTicketMicros == nil then\n" +
+            "            local permitsPerSecond = tonumber(rlInfo[5]) or p1\n" +
+            "            stableIntervalMicros = 1000000 / permitsPerSecond\n" +
+            "            maxPermits = 1.0 * permitsPerSecond\n" +
+            "            storedPermits = permitsPerSecond\n" +
+            "            nextFreeTicketMicros = 0\n" +
+            "        end\n" +
+            "        if nowMicros > nextFreeTicketMicros then\n" +
+            "            local newPermits = (nowMicros - nextFreeTicketMicros) / stableIntervalMicros\n" +
+            "            storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
+            "            nextFreeTicketMicros = nowMicros\n" +
+            "        end\n" +
+            "        if nextFreeTicketMicros > nowMicros then\n" +
+            "            return i\n" +
+            "        end\n" +
+            "        states[i] = {stableIntervalMicros, maxPermits, storedPermits, nextFreeTicketMicros, rlInfo[5]}\n" +
+            "    end\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "    if ARGV[i * 3 - 1] == 'F' then\n" +
+            "        redis.call('INCRBY', KEYS[i], permits)\n" +
+            "        redis.call('EXPIRE', KEYS[i], tonumber(ARGV[i * 3 + 1]))\n" +
+            "    else\n" +
+            "        local s = states[i]\n" +
+            "        local storedPermitsToSpend = math.min(permits, s[3])\n" +
+            "        local nextFreeTicketMicros = s[4] + (permits - storedPermitsToSpend) * s[1]\n" +
+            "        redis.call('HMSET', KEYS[i], 'stableIntervalMicros', s[1], 'maxPermits', s[2], 'storedPermits', s[3] - storedPermitsToSpend, 'nextFreeTicketMicros', nextFreeTicketMicros)\n" +
+            "        if not s[5] then\n" +
+            "            redis.call('PEXPIRE', KEYS[i], math.ceil((nextFreeTicketMicros - nowMicros + s[2] * s[1]) / 1000) + 1000)\n" +
+            "        end\n" +
+            "    end\n" +
+            "end\n" +
+            "return 0";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -7,10 +7,10 @@ package com.wtgroup.ratelimiter.script;
  */
 public interface RedisScript {
 
-    // /**lua 脚本 sha1 值
-    //  * @return
-    //  */
-    // String getSha1();
+    /**lua 脚本 sha1 值, 用于 EVALSHA
+     * @return
+     */
+    String getSha1();
 
     /**lua 脚本
      * @return
@@ -0,0 +1,53 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 滑动窗口计数脚本
+ * <p>
+ * KEYS[1] 当前窗口计数, KEYS[2] 上个窗口计数.<br/>
+ * ARGV: limit, ttl(秒), 窗口长度(ms), 当前窗口已过去的时长(ms), 申请数 (可选, 默认 1).<br/>
+ * 估算值 = 上个窗口计数 * 上个窗口仍在滑动窗口内的比例 + 当前窗口计数.<br/>
+ * 通过返回 0, 否则返回建议等待的毫秒数; 申请数超过上限 (永远拿不到) 返回 -1.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:02
+ */
+public class SlidingWindowCounterScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local limit = tonumber(ARGV[1])\n" +
+            "local ttl = tonumber(ARGV[2])\n" +
+            "local windowMs = tonumber(ARGV[3])\n" +
+            "local elapsedMs = tonumber(ARGV[4])\n" +
+            "local permits = tonumber(ARGV[5]) or 1\n" +
+            "if permits > limit then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "local current = tonumber(redis.call('GET', KEYS[1]) or \"0\")\n" +
+            "if current + permits > limit then\n" +
+            "    return windowMs - elapsedMs\n" +
+            "end\n" +
+            "local previous = tonumber(redis.call('GET', KEYS[2]) or \"0\")\n" +
+            "local weight = (windowMs - elapsedMs) / windowMs\n" +
+            "if previous * weight + current + permits > limit then\n" +
+            "    local passWeight = (limit - current - permits) / previous\n" +
+            "    return math.max(1, math.ceil(windowMs * (1 - passWeight) - elapsedMs))\n" +
+            "end\n" +
+            "redis.call('INCRBY', KEYS[1], permits)\n" +
+            "redis.call('EXPIRE', KEYS[1], ttl)\n" +
+            "return 0";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,35 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 滑动窗口日志退还脚本
+ * <p>
+ * KEYS[1] 有序集合. ARGV[1] 退还数, ARGV[2] 窗口长度(微秒).<br/>
+ * 先清掉滑出窗口的记录, 再删掉最早的 ARGV[1] 条: 与删掉获取时记下的那几条相比, 留下的记录滑出得更晚, 不会多放行. 返回实际删除数.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 23:45
+ */
+public class SlidingWindowLogRefundScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local windowMicros = tonumber(ARGV[2])\n" +
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', nowMicros - windowMicros)\n" +
+            "return redis.call('ZREMRANGEBYRANK', KEYS[1], 0, tonumber(ARGV[1]) - 1)";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
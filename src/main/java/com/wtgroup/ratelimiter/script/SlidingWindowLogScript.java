@@ -0,0 +1,59 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 滑动窗口日志脚本
+ * <p>
+ * KEYS[1] 有序集合, 每个通过的名额记一条, score 为 redis 时间 (微秒).<br/>
+ * ARGV: limit, 窗口长度(微秒), 成员唯一标识, 申请数 (可选, 默认 1).<br/>
+ * 通过返回 0, 否则返回腾出足够名额 (最早的若干条滑出窗口) 需要等待的毫秒数; 申请数超过上限 (永远拿不到) 返回 -1.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:05
+ */
+public class SlidingWindowLogScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local limit = tonumber(ARGV[1])\n" +
+            "local windowMicros = tonumber(ARGV[2])\n" +
+            "local permits = tonumber(ARGV[4]) or 1\n" +
+            "if permits > limit then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', nowMicros - windowMicros)\n" +
+            "local count = redis.call('ZCARD', KEYS[1])\n" +
+            "if count + permits > limit then\n" +
+            "    local rank = count + permits - limit - 1\n" +
+            "    local oldest = redis.call('ZRANGE', KEYS[1], rank, rank, 'WITHSCORES')\n" +
+            "    if oldest[2] == nil then\n" +
+            "        return math.ceil(windowMicros / 1000)\n" +
+            "    end\n" +
+            "    return math.max(1, math.ceil((tonumber(oldest[2]) + windowMicros - nowMicros) / 1000))\n" +
+            "end\n" +
+            "if permits == 1 then\n" +
+            "    redis.call('ZADD', KEYS[1], nowMicros, ARGV[3])\n" +
+            "else\n" +
+            "    for i = 1, permits do\n" +
+            "        redis.call('ZADD', KEYS[1], nowMicros, ARGV[3] .. ':' .. i)\n" +
+            "    end\n" +
+            "end\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(windowMicros / 1000))\n" +
+            "return 0";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
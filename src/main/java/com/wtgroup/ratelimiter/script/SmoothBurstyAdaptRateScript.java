@@ -0,0 +1,81 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 自适应调整速率 (AIMD)
+ * <p>
+ * ARGV[1] 方向: 1 加性增, -1 乘性减; ARGV[2] 增量 (令牌/秒), ARGV[3] 减小系数, ARGV[4] 最小速率, ARGV[5] 最大速率,
+ * ARGV[6] 冷却时长(微秒), ARGV[7] key 不存在时的初始速率.<br/>
+ * 距上次减小不足冷却时长不再减, 距上次增减不足冷却时长不增: 多个节点在同一窗口观测到同一次过载时只减一次, 也只加一次.
+ * 切换速率同 {@link SmoothBurstySetRateScript}: 先按旧速率同步存量令牌, 再按新旧 maxPermits 的比例缩放, 之后 key 不再过期.<br/>
+ * 返回调整后 (或未调整时当前) 的速率 * 1000, 取整.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 11:20
+ */
+public class SmoothBurstyAdaptRateScript implements RedisScript {
+    public static final String SCRIPT =
+            "redis.replicate_commands()\n" +
+            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits', 'lastIncreaseMicros', 'lastDecreaseMicros')\n" +
+            "local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
+            "local stableIntervalMicros = tonumber(rlInfo[2])\n" +
+            "local maxPermits = tonumber(rlInfo[3])\n" +
+            "local storedPermits = tonumber(rlInfo[4])\n" +
+            "local lastIncreaseMicros = tonumber(rlInfo[5]) or 0\n" +
+            "local lastDecreaseMicros = tonumber(rlInfo[6]) or 0\n" +
+            "local op = tonumber(ARGV[1])\n" +
+            "local cooldownMicros = tonumber(ARGV[6])\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "if nextFreeTicketMicros == nil then\n" +
+            "    local initRate = tonumber(ARGV[7])\n" +
+            "    stableIntervalMicros = 1000000 / initRate\n" +
+            "    maxPermits = 1.0 * initRate\n" +
+            "    storedPermits = maxPermits\n" +
+            "    nextFreeTicketMicros = nowMicros\n" +
+            "end\n" +
+            "local rate = 1000000 / stableIntervalMicros\n" +
+            "local newRate\n" +
+            "if op < 0 then\n" +
+            "    if nowMicros - lastDecreaseMicros < cooldownMicros then\n" +
+            "        return math.floor(rate * 1000)\n" +
+            "    end\n" +
+            "    newRate = math.max(tonumber(ARGV[4]), rate * tonumber(ARGV[3]))\n" +
+            "    lastDecreaseMicros = nowMicros\n" +
+            "else\n" +
+            "    if nowMicros - math.max(lastIncreaseMicros, lastDecreaseMicros) < cooldownMicros then\n" +
+            "        return math.floor(rate * 1000)\n" +
+            "    end\n" +
+            "    newRate = math.min(tonumber(ARGV[5]), rate + tonumber(ARGV[2]))\n" +
+            "    lastIncreaseMicros = nowMicros\n" +
+            "end\n" +
+            "if nowMicros > nextFreeTicketMicros then\n" +
+            "    local newPermits = (nowMicros - nextFreeTicketMicros) / stableIntervalMicros\n" +
+            "    storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
+            "    nextFreeTicketMicros = nowMicros\n" +
+            "end\n" +
+            "local newMaxPermits = 1.0 * newRate\n" +
+            "if maxPermits == 0 then\n" +
+            "    storedPermits = 0\n" +
+            "else\n" +
+            "    storedPermits = storedPermits * newMaxPermits / maxPermits\n" +
+            "end\n" +
+            "redis.call('HMSET', KEYS[1], 'stableIntervalMicros', 1000000 / newRate, 'maxPermits', newMaxPermits,\n" +
+            "    'storedPermits', storedPermits, 'nextFreeTicketMicros', nextFreeTicketMicros, 'permitsPerSecond', newRate,\n" +
+            "    'lastIncreaseMicros', lastIncreaseMicros, 'lastDecreaseMicros', lastDecreaseMicros)\n" +
+            "redis.call('PERSIST', KEYS[1])\n" +
+            "return math.floor(newRate * 1000)";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
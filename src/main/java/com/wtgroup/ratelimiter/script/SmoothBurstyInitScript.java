@@ -1,7 +1,11 @@
 package com.wtgroup.ratelimiter.script;
 
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
 /**
  * 初始化 redis 数据
+ * <p>
+ * 速率被 setRate 改过的 (有 permitsPerSecond 字段), 按改过的速率初始化.
  *
  * @author dafei
  * @version 0.1
@@ -9,12 +13,18 @@ package com.wtgroup.ratelimiter.script;
  */
 public class SmoothBurstyInitScript implements RedisScript {
     public static final String SCRIPT =
-            "local permitsPerSecond = tonumber(ARGV[1])\n" +
+            "local permitsPerSecond = tonumber(redis.call('HGET', KEYS[1], 'permitsPerSecond')) or tonumber(ARGV[1])\n" +
             "local stableIntervalMicros = 1000000 / permitsPerSecond\n" +
             "local maxPermits = 1.0 * permitsPerSecond\n" +
             "local storedPermits = permitsPerSecond\n" +
             "redis.call('HMSET', KEYS[1], 'stableIntervalMicros', stableIntervalMicros, 'storedPermits', storedPermits, 'maxPermits', maxPermits, 'nextFreeTicketMicros', 0)\n" +
             "return 1";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
 
     @Override
     public String getScriptAsString() {
@@ -0,0 +1,59 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 批量租借令牌
+ * <p>
+ * ARGV[1] 申请数, ARGV[2] 归还上次租约未用完的令牌数, ARGV[3] permitsPerSecond, key 不存在时据此初始化.<br/>
+ * 先归还 (存量不超过 maxPermits), 再只借出当下已存的令牌 (不透支未来), 返回实际借出数, 没有可借时返回 0.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 11:05
+ */
+public class SmoothBurstyLeaseScript implements RedisScript {
+    public static final String SCRIPT =
+            "redis.replicate_commands()\n" +
+            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits', 'permitsPerSecond')\n" +
+            "local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
+            "local stableIntervalMicros = tonumber(rlInfo[2])\n" +
+            "local maxPermits = tonumber(rlInfo[3])\n" +
+            "local storedPermits = tonumber(rlInfo[4])\n" +
+            "if nextFreeTicketMicros == nil then\n" +
+            "    local permitsPerSecond = tonumber(ARGV[3])\n" +
+            "    stableIntervalMicros = 1000000 / permitsPerSecond\n" +
+            "    maxPermits = 1.0 * permitsPerSecond\n" +
+            "    storedPermits = permitsPerSecond\n" +
+            "    nextFreeTicketMicros = 0\n" +
+            "    redis.call('HMSET', KEYS[1], 'stableIntervalMicros', stableIntervalMicros, 'maxPermits', maxPermits)\n" +
+            "end\n" +
+            "local requiredPermits = tonumber(ARGV[1])\n" +
+            "local returnedPermits = tonumber(ARGV[2])\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "if nowMicros > nextFreeTicketMicros then\n" +
+            "    local newPermits = (nowMicros - nextFreeTicketMicros) / stableIntervalMicros\n" +
+            "    storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
+            "    nextFreeTicketMicros = nowMicros\n" +
+            "end\n" +
+            "storedPermits = math.min(maxPermits, storedPermits + returnedPermits)\n" +
+            "local granted = math.floor(math.min(requiredPermits, storedPermits))\n" +
+            "storedPermits = storedPermits - granted\n" +
+            "redis.call('HMSET', KEYS[1], 'storedPermits', storedPermits, 'nextFreeTicketMicros', nextFreeTicketMicros)\n" +
+            "if not rlInfo[5] then\n" +
+            "    redis.call('PEXPIRE', KEYS[1], math.ceil((math.max(nextFreeTicketMicros - nowMicros, 0) + maxPermits * stableIntervalMicros) / 1000) + 1000)\n" +
+            "end\n" +
+            "return granted";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
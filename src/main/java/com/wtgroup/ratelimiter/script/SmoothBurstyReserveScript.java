@@ -1,22 +1,37 @@
 package com.wtgroup.ratelimiter.script;
 
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
 /**预留令牌
+ * <p>
+ * ARGV[1] 申请数, ARGV[2] permitsPerSecond, key 不存在时据此初始化.<br/>
+ * ARGV[3] 超时微秒数 (可选), 给出时, 按 redis TIME 判定, 超时内等不到令牌则不预留, 返回 -1 - 距可预留时点的微秒数 (负数).<br/>
+ * 空闲到令牌攒满后, 数据与初始化时无异, 设置过期时间让其自然过期. 速率被 setRate 改过的不过期, 以免丢失.
+ *
  * @author dafei
  * @version 0.1
  * @date 2020/12/3 0:55
  */
 public class SmoothBurstyReserveScript implements RedisScript{
     public static final String SCRIPT =
-            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits')\n" +
+            "redis.replicate_commands()\n" +
+            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits', 'permitsPerSecond')\n" +
             "local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
             "local stableIntervalMicros = tonumber(rlInfo[2])\n" +
             "local maxPermits = tonumber(rlInfo[3])\n" +
             "local storedPermits = tonumber(rlInfo[4])\n" +
+            "if nextFreeTicketMicros == nil then\n" +
+            "    local permitsPerSecond = tonumber(ARGV[2])\n" +
+            "    stableIntervalMicros = 1000000 / permitsPerSecond\n" +
+            "    maxPermits = 1.0 * permitsPerSecond\n" +
+            "    storedPermits = permitsPerSecond\n" +
+            "    nextFreeTicketMicros = 0\n" +
+            "    redis.call('HMSET', KEYS[1], 'stableIntervalMicros', stableIntervalMicros, 'maxPermits', maxPermits)\n" +
+            "end\n" +
             "local requiredPermits = tonumber(ARGV[1])\n" +
             "if requiredPermits == nil then\n" +
             "    requiredPermits = 1\n" +
             "end\n" +
-            "redis.replicate_commands()\n" +
             "local time = redis.call('TIME')\n" +
             "local nowMicros = time[1] * 1000000 + time[2]\n" +
             "if nowMicros > nextFreeTicketMicros then\n" +
@@ -24,6 +39,10 @@ public class SmoothBurstyReserveScript implements RedisScript{
             "    storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
             "    nextFreeTicketMicros = nowMicros\n" +
             "end\n" +
+            "local timeoutMicros = tonumber(ARGV[3])\n" +
+            "if timeoutMicros ~= nil and nextFreeTicketMicros - timeoutMicros > nowMicros then\n" +
+            "    return -1 - math.floor(nextFreeTicketMicros - nowMicros)\n" +
+            "end\n" +
             "local oldNextFreeTicketMicros = nextFreeTicketMicros\n" +
             "local storedPermitsToSpend = math.min(requiredPermits, storedPermits);\n" +
             "local freshPermits = requiredPermits - storedPermitsToSpend\n" +
@@ -31,8 +50,17 @@ public class SmoothBurstyReserveScript implements RedisScript{
             "nextFreeTicketMicros = nextFreeTicketMicros + waitMicros\n" +
             "storedPermits = storedPermits - storedPermitsToSpend\n" +
             "redis.call('HMSET', KEYS[1], 'storedPermits', storedPermits, 'nextFreeTicketMicros', nextFreeTicketMicros)\n" +
+            "if not rlInfo[5] then\n" +
+            "    redis.call('PEXPIRE', KEYS[1], math.ceil((math.max(nextFreeTicketMicros - nowMicros, 0) + maxPermits * stableIntervalMicros) / 1000) + 1000)\n" +
+            "end\n" +
             "local towait = math.max(oldNextFreeTicketMicros - nowMicros, 0)\n" +
             "return towait";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
 
     @Override
     public String getScriptAsString() {
@@ -0,0 +1,58 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 调整速率
+ * <p>
+ * 仿照 guava SmoothBursty 的 setRate: 先按旧速率同步存量令牌, 再按新旧 maxPermits 的比例缩放存量.<br/>
+ * ARGV[1] 新的 permitsPerSecond, 记入 permitsPerSecond 字段, 之后 key 不再过期, 各节点下次调用即按新速率.<br/>
+ * key 不存在时按新速率初始化 (令牌是满的).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 16:50
+ */
+public class SmoothBurstySetRateScript implements RedisScript {
+    public static final String SCRIPT =
+            "redis.replicate_commands()\n" +
+            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits')\n" +
+            "local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
+            "local stableIntervalMicros = tonumber(rlInfo[2])\n" +
+            "local maxPermits = tonumber(rlInfo[3])\n" +
+            "local storedPermits = tonumber(rlInfo[4])\n" +
+            "local permitsPerSecond = tonumber(ARGV[1])\n" +
+            "local newMaxPermits = 1.0 * permitsPerSecond\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "if nextFreeTicketMicros == nil then\n" +
+            "    storedPermits = newMaxPermits\n" +
+            "    nextFreeTicketMicros = nowMicros\n" +
+            "else\n" +
+            "    if nowMicros > nextFreeTicketMicros then\n" +
+            "        local newPermits = (nowMicros - nextFreeTicketMicros) / stableIntervalMicros\n" +
+            "        storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
+            "        nextFreeTicketMicros = nowMicros\n" +
+            "    end\n" +
+            "    if maxPermits == 0 then\n" +
+            "        storedPermits = 0\n" +
+            "    else\n" +
+            "        storedPermits = storedPermits * newMaxPermits / maxPermits\n" +
+            "    end\n" +
+            "end\n" +
+            "redis.call('HMSET', KEYS[1], 'stableIntervalMicros', 1000000 / permitsPerSecond, 'maxPermits', newMaxPermits,\n" +
+            "    'storedPermits', storedPermits, 'nextFreeTicketMicros', nextFreeTicketMicros, 'permitsPerSecond', permitsPerSecond)\n" +
+            "redis.call('PERSIST', KEYS[1])\n" +
+            "return 1";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,40 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 初始化预热限流器 redis 数据
+ * <p>
+ * ARGV[1] permitsPerSecond, ARGV[2] warmupPeriodMicros, ARGV[3] coldFactor.<br/>
+ * 参数推导同 guava SmoothWarmingUp, 初始为冷状态 (存量令牌满, 发放最慢).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 19:00
+ */
+public class SmoothWarmingUpInitScript implements RedisScript {
+    public static final String SCRIPT =
+            "local permitsPerSecond = tonumber(ARGV[1])\n" +
+            "local warmupPeriodMicros = tonumber(ARGV[2])\n" +
+            "local coldFactor = tonumber(ARGV[3])\n" +
+            "local stableIntervalMicros = 1000000 / permitsPerSecond\n" +
+            "local coldIntervalMicros = stableIntervalMicros * coldFactor\n" +
+            "local thresholdPermits = 0.5 * warmupPeriodMicros / stableIntervalMicros\n" +
+            "local maxPermits = thresholdPermits + 2.0 * warmupPeriodMicros / (stableIntervalMicros + coldIntervalMicros)\n" +
+            "local slope = (coldIntervalMicros - stableIntervalMicros) / (maxPermits - thresholdPermits)\n" +
+            "local coolDownIntervalMicros = warmupPeriodMicros / maxPermits\n" +
+            "redis.call('HMSET', KEYS[1], 'stableIntervalMicros', stableIntervalMicros, 'maxPermits', maxPermits, 'thresholdPermits', thresholdPermits,\n" +
+            "    'slope', slope, 'coolDownIntervalMicros', coolDownIntervalMicros, 'storedPermits', maxPermits, 'nextFreeTicketMicros', 0)\n" +
+            "return 1";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
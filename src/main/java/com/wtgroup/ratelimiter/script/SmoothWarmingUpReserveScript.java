@@ -0,0 +1,87 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 预热限流器预留令牌
+ * <p>
+ * ARGV[1] 申请数, ARGV[2] permitsPerSecond, ARGV[3] warmupPeriodMicros, ARGV[4] coldFactor, key 不存在时据此初始化 (冷状态).<br/>
+ * ARGV[5] 超时微秒数 (可选), 给出时, 超时内等不到令牌则不预留, 返回 -1.<br/>
+ * 同 guava SmoothWarmingUp: 空闲时按 coolDownIntervalMicros 攒令牌; 花费超过 thresholdPermits 的存量令牌时,
+ * 每个令牌的间隔从 stableIntervalMicros 线性升到 coldIntervalMicros, 等待时长为这段梯形的面积.<br/>
+ * 空闲到令牌攒满后, 数据与初始化时无异, 设置过期时间让其自然过期.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 19:05
+ */
+public class SmoothWarmingUpReserveScript implements RedisScript {
+    public static final String SCRIPT =
+            "redis.replicate_commands()\n" +
+            "local rlInfo = redis.call('HMGET', KEYS[1], 'nextFreeTicketMicros', 'stableIntervalMicros', 'maxPermits', 'storedPermits',\n" +
+            "    'thresholdPermits', 'slope', 'coolDownIntervalMicros')\n" +
+            "local nextFreeTicketMicros = tonumber(rlInfo[1])\n" +
+            "local stableIntervalMicros = tonumber(rlInfo[2])\n" +
+            "local maxPermits = tonumber(rlInfo[3])\n" +
+            "local storedPermits = tonumber(rlInfo[4])\n" +
+            "local thresholdPermits = tonumber(rlInfo[5])\n" +
+            "local slope = tonumber(rlInfo[6])\n" +
+            "local coolDownIntervalMicros = tonumber(rlInfo[7])\n" +
+            "if nextFreeTicketMicros == nil then\n" +
+            "    local permitsPerSecond = tonumber(ARGV[2])\n" +
+            "    local warmupPeriodMicros = tonumber(ARGV[3])\n" +
+            "    local coldFactor = tonumber(ARGV[4])\n" +
+            "    stableIntervalMicros = 1000000 / permitsPerSecond\n" +
+            "    local coldIntervalMicros = stableIntervalMicros * coldFactor\n" +
+            "    thresholdPermits = 0.5 * warmupPeriodMicros / stableIntervalMicros\n" +
+            "    maxPermits = thresholdPermits + 2.0 * warmupPeriodMicros / (stableIntervalMicros + coldIntervalMicros)\n" +
+            "    slope = (coldIntervalMicros - stableIntervalMicros) / (maxPermits - thresholdPermits)\n" +
+            "    coolDownIntervalMicros = warmupPeriodMicros / maxPermits\n" +
+            "    storedPermits = maxPermits\n" +
+            "    nextFreeTicketMicros = 0\n" +
+            "    redis.call('HMSET', KEYS[1], 'stableIntervalMicros', stableIntervalMicros, 'maxPermits', maxPermits, 'thresholdPermits', thresholdPermits,\n" +
+            "        'slope', slope, 'coolDownIntervalMicros', coolDownIntervalMicros)\n" +
+            "end\n" +
+            "local requiredPermits = tonumber(ARGV[1])\n" +
+            "local time = redis.call('TIME')\n" +
+            "local nowMicros = time[1] * 1000000 + time[2]\n" +
+            "if nowMicros > nextFreeTicketMicros then\n" +
+            "    local newPermits = (nowMicros - nextFreeTicketMicros) / coolDownIntervalMicros\n" +
+            "    storedPermits = math.min(maxPermits, storedPermits + newPermits)\n" +
+            "    nextFreeTicketMicros = nowMicros\n" +
+            "end\n" +
+            "local timeoutMicros = tonumber(ARGV[5])\n" +
+            "if timeoutMicros ~= nil and nextFreeTicketMicros - timeoutMicros > nowMicros then\n" +
+            "    return -1\n" +
+            "end\n" +
+            "local oldNextFreeTicketMicros = nextFreeTicketMicros\n" +
+            "local storedPermitsToSpend = math.min(requiredPermits, storedPermits)\n" +
+            "local freshPermits = requiredPermits - storedPermitsToSpend\n" +
+            "local waitMicros = 0\n" +
+            "local permitsToTake = storedPermitsToSpend\n" +
+            "local availablePermitsAboveThreshold = storedPermits - thresholdPermits\n" +
+            "if availablePermitsAboveThreshold > 0 then\n" +
+            "    local permitsAboveThresholdToTake = math.min(availablePermitsAboveThreshold, permitsToTake)\n" +
+            "    local length = (stableIntervalMicros + availablePermitsAboveThreshold * slope)\n" +
+            "        + (stableIntervalMicros + (availablePermitsAboveThreshold - permitsAboveThresholdToTake) * slope)\n" +
+            "    waitMicros = permitsAboveThresholdToTake * length / 2.0\n" +
+            "    permitsToTake = permitsToTake - permitsAboveThresholdToTake\n" +
+            "end\n" +
+            "waitMicros = waitMicros + stableIntervalMicros * permitsToTake + freshPermits * stableIntervalMicros\n" +
+            "nextFreeTicketMicros = nextFreeTicketMicros + waitMicros\n" +
+            "storedPermits = storedPermits - storedPermitsToSpend\n" +
+            "redis.call('HMSET', KEYS[1], 'storedPermits', storedPermits, 'nextFreeTicketMicros', nextFreeTicketMicros)\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil((math.max(nextFreeTicketMicros - nowMicros, 0) + (maxPermits - storedPermits) * coolDownIntervalMicros) / 1000) + 1000)\n" +
+            "return math.max(oldNextFreeTicketMicros - nowMicros, 0)";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
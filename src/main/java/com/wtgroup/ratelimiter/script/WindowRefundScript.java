@@ -0,0 +1,37 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+
+/**
+ * 窗口计数退还脚本, 固定窗口与滑动窗口计数共用
+ * <p>
+ * KEYS[1] 窗口计数 key. ARGV[1] 退还数.<br/>
+ * key 不存在 (窗口已过期) 时不处理; 计数不减到 0 以下, ttl 不变. 返回实际退还数.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 23:40
+ */
+public class WindowRefundScript implements RedisScript {
+
+    private static final String SCRIPT =
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "local refund = math.min(current, tonumber(ARGV[1]))\n" +
+            "if refund > 0 then\n" +
+            "    redis.call('DECRBY', KEYS[1], refund)\n" +
+            "else\n" +
+            "    refund = 0\n" +
+            "end\n" +
+            "return refund";
+    private static final String SHA1 = ScriptUtil.sha1Hex(SCRIPT);
+
+    @Override
+    public String getSha1() {
+        return SHA1;
+    }
+
+    @Override
+    public String getScriptAsString() {
+        return SCRIPT;
+    }
+}
@@ -0,0 +1,155 @@
+package com.wtgroup.ratelimiter.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * redis 调用的熔断器
+ * <p>
+ * CLOSED: 放行, 连续 failureThreshold 次失败 (异常, 或耗时超过延迟预算) 后 OPEN.<br/>
+ * OPEN: 直接拒绝, 不访问 redis; openDuration 后放一个探测调用, 进入 HALF_OPEN.<br/>
+ * HALF_OPEN: 探测成功回到 CLOSED, 失败重新 OPEN; 探测期间其余调用仍被拒绝.
+ * <p>
+ * 延迟预算不限制单次调用: 耗时在调用返回后才计入, 慢调用只用于判定断开.
+ * 单次调用的等待上限是 spring.redis.timeout (毫秒), 由连接池 / 客户端的超时保证.
+ * <p>
+ * 热路径上只有读 volatile 和计数, 不加锁.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 21:20
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder notPermitted = new LongAdder();
+
+    /**
+     * @param name             用于日志和指标
+     * @param failureThreshold 连续失败多少次后断开
+     * @param slowCallDuration 单次调用的延迟预算, 超过记为失败 (结果照常返回, 不中断调用)
+     * @param openDuration     断开多久后探测恢复
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration slowCallDuration, Duration openDuration) {
+        Assert.hasText(name, "`name` is empty");
+        Assert.isTrue(failureThreshold > 0, "`failureThreshold` must greater then 0");
+        Assert.isTrue(slowCallDuration != null && !slowCallDuration.isNegative() && !slowCallDuration.isZero(), "`slowCallDuration` must greater then 0");
+        Assert.isTrue(openDuration != null && !openDuration.isNegative(), "`openDuration` must not be negative");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * 调用 redis 前询问, 返回 true 时调用方必须以 {@link #onSuccess(long)} / {@link #onFailure(Throwable)} 报告结果
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("CircuitBreaker {} half open, probing redis", name);
+            return true;
+        }
+        notPermitted.increment();
+        return false;
+    }
+
+    /**
+     * 调用返回后报告; 超过延迟预算只记为失败, 不影响本次结果
+     *
+     * @param nanos 调用耗时
+     */
+    public void onSuccess(long nanos) {
+        if (nanos > slowCallNanos) {
+            slowCalls.increment();
+            failed();
+            return;
+        }
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("CircuitBreaker {} closed, redis recovered", name);
+        }
+    }
+
+    public void onFailure(Throwable e) {
+        failures.increment();
+        if (state.get() == State.CLOSED) {
+            log.debug("CircuitBreaker {} call failed", name, e);
+        }
+        failed();
+    }
+
+    private void failed() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        // 先记时点再切状态, 其他线程看到 OPEN 时 openedAt 已就绪; 并发断开时只是把时点推后一点
+        openedAt = System.nanoTime();
+        if (state.compareAndSet(from, State.OPEN)) {
+            consecutiveFailures.set(0);
+            log.warn("CircuitBreaker {} open, redis calls fail fast for {}ms", name, openNanos / 1_000_000);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 累计失败 (异常) 次数
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 累计超过延迟预算的次数
+     */
+    public long getSlowCalls() {
+        return slowCalls.sum();
+    }
+
+    /**
+     * 累计因断开被拒绝的次数
+     */
+    public long getNotPermitted() {
+        return notPermitted.sum();
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.wtgroup.ratelimiter.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步 acquire 共用的定时器
+ * <p>
+ * 等待中的请求都挂在同一个延迟队列上, 到点由少量线程完成, 不占用调用方线程.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 13:40
+ */
+public class DelayScheduler {
+
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static volatile ScheduledExecutorService executor;
+
+    /**
+     * 替换默认定时器, 比如交由容器管理生命周期
+     *
+     * @param scheduledExecutorService
+     */
+    public static void setExecutor(ScheduledExecutorService scheduledExecutorService) {
+        executor = scheduledExecutorService;
+    }
+
+    public static ScheduledExecutorService getExecutor() {
+        ScheduledExecutorService e = executor;
+        if (e == null) {
+            synchronized (DelayScheduler.class) {
+                e = executor;
+                if (e == null) {
+                    ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(THREADS, new DaemonThreadFactory());
+                    pool.setRemoveOnCancelPolicy(true);
+                    executor = e = pool;
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 延迟 delay 后以 value 完成
+     *
+     * @param value
+     * @param delay <= 0 时立即完成
+     * @param unit
+     * @return
+     */
+    public static <T> CompletableFuture<T> delay(T value, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        getExecutor().schedule(() -> future.complete(value), delay, unit);
+        return future;
+    }
+
+    /**
+     * 延迟 delay 后在定时器线程上执行 task, 以其结果完成
+     *
+     * @param task
+     * @param delay
+     * @param unit
+     * @return
+     */
+    public static <T> CompletableFuture<T> delay(Supplier<CompletableFuture<T>> task, long delay, TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        getExecutor().schedule(() -> {
+            try {
+                task.get().whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        future.completeExceptionally(ex);
+                    } else {
+                        future.complete(v);
+                    }
+                });
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }, Math.max(delay, 0), unit);
+        return future;
+    }
+
+    /**
+     * 同步调用, 异常转为失败的 future
+     *
+     * @param task
+     * @return
+     */
+    public static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> task) {
+        try {
+            return task.get();
+        } catch (Throwable ex) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ratelimiter-delay-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.wtgroup.ratelimiter.util;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+
+/**
+ * redis key 工具
+ * <p>
+ * redis cluster 只按 key 中第一个 <code>{...}</code> (hash tag) 内的部分计算 slot. 多 key 脚本的各 key 带上相同的 hash tag,
+ * 才能落在同一 slot, 在 cluster / 分片部署下执行.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 20:40
+ */
+public class KeyUtil {
+
+    /**
+     * 限流器多 key 布局的前缀: executor 要求 hash tag ({@link RedisExecutor#isHashTagRequired()}) 时同 {@link #hashTag(String)},
+     * 否则原样返回, 与此前单机部署的 key 兼容.
+     *
+     * @param redisExecutor
+     * @param keyPrefix
+     * @return
+     */
+    public static String keyTag(RedisExecutor redisExecutor, String keyPrefix) {
+        return redisExecutor.isHashTagRequired() ? hashTag(keyPrefix) : keyPrefix;
+    }
+
+    /**
+     * 给 key 前缀加上 hash tag: 已带有效 hash tag 的原样返回, 否则返回 <code>{keyPrefix}</code>.
+     *
+     * @param keyPrefix
+     * @return
+     */
+    public static String hashTag(String keyPrefix) {
+        return hasHashTag(keyPrefix) ? keyPrefix : "{" + keyPrefix + "}";
+    }
+
+    /**
+     * key 中参与 slot / 分片计算的部分, 规则同 redis cluster: 第一个 '{' 之后到其后第一个 '}' 之间非空时取之, 否则取整个 key.
+     *
+     * @param key
+     * @return
+     */
+    public static String hashTagOf(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                return key.substring(start + 1, end);
+            }
+        }
+        return key;
+    }
+
+    public static boolean hasHashTag(String key) {
+        int start = key.indexOf('{');
+        return start >= 0 && key.indexOf('}', start + 1) > start + 1;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.wtgroup.ratelimiter.util;
+
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 有界的本地缓存, 超出容量按 LRU 淘汰, 超过 expireAfterAccess 未访问的条目视为过期.
+ * <p>
+ * 分段加锁, 每段一个按访问顺序排列的 {@link LinkedHashMap}, 降低并发争用.
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 17:20
+ */
+public class LruCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long expireAfterAccessNanos;
+
+    /**
+     * @param maxSize                 最大条目数
+     * @param expireAfterAccessMillis 未访问多久后过期, <= 0 不过期
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxSize, long expireAfterAccessMillis) {
+        Assert.isTrue(maxSize > 0, "`maxSize` must greater then 0");
+        this.expireAfterAccessNanos = expireAfterAccessMillis > 0 ? expireAfterAccessMillis * 1000000 : Long.MAX_VALUE;
+        int segmentCount = Math.min(SEGMENTS, maxSize);
+        int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentSize);
+        }
+    }
+
+    /**
+     * 取缓存, 不存在或已过期时用 loader 创建
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null || now - entry.accessNanos > expireAfterAccessNanos) {
+                entry = new Entry<>(loader.apply(key));
+                segment.put(key, entry);
+            }
+            entry.accessNanos = now;
+            return entry.value;
+        }
+    }
+
+    public V getIfPresent(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null || System.nanoTime() - entry.accessNanos > expireAfterAccessNanos) {
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * 当前条目数 (含尚未清理的过期条目)
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 遍历未过期的条目
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long now = System.nanoTime();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<K, Entry<V>> e : segment.entrySet()) {
+                    if (now - e.getValue().accessNanos <= expireAfterAccessNanos) {
+                        action.accept(e.getKey(), e.getValue().value);
+                    }
+                }
+            }
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        long accessNanos;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, LruCache.Entry<V>> {
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, LruCache.Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+}
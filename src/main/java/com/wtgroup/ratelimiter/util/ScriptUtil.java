@@ -0,0 +1,129 @@
+package com.wtgroup.ratelimiter.util;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * lua 脚本工具
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/18 10:12
+ */
+public class ScriptUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * sha1 -> 其 byte[], 以 sha1 为 key, 个数以脚本种类为上限
+     */
+    private static final Map<String, byte[]> SHA1_BYTES = new ConcurrentHashMap<>();
+
+    /**
+     * 计算脚本 sha1 (小写十六进制), 与 redis SCRIPT LOAD 返回值一致.
+     *
+     * @param script
+     * @return
+     */
+    public static String sha1Hex(String script) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = md.digest(script.getBytes(StandardCharsets.UTF_8));
+        char[] chars = new char[digest.length << 1];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i << 1] = HEX[(digest[i] >> 4) & 0xF];
+            chars[(i << 1) + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 以 EVALSHA 执行脚本.
+     * <p>
+     * redis 重启/主从切换后脚本缓存丢失, 会报 NOSCRIPT, 此时 SCRIPT LOAD 后重试一次.
+     *
+     * @param jedis
+     * @param script
+     * @param keys
+     * @param args
+     * @return
+     */
+    public static Object evalsha(Jedis jedis, RedisScript script, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(script.getSha1(), keys, args);
+        } catch (JedisNoScriptException e) {
+            jedis.scriptLoad(script.getScriptAsString());
+            return jedis.evalsha(script.getSha1(), keys, args);
+        }
+    }
+
+    /**
+     * 以 EVALSHA 执行返回整数的脚本, 参数为预编码的 byte[], NOSCRIPT 时同 {@link #evalsha(Jedis, RedisScript, List, List)}.
+     * <p>
+     * 直接经 {@link Client} 收发: jedis 二进制的 evalsha 会把连接切到无限超时再切回, 多两次系统调用且期间不受超时保护.
+     *
+     * @param jedis
+     * @param script
+     * @param keyCount
+     * @param params
+     * @return
+     */
+    public static long evalshaLong(Jedis jedis, RedisScript script, int keyCount, byte[][] params) {
+        byte[] sha1 = sha1Bytes(script);
+        Client client = jedis.getClient();
+        Object res;
+        try {
+            client.evalsha(sha1, keyCount, params);
+            res = client.getOne();
+        } catch (JedisNoScriptException e) {
+            jedis.scriptLoad(script.getScriptAsString());
+            client.evalsha(sha1, keyCount, params);
+            res = client.getOne();
+        }
+        if (res == null) {
+            throw new RuntimeException("eval " + script.getClass().getSimpleName() + " return null");
+        }
+        return (Long) res;
+    }
+
+    /**
+     * 脚本 sha1 的 byte[], 首次计算后缓存
+     *
+     * @param script
+     * @return
+     */
+    public static byte[] sha1Bytes(RedisScript script) {
+        byte[] bytes = SHA1_BYTES.get(script.getSha1());
+        if (bytes == null) {
+            bytes = SHA1_BYTES.computeIfAbsent(script.getSha1(), sha1 -> sha1.getBytes(StandardCharsets.US_ASCII));
+        }
+        return bytes;
+    }
+
+    /**
+     * 整数参数编码为 redis 参数 (十进制 ascii)
+     *
+     * @param value
+     * @return
+     */
+    public static byte[] toBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -37,4 +37,17 @@ public class SleepUtil {
         }
     }
 
+    /**
+     * 睡眠, interruptibly 为 false 时同 {@link #sleepUninterruptibly}
+     *
+     * @throws InterruptedException interruptibly 为 true 且睡眠期间被中断
+     */
+    public static void sleep(long sleepFor, TimeUnit unit, boolean interruptibly) throws InterruptedException {
+        if (interruptibly) {
+            unit.sleep(sleepFor);
+        } else {
+            sleepUninterruptibly(sleepFor, unit);
+        }
+    }
+
 }
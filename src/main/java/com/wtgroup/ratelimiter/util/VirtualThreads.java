@@ -0,0 +1,40 @@
+package com.wtgroup.ratelimiter.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程 (JDK 21+)
+ * <p>
+ * 以 multi-release jar 发布: 此为 Java 8 版本, 不支持虚拟线程; 在 JDK 21+ 上运行时由 META-INF/versions/21 下的同名类替代
+ * (以 java21 profile 构建, 源码在 src/main/java21).
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 14:10
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        return false;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的 executor
+     *
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        throw new UnsupportedOperationException("virtual threads require JDK 21+ and the multi-release jar");
+    }
+
+}
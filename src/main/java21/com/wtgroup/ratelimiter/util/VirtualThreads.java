@@ -0,0 +1,30 @@
+package com.wtgroup.ratelimiter.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程 (JDK 21+), multi-release jar 中 META-INF/versions/21 的版本
+ *
+ * @author dafei
+ * @version 0.1
+ * @date 2026/10/19 14:10
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return true;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+}
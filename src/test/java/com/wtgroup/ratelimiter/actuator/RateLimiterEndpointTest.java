@@ -0,0 +1,35 @@
+package com.wtgroup.ratelimiter.actuator;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+
+/**
+ * 参数校验在访问 redis 之前, 不需要 redis
+ */
+public class RateLimiterEndpointTest {
+
+    @Test
+    public void invalidRateTest() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        JedisPool jedisPool = new JedisPool("127.0.0.1", 1);
+        beanFactory.registerSingleton("fixWindow", new FixWindowRateLimiter(new JedisRedisExecutor(jedisPool), "EP", 10, Duration.ofSeconds(1)));
+        RateLimiterEndpoint endpoint = new RateLimiterEndpoint(beanFactory);
+
+        for (double rate : new double[]{2.5, 0, -1, Double.NaN, Double.POSITIVE_INFINITY, 1e10}) {
+            try {
+                endpoint.setRate("fixWindow", rate);
+                Assert.fail("rate " + rate);
+            } catch (InvalidEndpointRequestException e) {
+                // 400
+            }
+        }
+        jedisPool.close();
+    }
+}
@@ -0,0 +1,114 @@
+package com.wtgroup.ratelimiter.aop;
+
+import com.wtgroup.ratelimiter.annotation.RateLimit;
+import com.wtgroup.ratelimiter.annotation.RateLimitedException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+/**
+ * 用进程内算法, 不需要 redis
+ */
+public class RateLimitAdvisorTest {
+
+    private final RateLimitOperationSource operationSource = new RateLimitOperationSource(null, 100, Duration.ofMinutes(1));
+
+    @Test
+    public void limitTest() {
+        Service service = proxy(new Service());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("ok", service.global());
+        }
+        try {
+            service.global();
+            Assert.fail();
+        } catch (RateLimitedException e) {
+            Assert.assertEquals("ratelimit:Service.global", e.getLimiter());
+        }
+    }
+
+    @Test
+    public void keyTest() {
+        Service service = proxy(new Service());
+        Assert.assertEquals("u1", service.byUser("u1"));
+        Assert.assertEquals("u1", service.byUser("u1"));
+        Assert.assertEquals("fallback u1", service.byUser("u1"));
+        // 另一个维度 key 有自己的额度
+        Assert.assertEquals("u2", service.byUser("u2"));
+        Assert.assertEquals("u2", service.byIndex("u2"));
+    }
+
+    @Test
+    public void notAnnotatedTest() {
+        Service service = proxy(new Service());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("free", service.free());
+        }
+    }
+
+    @Test
+    public void handlerInterceptorTest() throws NoSuchMethodException {
+        RateLimitHandlerInterceptor interceptor = new RateLimitHandlerInterceptor(operationSource);
+        HandlerMethod handler = new HandlerMethod(new Service(), Service.class.getMethod("byIp"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        MockHttpServletRequest request1 = new MockHttpServletRequest();
+        request1.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest request2 = new MockHttpServletRequest();
+        request2.setRemoteAddr("10.0.0.2");
+
+        Assert.assertTrue(interceptor.preHandle(request1, response, handler));
+        Assert.assertTrue(interceptor.preHandle(request2, response, handler));
+        try {
+            interceptor.preHandle(request1, response, handler);
+            Assert.fail();
+        } catch (RateLimitedException e) {
+            Assert.assertEquals("ip", e.getLimiter());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new RateLimitAdvisor(operationSource));
+        return (T) proxyFactory.getProxy();
+    }
+
+    public static class Service {
+
+        @RateLimit(algorithm = RateLimit.Algorithm.LOCAL_FIX_WINDOW, rate = 3, windowMillis = 3600_000)
+        public String global() {
+            return "ok";
+        }
+
+        @RateLimit(algorithm = RateLimit.Algorithm.LOCAL_FIX_WINDOW, rate = 2, windowMillis = 3600_000, key = "#p0", fallback = "byUserFallback")
+        public String byUser(String userId) {
+            return userId;
+        }
+
+        @RateLimit(algorithm = RateLimit.Algorithm.LOCAL_SMOOTH_BURSTY, rate = 1, key = "#a0.toUpperCase()")
+        public String byIndex(String userId) {
+            return userId;
+        }
+
+        @RateLimit(name = "ip", algorithm = RateLimit.Algorithm.LOCAL_FIX_WINDOW, rate = 1, windowMillis = 3600_000, key = "#request.remoteAddr")
+        public String byIp() {
+            return "ip";
+        }
+
+        public String free() {
+            return "free";
+        }
+
+        private String byUserFallback(String userId) {
+            return "fallback " + userId;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.wtgroup.ratelimiter.config;
+
+import com.wtgroup.ratelimiter.core.FixWindowRateLimiter;
+import com.wtgroup.ratelimiter.core.ResilientRateLimiter;
+import com.wtgroup.ratelimiter.core.SmoothBurstyRateLimiter;
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.ShardedRedisExecutor;
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.context.support.TestPropertySourceUtils;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * redis 指向没有监听的端口, 不需要 redis
+ */
+public class RateLimiterAutoConfigurationTest {
+
+    @Test
+    public void resilientDefaultBeansTest() {
+        try (AnnotationConfigApplicationContext context = context("local")) {
+            // 原 bean 类型不变
+            Assert.assertNotNull(context.getBean(FixWindowRateLimiter.class));
+            Assert.assertNotNull(context.getBean(SmoothBurstyRateLimiter.class));
+
+            ResilientRateLimiter fixWindow = context.getBean("resilientFixWindowRateLimiter", ResilientRateLimiter.class);
+            ResilientRateLimiter smoothBursty = context.getBean("resilientSmoothBurstyRateLimiter", ResilientRateLimiter.class);
+            CircuitBreaker breaker = context.getBean(CircuitBreaker.class);
+
+            // 第一次连接失败即断开, 之后不再访问 redis, 交给进程内限流器
+            Assert.assertTrue(fixWindow.tryAcquire());
+            Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            Assert.assertTrue(fixWindow.tryAcquire());
+            Assert.assertTrue(smoothBursty.tryAcquire());
+            Assert.assertEquals(0.0, smoothBursty.acquire(), 0.1);
+            Assert.assertTrue(breaker.getNotPermitted() >= 3);
+        }
+    }
+
+    @Test
+    public void resilientClosedTest() {
+        try (AnnotationConfigApplicationContext context = context("closed")) {
+            ResilientRateLimiter fixWindow = context.getBean("resilientFixWindowRateLimiter", ResilientRateLimiter.class);
+            ResilientRateLimiter smoothBursty = context.getBean("resilientSmoothBurstyRateLimiter", ResilientRateLimiter.class);
+
+            Assert.assertFalse(fixWindow.tryAcquire());
+            Assert.assertEquals(CircuitBreaker.State.OPEN, context.getBean(CircuitBreaker.class).getState());
+            Assert.assertFalse(smoothBursty.tryAcquire());
+        }
+    }
+
+    @Test
+    public void poolMaxTotalTest() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            TestPropertySourceUtils.addInlinedPropertiesToEnvironment(context,
+                    "spring.ratelimiter.smooth-bursty.engine=local",
+                    "spring.ratelimiter.virtual-threads.enabled=true");
+            context.register(RateLimiterAutoConfiguration.class);
+            context.registerBean("jedisPool", JedisPool.class, () -> {
+                GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+                config.setMaxTotal(32);
+                return new JedisPool(config, "127.0.0.1", 1);
+            });
+            context.refresh();
+            // 自定义连接池的 maxTotal, 而不是缺省的 8
+            Assert.assertEquals(32, ((JedisRedisExecutor) context.getBean(RedisExecutor.class)).getPoolMaxTotal());
+        }
+
+        GenericObjectPoolConfig unbounded = new GenericObjectPoolConfig();
+        unbounded.setMaxTotal(-1);
+        JedisPool jedisPool = new JedisPool(unbounded, "127.0.0.1", 1);
+        Assert.assertEquals(-1, new JedisRedisExecutor(jedisPool).getPoolMaxTotal());
+        jedisPool.close();
+    }
+
+    @Test
+    public void shardsWithoutStandalonePoolTest() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            TestPropertySourceUtils.addInlinedPropertiesToEnvironment(context,
+                    "spring.ratelimiter.smooth-bursty.engine=local",
+                    "spring.ratelimiter.shards=127.0.0.1:1,127.0.0.1:2");
+            context.register(RateLimiterAutoConfiguration.class);
+            context.refresh();
+            // 分片各自建连接池, 不再多建一个用不到的单机连接池
+            Assert.assertTrue(context.getBean(RedisExecutor.class) instanceof ShardedRedisExecutor);
+            Assert.assertEquals(0, context.getBeanNamesForType(JedisPool.class).length);
+        }
+    }
+
+    private static AnnotationConfigApplicationContext context(String failMode) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        TestPropertySourceUtils.addInlinedPropertiesToEnvironment(context,
+                "spring.redis.host=127.0.0.1",
+                "spring.redis.port=1",
+                "spring.ratelimiter.resilience.enabled=true",
+                "spring.ratelimiter.resilience.failure-threshold=1",
+                "spring.ratelimiter.resilience.open-duration=1m",
+                "spring.ratelimiter.resilience.fail-mode=" + failMode);
+        context.register(RateLimiterAutoConfiguration.class);
+        context.refresh();
+        return context;
+    }
+}
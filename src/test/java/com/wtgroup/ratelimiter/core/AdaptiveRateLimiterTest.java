@@ -0,0 +1,152 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveRateLimiterTest {
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    /**
+     * 仿真 (不访问 redis): 4 个节点共享速率, 需求恒为 2000/秒, 合成下游的容量 500 → 200 (劣化) → 500 (恢复), 每段 100 秒.
+     * 下游在容量内延迟 20ms 左右, 超过容量后排队, 延迟陡增, 超出部分报错.
+     * 各节点用 {@link AdaptiveRateLimiter.Controller} 判定, 共享速率按 {@link com.wtgroup.ratelimiter.script.SmoothBurstyAdaptRateScript} 的规则调整.
+     * 增量按预期容量的 2% 左右取 10, 延迟容忍 1.5 倍 (默认值在该模型下要到 1.05 倍容量才判定过载).
+     * 每段后 50 秒的放行量应贴近容量, 过载的秒数占比低.
+     */
+    @Test
+    public void simulation() {
+        int nodes = 4;
+        double demand = 2000;
+        double minRate = 10;
+        double maxRate = 2000;
+        double step = 10;
+        double ratio = 0.9;
+        int[] capacities = {500, 200, 500};
+        int phaseSeconds = 100;
+
+        Random random = new Random(42);
+        AdaptiveRateLimiter.Controller[] controllers = new AdaptiveRateLimiter.Controller[nodes];
+        for (int i = 0; i < nodes; i++) {
+            controllers[i] = new AdaptiveRateLimiter.Controller();
+            controllers[i].latencyTolerance = 1.5;
+        }
+        SharedRate shared = new SharedRate(100);
+
+        for (int phase = 0; phase < capacities.length; phase++) {
+            double capacity = capacities[phase];
+            double utilizationSum = 0;
+            int overloaded = 0;
+            int tail = phaseSeconds / 2;
+            StringBuilder trace = new StringBuilder();
+            for (int s = 0; s < phaseSeconds; s++) {
+                long second = (long) phase * phaseSeconds + s;
+                double admitted = Math.min(demand, shared.rate);
+                double u = admitted / capacity;
+                double latencyMs = u <= 1 ? 20 * (1 + 0.5 * Math.pow(u, 8)) : 20 * (1.5 + 20 * (u - 1));
+                double errorRate = u > 1 ? (u - 1) / u : 0;
+                if (s >= phaseSeconds - tail) {
+                    utilizationSum += u;
+                    if (u > 1.05) {
+                        overloaded++;
+                    }
+                }
+                if (s % 10 == 0) {
+                    trace.append(String.format(" %ds:%.0f", second, shared.rate));
+                }
+                // 各节点在本秒内先后结束自己的窗口
+                for (int i = 0; i < nodes; i++) {
+                    long samples = (long) (admitted / nodes);
+                    double noise = 1 + (random.nextDouble() - 0.5) * 0.1;
+                    long latencyNanos = (long) (samples * TimeUnit.MILLISECONDS.toNanos(1) * latencyMs * noise);
+                    long errors = (long) (samples * errorRate);
+                    long throttled = demand > admitted ? 1 : 0;
+                    int op = controllers[i].decide(samples, errors, latencyNanos, throttled);
+                    shared.apply(op, second * 1_000_000L + i * 200_000L, 1_000_000L, step, ratio, minRate, maxRate);
+                }
+            }
+            double meanUtilization = utilizationSum / tail;
+            System.out.printf("capacity=%.0f rate:%s | last %ds: mean admitted/capacity=%.3f overloaded seconds=%d%n",
+                    capacity, trace, tail, meanUtilization, overloaded);
+            Assert.assertTrue(meanUtilization > 0.8 && meanUtilization < 1.05);
+            Assert.assertTrue(overloaded <= tail / 5);
+        }
+    }
+
+    /**
+     * 反馈驱动 redis 中的共享速率: 有被限流的健康窗口加性增大, 延迟翻倍的窗口乘性减小
+     */
+    @Test
+    public void feedbackTest() throws InterruptedException {
+        SmoothBurstyRateLimiter delegate = new SmoothBurstyRateLimiter(jedisPool, "ADAPTIVE_RL:" + System.currentTimeMillis(), 100);
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(delegate, 10, 1000);
+        limiter.setSampleWindow(Duration.ofMillis(200));
+        limiter.setIncreaseStep(50);
+        limiter.setBackoffRatio(0.5);
+
+        // 健康且被限流: 增大
+        runWindow(limiter, TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertEquals(150.0, limiter.getRate(), 0.001);
+        Assert.assertEquals("150", delegate.queryState().get("permitsPerSecond").replaceAll("\\.0+$", ""));
+
+        // 延迟翻了 5 倍: 减小
+        runWindow(limiter, TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals(75.0, limiter.getRate(), 0.001);
+        Assert.assertEquals(75.0, delegate.getPermitsPerSecond(), 0.001);
+        System.out.println(delegate.queryState());
+        delegate.destroy();
+    }
+
+    /**
+     * 打满令牌产生限流, 反馈 20 次, 等窗口结束后触发判定
+     */
+    private void runWindow(AdaptiveRateLimiter limiter, long latencyNanos) throws InterruptedException {
+        while (limiter.tryAcquire()) {
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.release(AdaptiveRateLimiter.Outcome.SUCCESS, latencyNanos);
+        }
+        Thread.sleep(250);
+        // 换窗口, 提交上个窗口的判定
+        limiter.release(AdaptiveRateLimiter.Outcome.SUCCESS, latencyNanos);
+        Thread.sleep(100);
+    }
+
+    /**
+     * 共享速率, 与 SmoothBurstyAdaptRateScript 相同的规则
+     */
+    private static final class SharedRate {
+        double rate;
+        long lastIncreaseMicros = Long.MIN_VALUE / 2;
+        long lastDecreaseMicros = Long.MIN_VALUE / 2;
+
+        SharedRate(double rate) {
+            this.rate = rate;
+        }
+
+        void apply(int op, long nowMicros, long cooldownMicros, double step, double ratio, double minRate, double maxRate) {
+            if (op < 0 && nowMicros - lastDecreaseMicros >= cooldownMicros) {
+                rate = Math.max(minRate, rate * ratio);
+                lastDecreaseMicros = nowMicros;
+            } else if (op > 0 && nowMicros - Math.max(lastIncreaseMicros, lastDecreaseMicros) >= cooldownMicros) {
+                rate = Math.min(maxRate, rate + step);
+                lastIncreaseMicros = nowMicros;
+            }
+        }
+    }
+
+}
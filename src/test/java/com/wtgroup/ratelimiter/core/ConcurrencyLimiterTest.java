@@ -0,0 +1,168 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.util.SleepUtil;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrencyLimiterTest {
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+        genericObjectPoolConfig.setMaxTotal(220);
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @Test
+    public void acquireRelease() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(jedisPool, "CONCURRENCY:" + System.currentTimeMillis(), 2, Duration.ofSeconds(10));
+
+        ConcurrencyLimiter.Lease a = limiter.tryAcquire();
+        ConcurrencyLimiter.Lease b = limiter.tryAcquire();
+        Assert.assertNotNull(a);
+        Assert.assertNotNull(b);
+        Assert.assertNull(limiter.tryAcquire());
+        Assert.assertNull(limiter.tryAcquireAsync(Duration.ofMillis(30)).join());
+
+        Assert.assertTrue(limiter.release(a));
+        Assert.assertFalse(limiter.release(a));
+        try (ConcurrencyLimiter.Lease c = limiter.acquireAsync().join()) {
+            Assert.assertNotNull(c);
+            Assert.assertNull(limiter.tryAcquire());
+        }
+        b.close();
+        Assert.assertNotNull(limiter.tryAcquire(Duration.ofMillis(100)));
+    }
+
+    /**
+     * 崩溃节点未归还的租约到期后收回
+     */
+    @Test
+    public void leaseExpiry() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(jedisPool, "CONCURRENCY_EXPIRY:" + System.currentTimeMillis(), 3, Duration.ofMillis(200));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNotNull(limiter.tryAcquire());
+        }
+        Assert.assertNull(limiter.tryAcquire());
+
+        ConcurrencyLimiter.Lease late = limiter.acquire();
+        Assert.assertNotNull(late);
+        Thread.sleep(250);
+        Assert.assertTrue(late.isExpired());
+        // 已被回收, 归还无效
+        Assert.assertFalse(limiter.release(late));
+    }
+
+    /**
+     * 200 个线程分属两个节点 (B 开启本地缓存), 上限 20, 租期 1s (大于 200 线程争抢单核时最坏的调度延迟).
+     * 2% 的领取不归还 (模拟请求中途崩溃), 中途节点 B 整体崩溃, 其持有和缓存的租约都不归还.
+     * 在途数与 redis 中未到期的租约数任何时刻都不超过上限; 崩溃后名额到期收回, 节点 A 继续拿到租约.
+     */
+    @Test
+    public void stressTest() throws InterruptedException {
+        String key = "CONCURRENCY_STRESS:" + System.currentTimeMillis();
+        int max = 20;
+        Duration leaseTime = Duration.ofSeconds(1);
+        ConcurrencyLimiter podA = new ConcurrencyLimiter(jedisPool, key, max, leaseTime);
+        ConcurrencyLimiter podB = new ConcurrencyLimiter(jedisPool, key, max, leaseTime);
+        podB.setLocalCache(4);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger maxLeases = new AtomicInteger();
+        AtomicInteger abandoned = new AtomicInteger();
+        AtomicInteger expiredOnRelease = new AtomicInteger();
+        AtomicLong acquiredAfterCrash = new AtomicLong();
+        AtomicLong total = new AtomicLong();
+
+        long start = System.currentTimeMillis();
+        long crashAt = start + 1000;
+        long end = start + 4000;
+        CountDownLatch done = new CountDownLatch(200);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 200; t++) {
+            boolean onB = t % 2 == 1;
+            ConcurrencyLimiter limiter = onB ? podB : podA;
+            threads.add(new Thread(() -> {
+                try {
+                    while (System.currentTimeMillis() < end && !(onB && System.currentTimeMillis() >= crashAt)) {
+                        ConcurrencyLimiter.Lease lease = limiter.tryAcquire();
+                        if (lease == null) {
+                            SleepUtil.sleepUninterruptibly(2, TimeUnit.MILLISECONDS);
+                            continue;
+                        }
+                        total.incrementAndGet();
+                        if (!onB && System.currentTimeMillis() > crashAt + leaseTime.toMillis()) {
+                            acquiredAfterCrash.incrementAndGet();
+                        }
+                        int now = inFlight.incrementAndGet();
+                        maxInFlight.accumulateAndGet(now, Math::max);
+                        SleepUtil.sleepUninterruptibly(ThreadLocalRandom.current().nextInt(20), TimeUnit.MILLISECONDS);
+                        inFlight.decrementAndGet();
+                        if (ThreadLocalRandom.current().nextInt(100) < 2 || (onB && System.currentTimeMillis() >= crashAt)) {
+                            abandoned.incrementAndGet();
+                            continue;
+                        }
+                        if (lease.isExpired()) {
+                            expiredOnRelease.incrementAndGet();
+                        }
+                        lease.close();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+
+        Thread monitor = new Thread(() -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                while (done.getCount() > 0) {
+                    List<String> time = jedis.time();
+                    long nowMicros = Long.parseLong(time.get(0)) * 1000000 + Long.parseLong(time.get(1));
+                    long leases = jedis.zcount(key, "(" + nowMicros, "+inf");
+                    maxLeases.accumulateAndGet((int) leases, Math::max);
+                    SleepUtil.sleepUninterruptibly(5, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+        threads.forEach(Thread::start);
+        monitor.start();
+        done.await();
+        monitor.join();
+
+        System.out.println("acquired=" + total + " abandoned=" + abandoned + " acquiredAfterCrash=" + acquiredAfterCrash
+                + " maxInFlight=" + maxInFlight + " maxLeases=" + maxLeases + " expiredOnRelease=" + expiredOnRelease);
+        // 前提: 在途请求都在租期内结束
+        Assert.assertEquals(0, expiredOnRelease.get());
+        Assert.assertTrue(maxInFlight.get() <= max);
+        Assert.assertTrue(maxLeases.get() <= max);
+        Assert.assertTrue(abandoned.get() > 0);
+        Assert.assertTrue(acquiredAfterCrash.get() > 0);
+
+        // 所有未归还的租约到期后, 名额全部收回
+        podA.close();
+        Thread.sleep(leaseTime.toMillis() + 50);
+        ConcurrencyLimiter fresh = new ConcurrencyLimiter(jedisPool, key, max, leaseTime);
+        for (int i = 0; i < max; i++) {
+            Assert.assertNotNull(fresh.tryAcquire());
+        }
+        Assert.assertNull(fresh.tryAcquire());
+    }
+
+}
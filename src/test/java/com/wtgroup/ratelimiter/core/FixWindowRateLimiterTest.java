@@ -1,11 +1,25 @@
 package com.wtgroup.ratelimiter.core;
 
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.StubRedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import redis.clients.jedis.JedisPool;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 
 public class FixWindowRateLimiterTest {
 
@@ -68,7 +82,252 @@ public class FixWindowRateLimiterTest {
         }
     }
 
+    @Test
+    public void acquireAsync() {
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, null, 5, Duration.ofSeconds(1));
+
+        CompletableFuture<?>[] futures = new CompletableFuture[20];
+        for (int i = 0; i < futures.length; i++) {
+            int seq = i;
+            futures[i] = rateLimiter.acquireAsync()
+                    .thenAccept(waited -> System.out.println(seq + " acquire wait " + waited + " 秒"));
+        }
+        CompletableFuture.allOf(futures).join();
+    }
 
+    @Test
+    public void tryAcquireAsync() {
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, null, 5, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 10; i++) {
+            System.out.println("tryAcquireAsync : " + rateLimiter.tryAcquireAsync(Duration.ofMillis(100)).join());
+        }
+    }
+
+    @Test
+    public void tryAcquireBatch() {
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, "FIX_WINDOW_BATCH:" + System.nanoTime(), 3, Duration.ofSeconds(10));
+
+        // 500 条消息, 分属 100 个 key, 每个 key 5 条, 一次往返
+        String[] keys = new String[500];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "user" + (i % 100);
+        }
+        long start = System.currentTimeMillis();
+        BitSet acquired = rateLimiter.tryAcquireBatch(keys, null);
+        System.out.println("batch of " + keys.length + " cost " + (System.currentTimeMillis() - start) + "ms, acquired " + acquired.cardinality());
+        // 每个 key 前 3 条通过
+        Assert.assertEquals(300, acquired.cardinality());
+        Assert.assertEquals(300, acquired.nextClearBit(0));
+
+        // 申请数超过上限的拿不到
+        BitSet weighted = rateLimiter.tryAcquireBatch(new String[]{"w1", "w2"}, new int[]{3, 4});
+        Assert.assertTrue(weighted.get(0));
+        Assert.assertFalse(weighted.get(1));
+    }
+
+    @Test
+    public void setLimit() throws InterruptedException {
+        String prefix = "FIX_WINDOW_SET_LIMIT:" + System.nanoTime();
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, prefix, 5, Duration.ofSeconds(10));
+        FixWindowRateLimiter otherNode = new FixWindowRateLimiter(jedisPool, prefix, 5, Duration.ofSeconds(10));
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+
+        rateLimiter.setLimit(2);
+        // 另一个节点本地仍是 5, 下次调用即按 redis 中的 2
+        Assert.assertTrue(otherNode.tryAcquire());
+        Assert.assertTrue(otherNode.tryAcquire());
+        Assert.assertFalse(otherNode.tryAcquire());
+
+        Map<String, Object> state = otherNode.queryState();
+        Assert.assertEquals(2, state.get("limit"));
+        Assert.assertEquals(10000L, state.get("windowMillis"));
+        Assert.assertEquals(2L, state.get("count"));
+    }
+
+    /**
+     * 按权重获取与退还: 上限 10, 预估 6 + 4 占满窗口, 退还 5 后可再拿 5; 超过上限的申请永远拿不到
+     */
+    @Test
+    public void weightedPermitsTest() throws InterruptedException {
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, "FIX_WINDOW_WEIGHTED:" + System.currentTimeMillis(), 10, Duration.ofSeconds(10));
+        // 留足窗口内的时间, 避免中途换窗口
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+
+        Assert.assertTrue(rateLimiter.tryAcquire(6));
+        long acquiredAt = System.currentTimeMillis();
+        Assert.assertFalse(rateLimiter.tryAcquire(5));
+        Assert.assertTrue(rateLimiter.tryAcquire(4));
+        Assert.assertFalse(rateLimiter.tryAcquire());
+
+        Assert.assertEquals(5, rateLimiter.refund(5, acquiredAt));
+        Assert.assertEquals(5L, rateLimiter.queryState().get("count"));
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(5, Duration.ZERO).join());
+        Assert.assertFalse(rateLimiter.tryAcquire(1));
+
+        // 不减到 0 以下; 过去的窗口不退
+        Assert.assertEquals(10, rateLimiter.refund(100, acquiredAt));
+        Assert.assertEquals(0, rateLimiter.refund(1, acquiredAt - 10000));
+
+        Assert.assertFalse(rateLimiter.tryAcquire(11, Duration.ofSeconds(30)));
+        try {
+            rateLimiter.acquire(11);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+
+        rateLimiter.setFair(true);
+        Assert.assertTrue(rateLimiter.tryAcquire(7, Duration.ofMillis(100)));
+        Assert.assertFalse(rateLimiter.tryAcquire(11, Duration.ofSeconds(30)));
+    }
 
+    /**
+     * 40 个线程同时 acquire, 上限 10/秒, 对比睡眠到窗口边界重试与公平排队:
+     * 之后各窗口开头 50ms 内的 redis 调用数 (边界上的集中重试), 每 50ms 内最多放行数, 等待时长分布.
+     */
+    @Test
+    public void fairQueueTest() throws InterruptedException {
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(40);
+        JedisPool pool = new JedisPool(poolConfig, "ws-docker");
+        try {
+            QueueStats unfair = runQueue(pool, false);
+            QueueStats fair = runQueue(pool, true);
+            System.out.println("unfair: " + unfair);
+            System.out.println("fair:   " + fair);
+            // unfair: calls=100 boundaryCalls=60 wakePeak=10 wait(ms) min=0 p50=1697 max=2695
+            // fair:   calls=40 boundaryCalls=0 wakePeak=1 wait(ms) min=0 p50=1784 max=3677
+
+            // 每个调用只访问一次 redis, 窗口边界上没有集中的重试, 放行在窗口内错开
+            Assert.assertEquals(40, fair.calls);
+            Assert.assertEquals(0, fair.boundaryCalls);
+            Assert.assertTrue(unfair.boundaryCalls >= 30);
+            Assert.assertTrue(fair.wakePeak < unfair.wakePeak);
+            // 按到达顺序排队, 最迟排到第 4 个窗口
+            Assert.assertTrue(fair.waits[fair.waits.length - 1] < 4000);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void fairQueueFullTest() throws InterruptedException {
+        long windowMs = 1000;
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(jedisPool, "FIX_WINDOW_QUEUE_FULL_" + System.nanoTime(),
+                2, Duration.ofMillis(windowMs));
+        rateLimiter.setFair(true);
+        rateLimiter.setMaxQueueWindows(1);
+
+        // 在窗口开始后到达, 5 个排队请求在同一窗口内完成排队
+        Thread.sleep(windowMs - System.currentTimeMillis() % windowMs + 50);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(rateLimiter.tryAcquireAsync(1, Duration.ofSeconds(10)));
+        }
+        int passed = 0;
+        for (CompletableFuture<Boolean> future : futures) {
+            passed += future.join() ? 1 : 0;
+        }
+        // 当前窗口 2 个, 下一个窗口 2 个, 第 5 个超过排队深度, 不等超时直接失败
+        Assert.assertEquals(4, passed);
+    }
+
+    private QueueStats runQueue(JedisPool pool, boolean fair) throws InterruptedException {
+        int threads = 40;
+        long windowMs = 1000;
+        CountingExecutor executor = new CountingExecutor(new JedisRedisExecutor(pool));
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(executor, "FIX_WINDOW_QUEUE_" + fair + "_" + System.nanoTime(),
+                10, Duration.ofMillis(windowMs));
+        rateLimiter.setFair(fair);
+
+        // 在窗口开始 200ms 后同时到达, 到达本身不落在窗口边界上
+        long now = System.currentTimeMillis();
+        long arrive = (now / windowMs + 1) * windowMs + 200;
+        long arrivalWindow = arrive / windowMs;
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] waits = new long[threads];
+        Map<Long, Integer> wakes = new ConcurrentHashMap<>();
+        for (int i = 0; i < threads; i++) {
+            int seq = i;
+            new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                waits[seq] = Math.round(rateLimiter.acquire() * 1000);
+                long wakeAt = System.currentTimeMillis();
+                if (wakeAt / windowMs > arrivalWindow) {
+                    wakes.merge(wakeAt / 50, 1, Integer::sum);
+                }
+                done.countDown();
+            }).start();
+        }
+        Thread.sleep(arrive - System.currentTimeMillis());
+        go.countDown();
+        done.await();
+
+        QueueStats stats = new QueueStats();
+        stats.calls = executor.calls.size();
+        for (long at : executor.calls) {
+            if (at / windowMs > arrivalWindow && at % windowMs < 50) {
+                stats.boundaryCalls++;
+            }
+        }
+        stats.wakePeak = wakes.values().stream().max(Integer::compare).orElse(0);
+        Arrays.sort(waits);
+        stats.waits = waits;
+        return stats;
+    }
+
+    private static class QueueStats {
+        int calls;
+        int boundaryCalls;
+        int wakePeak;
+        long[] waits;
+
+        @Override
+        public String toString() {
+            return "calls=" + calls + " boundaryCalls=" + boundaryCalls + " wakePeak=" + wakePeak
+                    + " wait(ms) min=" + waits[0] + " p50=" + waits[waits.length / 2] + " max=" + waits[waits.length - 1]
+                    + " all=" + Arrays.toString(waits);
+        }
+    }
+
+    /**
+     * 记录每次脚本调用的时点
+     */
+    private static class CountingExecutor extends StubRedisExecutor {
+        final RedisExecutor delegate;
+        final ConcurrentLinkedQueue<Long> calls = new ConcurrentLinkedQueue<>();
+
+        CountingExecutor(RedisExecutor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+            calls.add(System.currentTimeMillis());
+            return delegate.evalLong(script, keyCount, params);
+        }
+
+        @Override
+        public Object eval(RedisScript script, List<String> keys, List<String> args) {
+            calls.add(System.currentTimeMillis());
+            return delegate.eval(script, keys, args);
+        }
+
+        @Override
+        public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+            calls.add(System.currentTimeMillis());
+            return delegate.evalAsync(script, keys, args);
+        }
+    }
 
 }
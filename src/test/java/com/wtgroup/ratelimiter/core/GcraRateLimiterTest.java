@@ -0,0 +1,83 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+
+public class GcraRateLimiterTest {
+    private JedisPool jedisPool;
+
+    private GcraRateLimiter rateLimiter;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @After
+    public void after() {
+        if (rateLimiter != null) {
+            rateLimiter.destroy();
+        }
+        jedisPool.close();
+    }
+
+    /**
+     * 同 {@link SmoothBurstyRateLimiterTest#SmoothBursty()} 的节奏
+     */
+    @Test
+    public void smoothBurstyTest() {
+        rateLimiter = new GcraRateLimiter(jedisPool, "GCRA_1", 5);
+
+        for (int i = 0; i < 3; i++) {
+            double w5 = rateLimiter.acquire(5);
+            double w1 = rateLimiter.acquire(1);
+            double w2 = rateLimiter.acquire(1);
+            double w3 = rateLimiter.acquire(1);
+            System.out.println("get 5 tokens: " + w5 + "s, get 1 tokens: " + w1 + "s, " + w2 + "s, " + w3 + "s");
+            if (i == 0) {
+                // 满桶: 5 个用存量, 下一个透支不等
+                Assert.assertEquals(0.0, w5, 0.0);
+                Assert.assertEquals(0.0, w1, 0.05);
+            }
+            Assert.assertEquals(0.2, w3, 0.05);
+        }
+        /*
+         * get 5 tokens: 0.0s, get 1 tokens: 0.0s, 0.2s, 0.2s
+         * get 5 tokens: 0.2s, get 1 tokens: 1.0s, 0.2s, 0.2s
+         */
+    }
+
+    @Test
+    public void tryAcquireTest() {
+        rateLimiter = new GcraRateLimiter(jedisPool, "GCRA_TRY", 5);
+
+        Assert.assertTrue(rateLimiter.tryAcquire(5));
+        // 透支一个
+        Assert.assertTrue(rateLimiter.tryAcquire(1));
+        Assert.assertFalse(rateLimiter.tryAcquire(1));
+        Assert.assertTrue(rateLimiter.tryAcquire(Duration.ofMillis(500)));
+    }
+
+    @Test
+    public void singleIntegerTest() {
+        rateLimiter = new GcraRateLimiter(jedisPool, "GCRA_TYPE", 5);
+        rateLimiter.acquire();
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Assert.assertEquals("string", jedis.type("GCRA_TYPE"));
+            Long.parseLong(jedis.get("GCRA_TYPE"));
+            // 攒满 1 秒后过期
+            Assert.assertTrue(jedis.pttl("GCRA_TYPE") <= 1001);
+        }
+    }
+
+}
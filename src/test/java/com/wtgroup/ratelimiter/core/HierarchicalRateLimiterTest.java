@@ -0,0 +1,101 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.List;
+
+public class HierarchicalRateLimiterTest {
+
+    private JedisRedisExecutor redisExecutor;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        redisExecutor = new JedisRedisExecutor(new JedisPool(genericObjectPoolConfig, "ws-docker"));
+    }
+
+    /**
+     * 任何一级拒绝都不扣减其他级
+     */
+    @Test
+    public void tryAcquireTest() throws InterruptedException {
+        String prefix = "HRL:" + System.nanoTime();
+        HierarchicalRateLimiter rateLimiter = new HierarchicalRateLimiter(redisExecutor)
+                .addSmoothBursty("user", prefix + ":user", 3)
+                .addFixWindow("tenant", prefix + ":tenant", 5, Duration.ofSeconds(10))
+                .addSmoothBursty("global", prefix + ":global", 100);
+        // 整个过程在同一个 10s 窗口内
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+        String tenantKey = prefix + ":tenant:t1:" + (System.currentTimeMillis() / 10000);
+
+        try (Jedis jedis = redisExecutor.getJedisPool().getResource()) {
+            // u0 攒满 3 个, 再透支 1 个
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(HierarchicalRateLimiter.PERMITTED, rateLimiter.tryAcquire(1, "u0", "t1"));
+            }
+            List<String> global = bucket(jedis, prefix + ":global");
+
+            // user 级拒绝, tenant / global 不扣减
+            Assert.assertEquals(0, rateLimiter.tryAcquire(1, "u0", "t1"));
+            Assert.assertEquals("user", rateLimiter.levelName(0));
+            Assert.assertEquals("4", jedis.get(tenantKey));
+            Assert.assertEquals(global, bucket(jedis, prefix + ":global"));
+
+            Assert.assertEquals(HierarchicalRateLimiter.PERMITTED, rateLimiter.tryAcquire(1, "u1", "t1"));
+            Assert.assertEquals("5", jedis.get(tenantKey));
+            List<String> user = bucket(jedis, prefix + ":user:u1");
+            global = bucket(jedis, prefix + ":global");
+
+            // tenant 级拒绝, user / global 不扣减, 未初始化的 user 级也不写入
+            Assert.assertEquals(1, rateLimiter.tryAcquire(1, "u1", "t1"));
+            Assert.assertEquals(1, rateLimiter.tryAcquire(1, "u2", "t1"));
+            Assert.assertEquals("tenant", rateLimiter.levelName(1));
+            Assert.assertEquals("5", jedis.get(tenantKey));
+            Assert.assertEquals(user, bucket(jedis, prefix + ":user:u1"));
+            Assert.assertFalse(jedis.exists(prefix + ":user:u2"));
+            Assert.assertEquals(global, bucket(jedis, prefix + ":global"));
+        }
+    }
+
+    private static List<String> bucket(Jedis jedis, String key) {
+        List<String> state = jedis.hmget(key, "storedPermits", "nextFreeTicketMicros");
+        Assert.assertNotNull(state.get(1));
+        return state;
+    }
+
+    @Test
+    public void overrideTest() {
+        String suffix = String.valueOf(System.nanoTime());
+        // 同一 key 的单级限流器改过的上限 / 速率
+        new FixWindowRateLimiter(redisExecutor, "HRL_TENANT:" + suffix, 5, Duration.ofSeconds(10)).setLimit(2);
+        SmoothBurstyRateLimiter user = new SmoothBurstyRateLimiter(redisExecutor, "HRL_USER:" + suffix, 3);
+        user.setRate(100);
+
+        HierarchicalRateLimiter limiter = new HierarchicalRateLimiter(redisExecutor)
+                .addSmoothBursty("user", "HRL_USER", 3)
+                .addFixWindow("tenant", "HRL_TENANT", 5, Duration.ofSeconds(10));
+        int permitted = 0;
+        for (int i = 0; i < 5; i++) {
+            if (limiter.tryAcquire(1, suffix, suffix) == HierarchicalRateLimiter.PERMITTED) {
+                permitted++;
+            }
+        }
+        // 固定窗口级按覆盖的 2 个 (不考虑 2 次调用间跨 10s 窗口)
+        Assert.assertEquals(2, permitted);
+        // 速率被 setRate 改过的平滑突发级不设过期
+        try (Jedis jedis = redisExecutor.getJedisPool().getResource()) {
+            Assert.assertEquals(Long.valueOf(-1), jedis.ttl("HRL_USER:" + suffix));
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.StubRedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * 限流器自身的热路径不分配对象: 用不分配的 executor 隔离掉客户端库, 按线程分配计数统计每次调用的字节数.
+ * <p>
+ * 窗口切换时重新编码参数, 摊到每次调用远小于 1 字节. 客户端库的分配见 benchmarks 模块的 HotPathAllocationBenchmark.
+ */
+public class HotPathAllocationTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 1_000_000;
+
+    @Test
+    public void fixWindowTryAcquireTest() {
+        FixWindowRateLimiter rateLimiter = new FixWindowRateLimiter(new ConstantExecutor(1), "ALLOC_FIX_WINDOW", 1000, Duration.ofSeconds(1));
+        double bytesPerOp = measure(rateLimiter::tryAcquire);
+        System.out.println("FixWindowRateLimiter.tryAcquire: " + bytesPerOp + " B/op");
+        Assert.assertTrue(bytesPerOp < 1);
+    }
+
+    @Test
+    public void smoothBurstyAcquireTest() {
+        SmoothBurstyRateLimiter rateLimiter = new SmoothBurstyRateLimiter(new ConstantExecutor(0), "ALLOC_SMOOTH_BURSTY", 1000, true);
+        double bytesPerOp = measure(rateLimiter::acquire);
+        System.out.println("SmoothBurstyRateLimiter.acquire: " + bytesPerOp + " B/op");
+        Assert.assertTrue(bytesPerOp < 1);
+
+        bytesPerOp = measure(rateLimiter::tryAcquire);
+        System.out.println("SmoothBurstyRateLimiter.tryAcquire: " + bytesPerOp + " B/op");
+        Assert.assertTrue(bytesPerOp < 1);
+    }
+
+    private static double measure(Runnable call) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        long after = threadMXBean.getThreadAllocatedBytes(threadId);
+        return 1.0 * (after - before) / CALLS;
+    }
+
+    /**
+     * 只实现二进制执行, 返回固定值
+     */
+    private static class ConstantExecutor extends StubRedisExecutor {
+        private final long result;
+
+        ConstantExecutor(long result) {
+            this.result = result;
+        }
+
+        @Override
+        public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+            return result;
+        }
+    }
+
+}
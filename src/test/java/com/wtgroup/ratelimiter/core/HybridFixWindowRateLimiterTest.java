@@ -0,0 +1,90 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.StubRedisExecutor;
+import com.wtgroup.ratelimiter.script.FixWindowSyncScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 被限流的流量放大 100 倍, redis 调用数不变.
+ * <p>
+ * 用内存中模拟 {@link FixWindowSyncScript} 的 executor 计数, 不需要 redis.
+ */
+public class HybridFixWindowRateLimiterTest {
+
+    @Test
+    public void redisCallsFlatTest() throws InterruptedException {
+        long calls1x = run("HYBRID_1X", 1_000);
+        long calls100x = run("HYBRID_100X", 100_000);
+        System.out.println("redis calls: 1x=" + calls1x + ", 100x=" + calls100x);
+        Assert.assertTrue(calls100x <= calls1x + 2);
+    }
+
+    @Test
+    public void limitTest() throws InterruptedException {
+        FakeExecutor executor = new FakeExecutor();
+        HybridFixWindowRateLimiter rateLimiter = new HybridFixWindowRateLimiter(executor, "HYBRID_LIMIT", 100, Duration.ofHours(1), 10, Duration.ofMillis(20));
+        int acquired = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (rateLimiter.tryAcquire()) {
+                acquired++;
+            }
+        }
+        rateLimiter.flush();
+        // 单节点: 本地额度不超过剩余额度, 不多放
+        Assert.assertEquals(100, acquired);
+        Assert.assertEquals(100, executor.total());
+    }
+
+    /**
+     * 上限 100, 放行流量不变, 其余都是被限流的请求
+     *
+     * @return redis 调用数
+     */
+    private long run(String keyPrefix, int requests) throws InterruptedException {
+        FakeExecutor executor = new FakeExecutor();
+        HybridFixWindowRateLimiter rateLimiter = new HybridFixWindowRateLimiter(executor, keyPrefix, 100, Duration.ofHours(1), 10, Duration.ofMillis(20));
+        for (int i = 0; i < requests; i++) {
+            rateLimiter.tryAcquire();
+        }
+        Thread.sleep(100);
+        return executor.calls.get();
+    }
+
+    private static class FakeExecutor extends StubRedisExecutor {
+        final AtomicInteger calls = new AtomicInteger();
+        final Map<String, Long> counts = new ConcurrentHashMap<>();
+
+        long total() {
+            return counts.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public synchronized Object eval(RedisScript script, List<String> keys, List<String> args) {
+            Assert.assertTrue(script instanceof FixWindowSyncScript);
+            calls.incrementAndGet();
+            long limit = Long.parseLong(args.get(0));
+            long current = counts.merge(keys.get(0), Long.parseLong(args.get(2)), Long::sum);
+            long requested = Long.parseLong(args.get(3));
+            boolean granted = current + requested <= limit;
+            if (granted && requested > 0) {
+                current = counts.merge(keys.get(0), requested, Long::sum);
+            }
+            long remaining = Math.max(limit - current, 0);
+            return granted ? remaining : -1 - remaining;
+        }
+
+        @Override
+        public void del(String key) {
+            counts.remove(key);
+        }
+    }
+
+}
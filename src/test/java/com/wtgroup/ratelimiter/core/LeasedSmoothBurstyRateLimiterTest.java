@@ -0,0 +1,102 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LeasedSmoothBurstyRateLimiterTest {
+    private static final int RATE = 1000;
+    private static final int ERROR_BUDGET = 100;
+
+    private JedisPool jedisPool;
+
+    private SmoothBurstyRateLimiter delegate;
+    private LeasedSmoothBurstyRateLimiter rateLimiter;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+        this.delegate = new SmoothBurstyRateLimiter(jedisPool, "LSBRL:" + System.nanoTime(), RATE);
+        this.rateLimiter = new LeasedSmoothBurstyRateLimiter(delegate, ERROR_BUDGET, Duration.ofMillis(200));
+    }
+
+    @Test
+    public void acquireTest() {
+        long start = System.nanoTime();
+        for (int i = 0; i < 5000; i++) {
+            rateLimiter.acquire();
+        }
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+        System.out.println("5000 permits cost " + Math.round(elapsedSec * 1000) + "ms");
+        // 初始存量 1000, 其余 4000 按 1000/s 发放, 提前发放的不超过 errorBudget
+        Assert.assertTrue(elapsedSec >= (5000.0 - RATE - ERROR_BUDGET - 1) / RATE);
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        AtomicLong acquired = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        long start = System.nanoTime();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                long end = System.currentTimeMillis() + 3000;
+                while (System.currentTimeMillis() < end) {
+                    if (rateLimiter.tryAcquire()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        // 初始存量 + 速率 * 时长 + errorBudget; 另加 1 个: 走 redis 逐次预留时可透支 1 个
+        long allowed = (long) Math.ceil(RATE + RATE * elapsedSec) + ERROR_BUDGET + 1;
+        System.out.println("acquired in " + Math.round(elapsedSec * 1000) + "ms: " + acquired.get() + ", allowed " + allowed);
+        Assert.assertTrue(acquired.get() <= allowed);
+        Assert.assertTrue(acquired.get() >= RATE + RATE * 3 - ERROR_BUDGET * 3);
+    }
+
+    /**
+     * close 把租约中未用完的令牌还回 redis
+     */
+    @Test
+    public void closeTest() {
+        SmoothBurstyRateLimiter slow = new SmoothBurstyRateLimiter(jedisPool, "LSBRL_CLOSE:" + System.nanoTime(), 10);
+        LeasedSmoothBurstyRateLimiter leased = new LeasedSmoothBurstyRateLimiter(slow, 5, Duration.ofSeconds(10));
+        try {
+            // 首次租 1 个; 用完后按消耗速率续租, 批量取 errorBudget 5 个, 手上剩 4 个
+            Assert.assertTrue(leased.tryAcquire());
+            Assert.assertTrue(leased.tryAcquire());
+            double before = storedPermits(slow);
+            Assert.assertEquals(10 - 1 - 5, before, 0.5);
+
+            leased.close();
+            Assert.assertEquals(before + 4, storedPermits(slow), 0.5);
+        } finally {
+            slow.destroy();
+        }
+    }
+
+    private static double storedPermits(SmoothBurstyRateLimiter limiter) {
+        return Double.parseDouble(limiter.queryState().get("storedPermits"));
+    }
+
+    @After
+    public void after() {
+        rateLimiter.close();
+        delegate.destroy();
+    }
+
+}
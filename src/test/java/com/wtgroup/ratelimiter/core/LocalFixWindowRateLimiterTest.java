@@ -0,0 +1,53 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalFixWindowRateLimiterTest {
+
+    @Test
+    public void limitTest() {
+        LocalFixWindowRateLimiter rateLimiter = new LocalFixWindowRateLimiter(5, Duration.ofSeconds(10));
+
+        Assert.assertTrue(rateLimiter.tryAcquire(3));
+        Assert.assertTrue(rateLimiter.tryAcquire(2));
+        Assert.assertFalse(rateLimiter.tryAcquire());
+    }
+
+    @Test
+    public void nextWindowTest() {
+        LocalFixWindowRateLimiter rateLimiter = new LocalFixWindowRateLimiter(2, Duration.ofMillis(100));
+
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+        // 第三个要等到下个窗口
+        double waited = rateLimiter.acquire();
+        Assert.assertTrue("waited " + waited, waited > 0 && waited <= 0.1);
+        Assert.assertTrue(rateLimiter.tryAcquire(Duration.ofMillis(200)));
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        LocalFixWindowRateLimiter rateLimiter = new LocalFixWindowRateLimiter(1000, Duration.ofHours(1));
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(16);
+        for (int t = 0; t < 16; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (rateLimiter.tryAcquire()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        // 整点换窗口时可能多出一个窗口的量, 概率极低
+        Assert.assertEquals(1000, acquired.get());
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalSmoothBurstyRateLimiterTest {
+
+    @Test
+    public void burstThenRateTest() {
+        LocalSmoothBurstyRateLimiter rateLimiter = new LocalSmoothBurstyRateLimiter(5);
+
+        // 初始攒满 5 个
+        Assert.assertTrue(rateLimiter.tryAcquire(5));
+        // 透支: 本次不等, 下一次等
+        Assert.assertEquals(0.0, rateLimiter.acquire(2), 0.0);
+        Assert.assertFalse(rateLimiter.tryAcquire());
+        double waited = rateLimiter.acquire(1);
+        Assert.assertTrue("waited " + waited, waited > 0.3 && waited < 0.5);
+    }
+
+    @Test
+    public void tryAcquireTimeoutTest() {
+        LocalSmoothBurstyRateLimiter rateLimiter = new LocalSmoothBurstyRateLimiter(5);
+
+        Assert.assertTrue(rateLimiter.tryAcquire(5));
+        // 同 guava, 存量用完后仍可透支一次
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        // 下一个令牌 200ms 后
+        Assert.assertFalse(rateLimiter.tryAcquire(1, Duration.ofMillis(100)));
+        Assert.assertTrue(rateLimiter.tryAcquire(1, Duration.ofMillis(300)));
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        LocalSmoothBurstyRateLimiter rateLimiter = new LocalSmoothBurstyRateLimiter(100);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(16);
+        for (int t = 0; t < 16; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (rateLimiter.tryAcquire()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        // 初始 100 个, 加上运行期间新攒的少量
+        Assert.assertTrue("acquired " + acquired.get(), acquired.get() >= 100 && acquired.get() < 150);
+    }
+
+    @Test
+    public void acquireAsyncTest() {
+        LocalSmoothBurstyRateLimiter rateLimiter = new LocalSmoothBurstyRateLimiter(10);
+        Assert.assertTrue(rateLimiter.tryAcquire(10));
+        long start = System.currentTimeMillis();
+        rateLimiter.acquireAsync().join();
+        rateLimiter.acquireAsync().join();
+        Assert.assertTrue(System.currentTimeMillis() - start >= 90);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+
+public class RateLimiterRegistryTest {
+
+    private RedisExecutor redisExecutor;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.redisExecutor = new JedisRedisExecutor(new JedisPool(genericObjectPoolConfig, "ws-docker"));
+    }
+
+    @Test
+    public void perUserTest() {
+        RateLimiterRegistry<SmoothBurstyRateLimiter> registry = RateLimiterRegistry.smoothBursty(redisExecutor, "SBRL_USER", 5,
+                10000, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 10; i++) {
+            // 每个用户各自 5/s
+            System.out.println("user-1: " + registry.tryAcquire("user-1") + ", user-2: " + registry.tryAcquire("user-2"));
+        }
+    }
+
+    @Test
+    public void manyKeysTest() {
+        RateLimiterRegistry<FixWindowRateLimiter> registry = RateLimiterRegistry.fixWindow(redisExecutor, "FWRL_TENANT", 100, Duration.ofSeconds(1),
+                10000, Duration.ofMinutes(10));
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++) {
+            registry.tryAcquire("tenant-" + i);
+        }
+        // 本地最多缓存 10000 个
+        System.out.println("100000 keys cost " + (System.currentTimeMillis() - start) + "ms, cached: " + registry.size());
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.CircuitBreakerRedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.RedisUnavailableException;
+import com.wtgroup.ratelimiter.executor.StubRedisExecutor;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.CircuitBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 熔断与降级, 用可切换 故障/慢/正常 的 executor 模拟 redis, 不需要 redis.
+ */
+public class ResilientRateLimiterTest {
+
+    @Test
+    public void failModeTest() {
+        FlakyExecutor executor = new FlakyExecutor();
+        executor.down = true;
+        RedisExecutor breakerExecutor = new CircuitBreakerRedisExecutor(executor,
+                new CircuitBreaker("test", 3, Duration.ofSeconds(1), Duration.ofMinutes(1)));
+        FixWindowRateLimiter fixWindow = new FixWindowRateLimiter(breakerExecutor, "RESILIENT_MODE", 10, Duration.ofHours(1));
+
+        ResilientRateLimiter open = ResilientRateLimiter.of(fixWindow, ResilientRateLimiter.FailMode.OPEN, 1.0);
+        ResilientRateLimiter closed = ResilientRateLimiter.of(fixWindow, ResilientRateLimiter.FailMode.CLOSED, 1.0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(open.tryAcquire());
+            Assert.assertFalse(closed.tryAcquire());
+        }
+        Assert.assertTrue(open.tryAcquireAsync(Duration.ZERO).join());
+        Assert.assertFalse(closed.tryAcquireAsync(Duration.ZERO).join());
+        Assert.assertEquals(0.0, open.acquire(), 0.0);
+        try {
+            closed.acquire();
+            Assert.fail();
+        } catch (RedisUnavailableException expected) {
+        }
+        // 断开后不再访问 redis
+        Assert.assertEquals(3, executor.calls.get());
+    }
+
+    @Test
+    public void localFallbackTest() {
+        FlakyExecutor executor = new FlakyExecutor();
+        executor.down = true;
+        RedisExecutor breakerExecutor = new CircuitBreakerRedisExecutor(executor,
+                new CircuitBreaker("test", 3, Duration.ofSeconds(1), Duration.ofMinutes(1)));
+        FixWindowRateLimiter fixWindow = new FixWindowRateLimiter(breakerExecutor, "RESILIENT_LOCAL", 10, Duration.ofHours(1));
+        // 2 个实例, 降级时各分一半
+        ResilientRateLimiter rateLimiter = ResilientRateLimiter.of(fixWindow, ResilientRateLimiter.FailMode.LOCAL, 0.5);
+
+        int acquired = 0;
+        for (int i = 0; i < 100; i++) {
+            if (rateLimiter.tryAcquire()) {
+                acquired++;
+            }
+        }
+        Assert.assertEquals(5, acquired);
+    }
+
+    @Test
+    public void recoverTest() throws InterruptedException {
+        FlakyExecutor executor = new FlakyExecutor();
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(1), Duration.ofMillis(100));
+        FixWindowRateLimiter fixWindow = new FixWindowRateLimiter(new CircuitBreakerRedisExecutor(executor, breaker),
+                "RESILIENT_RECOVER", 1000, Duration.ofSeconds(1));
+        ResilientRateLimiter rateLimiter = ResilientRateLimiter.of(fixWindow, ResilientRateLimiter.FailMode.CLOSED, 1.0);
+
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        executor.down = true;
+        for (int i = 0; i < 10; i++) {
+            Assert.assertFalse(rateLimiter.tryAcquire());
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(4, executor.calls.get());
+        Assert.assertEquals(3, breaker.getFailures());
+        Assert.assertEquals(7, breaker.getNotPermitted());
+
+        // 探测失败, 重新断开
+        Thread.sleep(150);
+        Assert.assertFalse(rateLimiter.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(5, executor.calls.get());
+
+        // 探测成功, 恢复
+        executor.down = false;
+        Thread.sleep(150);
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        Assert.assertEquals(7, executor.calls.get());
+    }
+
+    @Test
+    public void latencyBudgetTest() {
+        FlakyExecutor executor = new FlakyExecutor();
+        executor.delayMillis = 20;
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMillis(5), Duration.ofMinutes(1));
+        FixWindowRateLimiter fixWindow = new FixWindowRateLimiter(new CircuitBreakerRedisExecutor(executor, breaker),
+                "RESILIENT_SLOW", 1000, Duration.ofSeconds(1));
+        ResilientRateLimiter rateLimiter = ResilientRateLimiter.of(fixWindow, ResilientRateLimiter.FailMode.OPEN, 1.0);
+
+        // 慢调用结果照常返回, 但计为失败
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(2, breaker.getSlowCalls());
+
+        long start = System.nanoTime();
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        Assert.assertTrue(System.nanoTime() - start < 5_000_000);
+        Assert.assertEquals(2, executor.calls.get());
+    }
+
+    /**
+     * 固定窗口脚本总是放行; down 时抛异常 (如连接被拒), delayMillis 模拟 redis 变慢
+     */
+    private static class FlakyExecutor extends StubRedisExecutor {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean down;
+        volatile long delayMillis;
+
+        @Override
+        public long evalLong(RedisScript script, int keyCount, byte[][] params) {
+            calls.incrementAndGet();
+            if (down) {
+                throw new IllegalStateException("Connection refused");
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return 1;
+        }
+
+        @Override
+        public Object eval(RedisScript script, List<String> keys, List<String> args) {
+            return evalLong(script, keys.size(), null);
+        }
+    }
+
+}
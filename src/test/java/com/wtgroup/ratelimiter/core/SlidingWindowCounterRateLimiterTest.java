@@ -0,0 +1,137 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Collections;
+
+public class SlidingWindowCounterRateLimiterTest {
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @Test
+    public void acquire() {
+        SlidingWindowCounterRateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(jedisPool, "SWCRL_1", 5, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 20; i++) {
+            System.out.println("acquire wait " + rateLimiter.acquire() + " 秒");
+        }
+    }
+
+    /**
+     * 窗口临界处: 前一个窗口末尾打满, 下个窗口开头不应再放行一整个窗口的量
+     */
+    @Test
+    public void boundaryBurst() throws InterruptedException {
+        SlidingWindowCounterRateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(jedisPool, "SWCRL_2:" + System.nanoTime(), 100, Duration.ofSeconds(1));
+
+        // 等到某一秒的后 100ms, 一次打满
+        Thread.sleep(1900 - System.currentTimeMillis() % 1000);
+        // 到下一秒的前 100ms 为止
+        long end = (System.currentTimeMillis() / 1000 + 1) * 1000 + 100;
+        Assert.assertTrue(rateLimiter.tryAcquire(100));
+        int passed = 100;
+        while (System.currentTimeMillis() < end) {
+            if (rateLimiter.tryAcquire()) {
+                passed++;
+            }
+        }
+        System.out.println("passed across boundary: " + passed);
+        // 前一秒末尾打满的 100 个在下一秒开头按剩余比例 (≥ 90%) 计入, 临界处只多放行约 10 个 (固定窗口此处可以再放行 100);
+        // 余量 2 个: 计数取整, 及 end 前发出的最后一次调用
+        Assert.assertTrue("passed " + passed, passed >= 100 && passed <= 112);
+    }
+
+    /**
+     * 每个 key 两个计数器, 内存与通过数无关
+     */
+    @Test
+    public void memoryUsage() throws InterruptedException {
+        String prefix = "SWCRL_MEM:" + System.nanoTime();
+        SlidingWindowCounterRateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(jedisPool, prefix, 1000, Duration.ofSeconds(10));
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+        String key = prefix + ":" + (System.currentTimeMillis() / 10000);
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        long bytes1 = memoryUsage(key);
+        for (int i = 1; i < 1000; i++) {
+            rateLimiter.tryAcquire();
+        }
+        long bytes1000 = memoryUsage(key);
+        System.out.println("memory per key: 1 hit " + bytes1 + " bytes, 1000 hits " + bytes1000 + " bytes");
+        Assert.assertTrue(bytes1000 <= bytes1 + 16);
+    }
+
+    private long memoryUsage(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (Long) jedis.eval("return redis.call('MEMORY', 'USAGE', KEYS[1])", Collections.singletonList(key), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 单机默认沿用不带 hash tag 的 key; setHashTagKeys 或 cluster / 分片时带 hash tag
+     */
+    @Test
+    public void keyLayout() throws InterruptedException {
+        if (System.currentTimeMillis() % 10000 > 9000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+        String prefix = "SWCRL_LAYOUT:" + System.currentTimeMillis();
+        JedisRedisExecutor legacy = new JedisRedisExecutor(jedisPool);
+        JedisRedisExecutor tagged = new JedisRedisExecutor(jedisPool);
+        tagged.setHashTagKeys(true);
+        Assert.assertTrue(new SlidingWindowCounterRateLimiter(legacy, prefix, 10, Duration.ofSeconds(10)).tryAcquire());
+        Assert.assertTrue(new SlidingWindowCounterRateLimiter(tagged, prefix, 10, Duration.ofSeconds(10)).tryAcquire());
+
+        long seq = System.currentTimeMillis() / 10000;
+        try (Jedis jedis = jedisPool.getResource()) {
+            Assert.assertEquals("1", jedis.get(prefix + ":" + seq));
+            Assert.assertEquals("1", jedis.get("{" + prefix + "}:" + seq));
+        }
+    }
+
+    /**
+     * 按权重获取与退还: 上限 10, 6 + 4 占满, 退还 5 后可再拿 5
+     */
+    @Test
+    public void weightedPermits() throws InterruptedException {
+        SlidingWindowCounterRateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(jedisPool, "SWCRL_WEIGHTED:" + System.currentTimeMillis(), 10, Duration.ofSeconds(10));
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+
+        Assert.assertTrue(rateLimiter.tryAcquire(6));
+        long acquiredAt = System.currentTimeMillis();
+        Assert.assertFalse(rateLimiter.tryAcquire(5));
+        Assert.assertTrue(rateLimiter.tryAcquire(4));
+        Assert.assertFalse(rateLimiter.tryAcquire());
+
+        Assert.assertEquals(5, rateLimiter.refund(5, acquiredAt));
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(5, Duration.ZERO).join());
+        Assert.assertFalse(rateLimiter.tryAcquire(1));
+        Assert.assertEquals(0, rateLimiter.refund(1, acquiredAt - 20000));
+
+        Assert.assertFalse(rateLimiter.tryAcquire(11, Duration.ofSeconds(30)));
+        try {
+            rateLimiter.acquire(11);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.wtgroup.ratelimiter.core;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Collections;
+
+public class SlidingWindowLogRateLimiterTest {
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @Test
+    public void acquire() {
+        SlidingWindowLogRateLimiter rateLimiter = new SlidingWindowLogRateLimiter(jedisPool, "SWLRL_1", 5, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 20; i++) {
+            System.out.println("acquire wait " + rateLimiter.acquire() + " 秒");
+        }
+    }
+
+    /**
+     * 窗口临界处: 前一个窗口末尾打满, 下个窗口开头不应再放行一整个窗口的量
+     */
+    @Test
+    public void boundaryBurst() throws InterruptedException {
+        SlidingWindowLogRateLimiter rateLimiter = new SlidingWindowLogRateLimiter(jedisPool, "SWLRL_2:" + System.nanoTime(), 100, Duration.ofSeconds(1));
+
+        // 等到某一秒的后 100ms, 一次打满
+        Thread.sleep(1900 - System.currentTimeMillis() % 1000);
+        // 到下一秒的前 100ms 为止
+        long end = (System.currentTimeMillis() / 1000 + 1) * 1000 + 100;
+        Assert.assertTrue(rateLimiter.tryAcquire(100));
+        int passed = 100;
+        while (System.currentTimeMillis() < end) {
+            if (rateLimiter.tryAcquire()) {
+                passed++;
+            }
+        }
+        System.out.println("passed across boundary: " + passed);
+        // 滑动窗口日志精确: 前一秒末尾的 100 个仍在窗口内, 临界处不再放行 (固定窗口此处可以再放行 100)
+        Assert.assertEquals(100, passed);
+    }
+
+    /**
+     * 有序集合记录窗口内每次通过, 内存与窗口内的通过数成正比
+     */
+    @Test
+    public void memoryUsage() {
+        String key = "SWLRL_MEM:" + System.nanoTime();
+        SlidingWindowLogRateLimiter rateLimiter = new SlidingWindowLogRateLimiter(jedisPool, key, 1000, Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.tryAcquire();
+        }
+        long bytes100 = memoryUsage(key);
+        for (int i = 0; i < 900; i++) {
+            rateLimiter.tryAcquire();
+        }
+        long bytes1000 = memoryUsage(key);
+        System.out.println("memory per key: 100 hits " + bytes100 + " bytes, 1000 hits " + bytes1000 + " bytes");
+        Assert.assertTrue(bytes1000 > bytes100 * 5);
+    }
+
+    private long memoryUsage(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (Long) jedis.eval("return redis.call('MEMORY', 'USAGE', KEYS[1])", Collections.singletonList(key), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 按权重获取与退还: 上限 10, 6 + 4 占满, 退还 5 后可再拿 5
+     */
+    @Test
+    public void weightedPermits() throws InterruptedException {
+        SlidingWindowLogRateLimiter rateLimiter = new SlidingWindowLogRateLimiter(jedisPool, "SWLRL_WEIGHTED:" + System.currentTimeMillis(), 10, Duration.ofSeconds(10));
+        if (System.currentTimeMillis() % 10000 > 8000) {
+            Thread.sleep(10000 - System.currentTimeMillis() % 10000);
+        }
+
+        Assert.assertTrue(rateLimiter.tryAcquire(6));
+        long acquiredAt = System.currentTimeMillis();
+        Assert.assertFalse(rateLimiter.tryAcquire(5));
+        Assert.assertTrue(rateLimiter.tryAcquire(4));
+        Assert.assertFalse(rateLimiter.tryAcquire());
+
+        Assert.assertEquals(5, rateLimiter.refund(5, acquiredAt));
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(5, Duration.ZERO).join());
+        Assert.assertFalse(rateLimiter.tryAcquire(1));
+        Assert.assertEquals(0, rateLimiter.refund(1, acquiredAt - 20000));
+
+        Assert.assertFalse(rateLimiter.tryAcquire(11, Duration.ofSeconds(30)));
+        try {
+            rateLimiter.acquire(11);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+}
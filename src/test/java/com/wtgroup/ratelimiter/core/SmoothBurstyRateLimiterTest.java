@@ -1,12 +1,22 @@
 package com.wtgroup.ratelimiter.core;
 
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SmoothBurstyRateLimiterTest {
     private JedisPool jedisPool;
@@ -96,6 +106,165 @@ public class SmoothBurstyRateLimiterTest {
          * */
     }
 
+    @Test
+    public void acquireAsyncTest() {
+        double rate = 50;
+        rateLimiter = new SmoothBurstyRateLimiter(jedisPool, "SBRL_ASYNC:" + System.nanoTime(), rate);
+        // 先取完初始攒满的令牌, 之后的等待者依次相隔 1/rate
+        rateLimiter.acquire((int) rate);
+
+        // 不占用调用方线程, 等待者挂在共用定时器上
+        CompletableFuture<?>[] futures = new CompletableFuture[20];
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = rateLimiter.acquireAsync(1);
+        }
+        System.out.println("submit " + futures.length + " acquirers cost " + (System.currentTimeMillis() - start) + "ms");
+        double lastWait = (Double) futures[futures.length - 1].join();
+        System.out.println("last waits " + lastWait + "s");
+        // 第 n 个等待 (n - 1) / rate
+        Assert.assertEquals((futures.length - 1) / rate, lastWait, 0.1);
+        Assert.assertEquals(0.0, (Double) futures[0].join(), 0.05);
+    }
+
+    @Test
+    public void tryAcquireAsyncTest() {
+        rateLimiter = new SmoothBurstyRateLimiter(jedisPool, "SBRL_TRY_ASYNC:" + System.nanoTime(), 5);
+
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(5).join());
+        // 存量用完, 透支 1 个, 下一个可用时点在 200ms 后
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(1, Duration.ofMillis(500)).join());
+        Assert.assertFalse(rateLimiter.tryAcquireAsync(1).join());
+        Assert.assertFalse(rateLimiter.tryAcquireAsync(5, Duration.ofMillis(100)).join());
+        // 超时内等得到的等待后拿到
+        long start = System.nanoTime();
+        Assert.assertTrue(rateLimiter.tryAcquireAsync(1, Duration.ofMillis(500)).join());
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void tryAcquireBatchTest() {
+        rateLimiter = new SmoothBurstyRateLimiter(jedisPool, "SBRL_BATCH:" + System.nanoTime(), 5);
+
+        String[] keys = new String[500];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "user" + (i % 100);
+        }
+        long start = System.currentTimeMillis();
+        BitSet acquired = rateLimiter.tryAcquireBatch(keys, null);
+        System.out.println("batch of " + keys.length + " cost " + (System.currentTimeMillis() - start) + "ms, acquired " + acquired.cardinality());
+        // 每个 key 初始攒满 5 个
+        Assert.assertEquals(500, acquired.cardinality());
+
+        // 每个 key 第 1 条透支拿到, 之后的被拒 (下一个令牌在 200ms 后)
+        BitSet again = rateLimiter.tryAcquireBatch(keys, null);
+        Assert.assertEquals(100, again.cardinality());
+        Assert.assertEquals(100, again.nextClearBit(0));
+    }
+    @Test
+    public void setRateTest() {
+        String id = "SBRL_SET_RATE:" + System.nanoTime();
+        rateLimiter = new SmoothBurstyRateLimiter(jedisPool, id, 5);
+        SmoothBurstyRateLimiter otherNode = new SmoothBurstyRateLimiter(new JedisRedisExecutor(jedisPool), id, 5, true);
+
+        Assert.assertTrue(rateLimiter.tryAcquire(5));
+        rateLimiter.setRate(1);
+        Map<String, String> state = rateLimiter.queryState();
+        Assert.assertEquals(1.0, Double.parseDouble(state.get("permitsPerSecond")), 0);
+        Assert.assertEquals(1000000.0, Double.parseDouble(state.get("stableIntervalMicros")), 0);
+        // 改过的速率不过期
+        try (Jedis jedis = jedisPool.getResource()) {
+            Assert.assertEquals(Long.valueOf(-1), jedis.pttl(id));
+        }
+
+        // 另一个节点 (本地仍是 5/s) 按新速率等待: 先透支 2 个, 下一个等约 2s
+        Assert.assertEquals(0.0, otherNode.acquire(2), 0.05);
+        Assert.assertEquals(2.0, otherNode.acquire(1), 0.1);
+        Assert.assertFalse(otherNode.tryAcquire());
+        try (Jedis jedis = jedisPool.getResource()) {
+            Assert.assertEquals(Long.valueOf(-1), jedis.pttl(id));
+        }
+    }
+
+    /**
+     * 并发 tryAcquire 不超发, 被拒的请求不扣减令牌
+     */
+    @Test
+    public void tryAcquireConcurrentTest() throws InterruptedException {
+        rateLimiter = new SmoothBurstyRateLimiter(jedisPool, "SBRL_CONCURRENT", 50);
+
+        int threads = 16;
+        long durationMs = 2000;
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(durationMs)) {
+                    if (rateLimiter.tryAcquire()) {
+                        admitted.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        // 初始攒满 50 个, 之后每秒 50 个
+        long allowed = (long) (50 + 50 * elapsedSec) + 1;
+        System.out.println("admitted " + admitted + ", rejected " + rejected + ", allowed " + allowed);
+        Assert.assertTrue(admitted.get() <= allowed);
+        Assert.assertTrue(admitted.get() >= allowed - 10);
+
+        // 成功的预留都不需要等待, nextFreeTicketMicros 至多领先 redis 当前时间一个间隔 (20ms)
+        Map<String, String> state = rateLimiter.queryState();
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<String> time = jedis.time();
+            long nowMicros = Long.parseLong(time.get(0)) * 1_000_000 + Long.parseLong(time.get(1));
+            long ahead = (long) Double.parseDouble(state.get("nextFreeTicketMicros")) - nowMicros;
+            System.out.println("nextFreeTicketMicros ahead of redis time " + ahead + "us");
+            Assert.assertTrue(ahead <= 20_000);
+        }
+    }
+
+    /**
+     * 借连接经 borrowGate 排队; 等待令牌期间被中断立即返回
+     */
+    @Test
+    public void acquireInterruptiblyTest() throws InterruptedException {
+        JedisRedisExecutor executor = new JedisRedisExecutor(jedisPool);
+        executor.setBorrowGate(2);
+        rateLimiter = new SmoothBurstyRateLimiter(executor, "SBRL_INTERRUPTIBLY", 1);
+
+        // 透支 10 秒
+        rateLimiter.acquire(10);
+        AtomicInteger interrupted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(32);
+        Thread[] threads = new Thread[32];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    rateLimiter.acquireInterruptibly();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+                done.countDown();
+            });
+            threads[t].start();
+        }
+        Thread.sleep(500);
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        System.out.println("interrupted " + interrupted + " in " + (System.nanoTime() - start) / 1000 + "us");
+        Assert.assertEquals(32, interrupted.get());
+    }
 
     @After
     public void after() {
@@ -0,0 +1,110 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.JedisRedisExecutor;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+
+/**
+ * 回放 "冷启动突发 -> 空闲 -> 再突发", 按 200ms 分桶统计放行数, 打印放行速率曲线.
+ */
+public class SmoothWarmingUpRateLimiterTest {
+    private static final long BUCKET_MS = 200;
+
+    private JedisPool jedisPool;
+
+    private SmoothWarmingUpRateLimiter rateLimiter;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @After
+    public void after() {
+        if (rateLimiter != null) {
+            rateLimiter.destroy();
+        }
+        jedisPool.close();
+    }
+
+    @Test
+    public void acquireTest() {
+        // 稳定间隔 200ms, 冷间隔 600ms
+        rateLimiter = new SmoothWarmingUpRateLimiter(jedisPool, "SWURL_ACQUIRE", 5, Duration.ofSeconds(2));
+
+        for (int i = 0; i < 12; i++) {
+            System.out.println("get 1 tokens: " + rateLimiter.acquire() + "s");
+        }
+        /*
+         * 等待从 ~0.6s 逐步降到 0.2s, 同 guava:
+         * get 1 tokens: 0.0s
+         * get 1 tokens: 0.55...s
+         * ...
+         * get 1 tokens: 0.2s
+         */
+    }
+
+    @Test
+    public void tryAcquireTest() {
+        rateLimiter = new SmoothWarmingUpRateLimiter(jedisPool, "SWURL_TRY", 5, Duration.ofSeconds(2));
+
+        Assert.assertTrue(rateLimiter.tryAcquire());
+        // 冷状态下第二个要等 ~0.6s
+        Assert.assertFalse(rateLimiter.tryAcquire());
+        Assert.assertTrue(rateLimiter.tryAcquire(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void warmupCurveTest() throws InterruptedException {
+        // 稳定 20/s, 预热 2s, 冷速率 20/3/s
+        JedisRedisExecutor executor = new JedisRedisExecutor(jedisPool);
+        rateLimiter = new SmoothWarmingUpRateLimiter(executor, "SWURL_CURVE", 20, Duration.ofSeconds(2),
+                SmoothWarmingUpRateLimiter.DEFAULT_COLD_FACTOR, false);
+
+        System.out.println("== cold burst ==");
+        int[] cold = burst(Duration.ofSeconds(4));
+        // 空闲超过 warmupPeriod, 令牌回到满 (冷)
+        Thread.sleep(3000);
+        System.out.println("== burst after idle ==");
+        int[] again = burst(Duration.ofSeconds(4));
+
+        // 先慢后快: 末段放行数明显高于首段
+        Assert.assertTrue(cold[cold.length - 1] > cold[0]);
+        Assert.assertTrue(again[again.length - 1] > again[0]);
+        // 稳定后接近 20/s, 即每桶 ~4 个
+        Assert.assertTrue(cold[cold.length - 1] <= 5);
+    }
+
+    /**
+     * 单线程不停 acquire, 统计每个桶的放行数并画出来
+     */
+    private int[] burst(Duration duration) {
+        int[] buckets = new int[(int) (duration.toMillis() / BUCKET_MS)];
+        long start = System.currentTimeMillis();
+        while (true) {
+            rateLimiter.acquire();
+            int i = (int) ((System.currentTimeMillis() - start) / BUCKET_MS);
+            if (i >= buckets.length) {
+                break;
+            }
+            buckets[i]++;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            StringBuilder bar = new StringBuilder();
+            for (int j = 0; j < buckets[i]; j++) {
+                bar.append('#');
+            }
+            System.out.printf("%5dms %2d/s %s%n", i * BUCKET_MS, buckets[i] * 1000 / BUCKET_MS, bar);
+        }
+        return buckets;
+    }
+
+}
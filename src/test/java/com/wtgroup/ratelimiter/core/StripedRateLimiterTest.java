@@ -0,0 +1,52 @@
+package com.wtgroup.ratelimiter.core;
+
+import com.wtgroup.ratelimiter.executor.RedisExecutor;
+import com.wtgroup.ratelimiter.executor.ShardedRedisExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 子桶用进程内限流器, 不需要 redis
+ */
+public class StripedRateLimiterTest {
+
+    @Test
+    public void quotaSumTest() {
+        // 全局 100/h, 拆成 6 个子桶: 17,17,17,17,16,16
+        List<RateLimiter> stripes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            stripes.add(new LocalFixWindowRateLimiter(100 / 6 + (i < 100 % 6 ? 1 : 0), Duration.ofHours(1)));
+        }
+        StripedRateLimiter rateLimiter = new StripedRateLimiter(stripes);
+        int acquired = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (rateLimiter.tryAcquire()) {
+                acquired++;
+            }
+        }
+        // 随机选桶 + 被拒再试一个, 末尾可能有零星剩余, 但不会多放
+        System.out.println("acquired: " + acquired);
+        Assert.assertTrue(acquired <= 100);
+        Assert.assertTrue(acquired >= 95);
+    }
+
+    @Test
+    public void stripeIdsSpreadTest() {
+        List<RedisExecutor> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(null);
+        }
+        ShardedRedisExecutor executor = ShardedRedisExecutor.of(shards);
+        List<String> ids = StripedRateLimiter.stripeIds(executor, "GLOBAL", 6);
+        System.out.println(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            Assert.assertEquals(i % 3, executor.shardIndex(ids.get(i)));
+        }
+        Assert.assertEquals(6, ids.stream().distinct().count());
+    }
+
+}
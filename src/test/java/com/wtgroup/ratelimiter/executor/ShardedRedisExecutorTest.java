@@ -0,0 +1,140 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.GcraScript;
+import com.wtgroup.ratelimiter.script.RedisScript;
+import com.wtgroup.ratelimiter.util.KeyUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 分片路由, 不需要 redis: 每个分片 eval 返回自己的名字
+ */
+public class ShardedRedisExecutorTest {
+
+    private static final RedisScript script = new GcraScript();
+
+    @Test
+    public void hashTagTest() {
+        Assert.assertEquals("{a}", KeyUtil.hashTag("a"));
+        Assert.assertEquals("x{a}y", KeyUtil.hashTag("x{a}y"));
+        Assert.assertEquals("{x{}y}", KeyUtil.hashTag("x{}y"));
+        Assert.assertEquals("a", KeyUtil.hashTagOf("x{a}:1"));
+        Assert.assertEquals("x{}y", KeyUtil.hashTagOf("x{}y"));
+        Assert.assertEquals("abc", KeyUtil.hashTagOf("abc"));
+    }
+
+    @Test
+    public void distributionTest() {
+        ShardedRedisExecutor executor = sharded(6);
+        int[] counts = new int[6];
+        for (int i = 0; i < 60000; i++) {
+            counts[executor.shardIndex("user:" + i)]++;
+        }
+        System.out.println("keys per shard: " + Arrays.toString(counts));
+        for (int count : counts) {
+            Assert.assertTrue(count > 10000 * 0.75 && count < 10000 * 1.25);
+        }
+    }
+
+    @Test
+    public void sameTagSameShardTest() {
+        ShardedRedisExecutor executor = sharded(6);
+        for (int i = 0; i < 100; i++) {
+            String tag = KeyUtil.hashTag("FW" + i);
+            Assert.assertEquals(executor.shardIndex(tag + ":123"), executor.shardIndex(tag + ":config"));
+            Assert.assertEquals(executor.route(tag + ":123").eval(script, Collections.singletonList(tag), null),
+                    executor.eval(script, Arrays.asList(tag + ":123", tag + ":config"), null));
+        }
+    }
+
+    @Test
+    public void consistentTest() {
+        ShardedRedisExecutor three = sharded(3);
+        ShardedRedisExecutor four = sharded(4);
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String key = "user:" + i;
+            int before = three.shardIndex(key);
+            int after = four.shardIndex(key);
+            if (before != after) {
+                moved++;
+                // 只会挪到新分片
+                Assert.assertEquals(3, after);
+            }
+        }
+        System.out.println("moved: " + moved);
+        Assert.assertTrue(moved < 10000 / 4 * 1.3);
+    }
+
+    @Test
+    public void evalBatchTest() {
+        ShardedRedisExecutor executor = sharded(3);
+        String[][] params = new String[100][];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = new String[]{"k" + i, "1"};
+        }
+        Object[] results = executor.evalBatch(script, 1, params);
+        for (int i = 0; i < params.length; i++) {
+            Assert.assertEquals("shard-" + executor.shardIndex("k" + i) + ":k" + i, results[i]);
+        }
+    }
+
+    private static ShardedRedisExecutor sharded(int n) {
+        List<RedisExecutor> shards = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            shards.add(new NamedExecutor("shard-" + i));
+        }
+        return ShardedRedisExecutor.of(shards);
+    }
+
+    private static class NamedExecutor extends StubRedisExecutor {
+        final String name;
+
+        NamedExecutor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object eval(RedisScript script, List<String> keys, List<String> args) {
+            return name;
+        }
+
+        @Override
+        public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+            Object[] results = new Object[params.length];
+            for (int i = 0; i < params.length; i++) {
+                results[i] = name + ":" + params[i][0];
+            }
+            return results;
+        }
+
+        @Override
+        public String hget(String key, String field) {
+            return name;
+        }
+
+        @Override
+        public CompletableFuture<String> hgetAsync(String key, String field) {
+            return CompletableFuture.completedFuture(name);
+        }
+
+        @Override
+        public Map<String, String> hgetAll(String key) {
+            return new LinkedHashMap<>();
+        }
+
+        @Override
+        public String get(String key) {
+            return name;
+        }
+    }
+
+}
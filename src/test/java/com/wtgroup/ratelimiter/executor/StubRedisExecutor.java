@@ -0,0 +1,65 @@
+package com.wtgroup.ratelimiter.executor;
+
+import com.wtgroup.ratelimiter.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 测试用的 RedisExecutor 桩, 只覆盖用到的方法; 其余读写抛 UnsupportedOperationException, expire/del 忽略
+ */
+public abstract class StubRedisExecutor implements RedisExecutor {
+
+    @Override
+    public Object eval(RedisScript script, List<String> keys, List<String> args) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 同步 eval 的结果, 异常以失败的 future 返回
+     */
+    @Override
+    public CompletableFuture<Object> evalAsync(RedisScript script, List<String> keys, List<String> args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(eval(script, keys, args));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public Object[] evalBatch(RedisScript script, int keyCount, String[][] params) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<String> hgetAsync(String key, String field) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String get(String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void expire(String key, int seconds) {
+    }
+
+    @Override
+    public void del(String key) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.wtgroup.ratelimiter.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MicrometerRateLimiterMetricsTest {
+
+    @Test
+    public void recordTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LimiterRecorder recorder = new MicrometerRateLimiterMetrics(registry).limiter("fix_window", "API");
+
+        recorder.permitted();
+        recorder.permitted();
+        recorder.rejected();
+        recorder.waited(TimeUnit.MILLISECONDS.toNanos(200));
+        recorder.redis(TimeUnit.MILLISECONDS.toNanos(1));
+
+        Assert.assertEquals(2.0, registry.get("ratelimiter.requests").tags("id", "API", "result", "permitted").counter().count(), 0);
+        Assert.assertEquals(1.0, registry.get("ratelimiter.requests").tags("id", "API", "result", "rejected").counter().count(), 0);
+        Assert.assertEquals(200.0, registry.get("ratelimiter.wait").tags("type", "fix_window").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+        Assert.assertEquals(1, registry.get("ratelimiter.redis").timer().count());
+    }
+
+    @Test
+    public void sameIdSharesMetersTest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerRateLimiterMetrics metrics = new MicrometerRateLimiterMetrics(registry);
+
+        metrics.limiter("smooth_bursty", "API").permitted();
+        metrics.limiter("smooth_bursty", "API").permitted();
+
+        Assert.assertEquals(2.0, registry.get("ratelimiter.requests").tags("result", "permitted").counter().count(), 0);
+    }
+
+}
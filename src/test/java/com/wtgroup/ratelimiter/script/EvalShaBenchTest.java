@@ -0,0 +1,84 @@
+package com.wtgroup.ratelimiter.script;
+
+import com.wtgroup.ratelimiter.util.ScriptUtil;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EVAL vs EVALSHA 对比
+ */
+public class EvalShaBenchTest {
+
+    private static final int ROUNDS = 100000;
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void before() {
+        GenericObjectPoolConfig genericObjectPoolConfig = new GenericObjectPoolConfig();
+
+        this.jedisPool = new JedisPool(genericObjectPoolConfig, "ws-docker");
+    }
+
+    @Test
+    public void sha1Test() {
+        // redis 文档中的示例: SCRIPT LOAD "return 1"
+        Assert.assertEquals("e0e1f9fabfc9d4800c877a703b823ac0578ff8db", ScriptUtil.sha1Hex("return 1"));
+    }
+
+    @Test
+    public void noScriptTest() {
+        RedisScript script = new FixWindowScript();
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.scriptFlush();
+            // 模拟 redis 重启后脚本缓存丢失
+            Object res = ScriptUtil.evalsha(jedis, script, Arrays.asList("EVALSHA_BENCH"), Arrays.asList("1000", "1"));
+            Assert.assertEquals(1L, res);
+            Assert.assertTrue(jedis.scriptExists(script.getSha1()));
+        }
+    }
+
+    @Test
+    public void evalVsEvalsha() {
+        RedisScript script = new SmoothBurstyReserveScript();
+        List<String> keys = Arrays.asList("EVALSHA_BENCH_SBRL");
+        List<String> args = Arrays.asList("1");
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.eval(new SmoothBurstyInitScript().getScriptAsString(), keys, Arrays.asList("1000000"));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                jedis.eval(script.getScriptAsString(), keys, args);
+            }
+            long evalNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                ScriptUtil.evalsha(jedis, script, keys, args);
+            }
+            long evalshaNanos = System.nanoTime() - start;
+
+            jedis.del(keys.get(0));
+
+            // 请求体中除脚本体/sha1 外其余部分一致, 只比较这部分
+            int evalBytes = script.getScriptAsString().getBytes(StandardCharsets.UTF_8).length;
+            int evalshaBytes = script.getSha1().length();
+            System.out.println("EVAL    : " + evalBytes + " bytes/op, " + opsPerSec(evalNanos) + " ops/s");
+            System.out.println("EVALSHA : " + evalshaBytes + " bytes/op, " + opsPerSec(evalshaNanos) + " ops/s");
+        }
+    }
+
+    private long opsPerSec(long nanos) {
+        return ROUNDS * 1000000000L / nanos;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.wtgroup.ratelimiter.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LruCacheTest {
+
+    @Test
+    public void boundedTest() {
+        LruCache<String, String> cache = new LruCache<>(1000, 0);
+        for (int i = 0; i < 100000; i++) {
+            cache.get("key" + i, k -> k);
+        }
+        Assert.assertTrue(cache.size() <= 1008);
+    }
+
+    @Test
+    public void lruTest() {
+        // 容量小于分段数时, 每段一个条目
+        LruCache<Integer, Integer> cache = new LruCache<>(1, 0);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, k -> loads.incrementAndGet());
+        cache.get(1, k -> loads.incrementAndGet());
+        Assert.assertEquals(1, loads.get());
+        cache.get(2, k -> loads.incrementAndGet());
+        Assert.assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    public void expireTest() throws InterruptedException {
+        LruCache<String, Integer> cache = new LruCache<>(10, 50);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", k -> loads.incrementAndGet());
+        Thread.sleep(100);
+        Assert.assertNull(cache.getIfPresent("a"));
+        cache.get("a", k -> loads.incrementAndGet());
+        Assert.assertEquals(2, loads.get());
+    }
+
+}